@@ -0,0 +1,102 @@
+package carldav.bootstrap;
+
+import carldav.entity.ItemContent;
+import carldav.repository.ItemContentRepository;
+import org.slf4j.Logger;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.Assert;
+
+import javax.sql.DataSource;
+import java.sql.ResultSet;
+import java.util.List;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Moves payloads of items stored before the introduction of {@link ItemContent} from the legacy
+ * {@code item.calendar} column to {@code item_content}. Schema updates add the new columns but never copy data,
+ * hence such items would have no payload at all. Migrated rows get their legacy column cleared, the migration
+ * is a no-op on databases without the legacy column or once every row has been migrated.
+ *
+ * @author Kamill Sokol
+ */
+@Component
+public class LegacyContentMigrator implements ApplicationListener<ContextRefreshedEvent> {
+
+    private static final Logger LOG = getLogger(LegacyContentMigrator.class);
+
+    static final int BATCH_SIZE = 100;
+
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ItemContentRepository itemContentRepository;
+
+    public LegacyContentMigrator(DataSource dataSource, PlatformTransactionManager transactionManager, ItemContentRepository itemContentRepository) {
+        Assert.notNull(dataSource, "dataSource is null");
+        Assert.notNull(transactionManager, "transactionManager is null");
+        Assert.notNull(itemContentRepository, "itemContentRepository is null");
+        this.dataSource = dataSource;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setMaxRows(BATCH_SIZE);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.itemContentRepository = itemContentRepository;
+    }
+
+    @Override
+    public void onApplicationEvent(ContextRefreshedEvent contextRefreshedEvent) {
+        if (!hasLegacyColumn()) {
+            return;
+        }
+
+        LOG.info("checking for items with legacy payload");
+
+        int migrated = 0;
+        int count;
+        do {
+            count = transactionTemplate.execute(status -> migrateBatch());
+            migrated += count;
+        } while (count == BATCH_SIZE);
+
+        LOG.info("migrated payload of {} items", migrated);
+    }
+
+    private int migrateBatch() {
+        final List<Object[]> rows = jdbcTemplate.query("select id, calendar from item where calendar is not null order by id",
+                (resultSet, rowNum) -> new Object[] {resultSet.getLong("id"), resultSet.getString("calendar")});
+
+        for (final Object[] row : rows) {
+            final String calendar = (String) row[1];
+            final String hash = ItemContent.hash(calendar);
+
+            ItemContent content = itemContentRepository.findByHash(hash);
+            if (content == null) {
+                content = itemContentRepository.save(new ItemContent(calendar));
+            }
+
+            jdbcTemplate.update("update item set contentid = ?, contentlength = ?, calendar = null where id = ?",
+                    content.getId(), calendar.getBytes(UTF_8).length, row[0]);
+        }
+        return rows.size();
+    }
+
+    private boolean hasLegacyColumn() {
+        try {
+            return (Boolean) JdbcUtils.extractDatabaseMetaData(dataSource, metaData -> {
+                try (ResultSet columns = metaData.getColumns(null, null, "ITEM", "CALENDAR")) {
+                    return columns.next();
+                }
+            });
+        } catch (MetaDataAccessException exception) {
+            throw new IllegalStateException("failed to inspect table item", exception);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package carldav.bootstrap;
+
+import org.slf4j.Logger;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.Assert;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Hands out sync tokens to items stored before the introduction of sync tokens. Schema updates add the column with
+ * a default of {@code 0}, such items would never be part of a synchronization as a sync token of {@code 0} is older
+ * than any requested one. Tokens are reserved from the collection's change counter just like on a regular write,
+ * the migration is a no-op once every item has a sync token.
+ *
+ * @author Kamill Sokol
+ */
+@Component
+public class SyncTokenMigrator implements ApplicationListener<ContextRefreshedEvent> {
+
+    private static final Logger LOG = getLogger(SyncTokenMigrator.class);
+
+    static final int BATCH_SIZE = 100;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public SyncTokenMigrator(DataSource dataSource, PlatformTransactionManager transactionManager) {
+        Assert.notNull(dataSource, "dataSource is null");
+        Assert.notNull(transactionManager, "transactionManager is null");
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setMaxRows(BATCH_SIZE);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Override
+    public void onApplicationEvent(ContextRefreshedEvent contextRefreshedEvent) {
+        int migrated = 0;
+        int count;
+        do {
+            count = transactionTemplate.execute(status -> migrateBatch());
+            migrated += count;
+        } while (count == BATCH_SIZE);
+
+        if (migrated > 0) {
+            LOG.info("assigned sync tokens to {} items", migrated);
+        }
+    }
+
+    private int migrateBatch() {
+        final Map<Long, List<Long>> itemsByCollection = new LinkedHashMap<>();
+        jdbcTemplate.query("select id, collectionid from item where synctoken = 0 and collectionid is not null " +
+                "order by collectionid, id", resultSet -> {
+            itemsByCollection.computeIfAbsent(resultSet.getLong("collectionid"), id -> new ArrayList<>()).add(resultSet.getLong("id"));
+        });
+
+        int count = 0;
+        for (final Map.Entry<Long, List<Long>> entry : itemsByCollection.entrySet()) {
+            final List<Long> items = entry.getValue();
+            jdbcTemplate.update("update collection set synctoken = synctoken + ? where id = ?", items.size(), entry.getKey());
+            long syncToken = jdbcTemplate.queryForObject("select synctoken from collection where id = ?", Long.class, entry.getKey()) - items.size();
+
+            final List<Object[]> updates = new ArrayList<>(items.size());
+            for (final Long item : items) {
+                updates.add(new Object[] {++syncToken, item});
+            }
+            jdbcTemplate.batchUpdate("update item set synctoken = ? where id = ?", updates);
+            count += items.size();
+        }
+        return count;
+    }
+}
@@ -34,6 +34,9 @@ public class CollectionItem {
     private User owner;
     private CollectionItem parent;
     private Set<CollectionItem> collections;
+    private Set<ItemTombstone> tombstones;
+    private Long syncToken = 0L;
+    private Long prunedSyncToken = 0L;
 
     @Id
     @GeneratedValue
@@ -114,4 +117,50 @@ public class CollectionItem {
     public void setCollections(Set<CollectionItem> collections) {
         this.collections = collections;
     }
+
+    @OneToMany(targetEntity=ItemTombstone.class, mappedBy="collection", fetch=FetchType.LAZY, orphanRemoval=true)
+    public Set<ItemTombstone> getTombstones() {
+        return tombstones;
+    }
+
+    public void setTombstones(Set<ItemTombstone> tombstones) {
+        this.tombstones = tombstones;
+    }
+
+    /**
+     * @return monotonically increasing counter, incremented whenever a member is added, updated or removed.
+     * Serves as sync token, CTag and entity tag of the collection.
+     */
+    @NotNull
+    @Column(name = "synctoken", nullable = false, columnDefinition = "bigint default 0")
+    public Long getSyncToken() {
+        return syncToken;
+    }
+
+    public void setSyncToken(final Long syncToken) {
+        this.syncToken = syncToken;
+    }
+
+    /**
+     * @return highest sync token of a removal whose tombstone has expired, changes since an older sync token can't
+     * be told anymore
+     */
+    @NotNull
+    @Column(name = "prunedsynctoken", nullable = false, columnDefinition = "bigint default 0")
+    public Long getPrunedSyncToken() {
+        return prunedSyncToken;
+    }
+
+    public void setPrunedSyncToken(final Long prunedSyncToken) {
+        this.prunedSyncToken = prunedSyncToken;
+    }
+
+    /**
+     * @return entity tag and CTag of the current revision, derived from {@link #getSyncToken()} rather than
+     * persisted as it never repeats for two revisions of the same collection
+     */
+    @Transient
+    public String getEtag() {
+        return id + "-" + syncToken;
+    }
 }
@@ -15,12 +15,16 @@
  */
 package carldav.entity;
 
+import org.apache.commons.codec.digest.DigestUtils;
 import org.hibernate.validator.constraints.Length;
 import org.hibernate.validator.constraints.NotEmpty;
 
 import javax.persistence.*;
 import javax.validation.constraints.NotNull;
+import java.nio.charset.StandardCharsets;
 import java.util.Date;
+import java.util.HashSet;
+import java.util.Set;
 
 @Entity
 @Table(name = "item",
@@ -29,7 +33,10 @@ import java.util.Date;
                  @Index(name = "idx_startdt",columnList = "startdate"),
                  @Index(name = "idx_enddt",columnList = "enddate"),
                  @Index(name = "idx_floating",columnList = "floating"),
-                 @Index(name = "idx_recurring",columnList = "recurring")
+                 @Index(name = "idx_recurring",columnList = "recurring"),
+                 @Index(name = "idx_insthorizon",columnList = "instancehorizon"),
+                 @Index(name = "idx_itemsync",columnList = "collectionid, synctoken"),
+                 @Index(name = "idx_itemcollname",columnList = "collectionid, itemname")
         },
         uniqueConstraints = {@UniqueConstraint(name = "uid_collection", columnNames = {"uid", "collectionid"})}
 )
@@ -39,13 +46,22 @@ public class Item {
         VEVENT, VJOURNAL, VTODO, VCARD
     }
 
+    /**
+     * End date of items recurring infinitely (9999-12-31T00:00:00Z). Keeps time-range
+     * queries on {@code enddate} a plain indexed comparison.
+     */
+    public static final long OPEN_ENDED = 253402214400000L;
+
     private Long id;
     private Date modifiedDate;
+    private String etag;
     private String displayName;
     private String name;
     private String uid;
     private CollectionItem collection;
     private String mimetype;
+    private ItemContent content;
+    private Long contentLength;
     private String calendar;
     private Date startDate;
     private Date endDate;
@@ -54,6 +70,11 @@ public class Item {
     private Date clientCreationDate;
     private Date clientModifiedDate;
     private Type type;
+    private Date instanceHorizon;
+    private Long syncToken = 0L;
+    private Set<ItemInstance> instances = new HashSet<>();
+    private Boolean textIndexed;
+    private Set<ItemTrigram> trigrams = new HashSet<>();
 
     public Item() {}
 
@@ -81,6 +102,36 @@ public class Item {
         this.modifiedDate = modifiedDate;
     }
 
+    /**
+     * @return entity tag of the current revision, calculated whenever the item is written, see {@link #updateEtag()}
+     */
+    @Column(name = "etag", length = 32)
+    public String getEtag() {
+        return etag;
+    }
+
+    public void setEtag(final String etag) {
+        this.etag = etag;
+    }
+
+    /**
+     * Calculates the entity tag of the current revision from the id and the modification date.
+     */
+    public void updateEtag() {
+        this.etag = createEtag(id, modifiedDate);
+    }
+
+    /**
+     * @return entity tag of the given revision of an item, {@code null} if the item has not been stored yet
+     */
+    public static String createEtag(Long id, Date modifiedDate) {
+        if (id == null && modifiedDate == null) {
+            return null;
+        }
+        final String revision = id + ":" + (modifiedDate != null ? String.valueOf(modifiedDate.getTime()) : "");
+        return DigestUtils.md5Hex(revision.getBytes(StandardCharsets.UTF_8));
+    }
+
     @NotNull
     @Column(name = "displayname")
     public String getDisplayName() {
@@ -132,12 +183,43 @@ public class Item {
         this.mimetype = mimetype;
     }
 
-    @Column(name = "calendar", columnDefinition = "CLOB")
-    @Lob
+    @ManyToOne(targetEntity=ItemContent.class, fetch=FetchType.LAZY)
+    @JoinColumn(name = "contentid")
+    public ItemContent getContent() {
+        return content;
+    }
+
+    public void setContent(final ItemContent content) {
+        this.content = content;
+    }
+
+    /**
+     * @return UTF-8 encoded length of the payload in bytes
+     */
+    @Column(name = "contentlength")
+    public Long getContentLength() {
+        return contentLength;
+    }
+
+    public void setContentLength(final Long contentLength) {
+        this.contentLength = contentLength;
+    }
+
+    /**
+     * @return the raw payload, inflates {@link #getContent()} on first access
+     */
+    @Transient
     public String getCalendar() {
+        if (calendar == null && content != null) {
+            calendar = content.getCalendar();
+        }
         return calendar;
     }
 
+    /**
+     * Sets the raw payload. {@link #getContent()} is resolved when the item is stored
+     * through {@link org.unitedinternet.cosmo.service.ContentService}.
+     */
     public void setCalendar(String calendar) {
         this.calendar = calendar;
     }
@@ -207,4 +289,62 @@ public class Item {
     public void setType(final Type type) {
         this.type = type;
     }
+
+    /**
+     * Point in time up to which {@link #getInstances()} has been materialized. A value of {@code null}
+     * means the instances cover every occurrence of this item.
+     */
+    @Column(name = "instancehorizon")
+    @Temporal(TemporalType.TIMESTAMP)
+    public Date getInstanceHorizon() {
+        return instanceHorizon;
+    }
+
+    public void setInstanceHorizon(final Date instanceHorizon) {
+        this.instanceHorizon = instanceHorizon;
+    }
+
+    /**
+     * @return value of the collection's sync token at the time this item has been written last
+     */
+    @NotNull
+    @Column(name = "synctoken", nullable = false, columnDefinition = "bigint default 0")
+    public Long getSyncToken() {
+        return syncToken;
+    }
+
+    public void setSyncToken(final Long syncToken) {
+        this.syncToken = syncToken;
+    }
+
+    @OneToMany(targetEntity=ItemInstance.class, mappedBy="item", fetch=FetchType.LAZY, cascade=CascadeType.ALL, orphanRemoval=true)
+    public Set<ItemInstance> getInstances() {
+        return instances;
+    }
+
+    public void setInstances(final Set<ItemInstance> instances) {
+        this.instances = instances;
+    }
+
+    /**
+     * @return true if {@link #getTrigrams()} covers the text properties of this item, {@code null} for items
+     * written before the text index existed
+     */
+    @Column(name = "textindexed")
+    public Boolean getTextIndexed() {
+        return textIndexed;
+    }
+
+    public void setTextIndexed(final Boolean textIndexed) {
+        this.textIndexed = textIndexed;
+    }
+
+    @OneToMany(targetEntity=ItemTrigram.class, mappedBy="item", fetch=FetchType.LAZY, cascade=CascadeType.ALL, orphanRemoval=true)
+    public Set<ItemTrigram> getTrigrams() {
+        return trigrams;
+    }
+
+    public void setTrigrams(final Set<ItemTrigram> trigrams) {
+        this.trigrams = trigrams;
+    }
 }
@@ -0,0 +1,117 @@
+package carldav.entity;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.IOUtils;
+
+import javax.persistence.*;
+import javax.validation.constraints.NotNull;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Date;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Raw iCalendar or vCard payload of an {@link Item}. Kept apart from {@link Item} so that
+ * listing items does not read the payload. Payloads are stored deflated and keyed by the
+ * SHA-256 hash of their text, identical payloads are shared between items.
+ *
+ * @author Kamill Sokol
+ */
+@Entity
+@Table(name = "item_content", uniqueConstraints = {@UniqueConstraint(name = "content_hash", columnNames = {"hash"})})
+public class ItemContent {
+
+    private Long id;
+    private String hash;
+    private byte[] data;
+    private Date modifyDate;
+
+    public ItemContent() {}
+
+    public ItemContent(String calendar) {
+        this.hash = hash(calendar);
+        this.data = deflate(calendar);
+        this.modifyDate = new Date();
+    }
+
+    @Id
+    @GeneratedValue
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(final Long id) {
+        this.id = id;
+    }
+
+    @NotNull
+    @Column(name = "hash", nullable = false, length = 64)
+    public String getHash() {
+        return hash;
+    }
+
+    public void setHash(final String hash) {
+        this.hash = hash;
+    }
+
+    @NotNull
+    @Column(name = "data", nullable = false, columnDefinition = "BLOB")
+    @Lob
+    public byte[] getData() {
+        return data;
+    }
+
+    public void setData(final byte[] data) {
+        this.data = data;
+    }
+
+    /**
+     * @return point in time this payload has been stored, {@code null} for payloads stored before this has been
+     * recorded
+     */
+    @Column(name = "modifydate")
+    @Temporal(TemporalType.TIMESTAMP)
+    public Date getModifyDate() {
+        return modifyDate;
+    }
+
+    public void setModifyDate(final Date modifyDate) {
+        this.modifyDate = modifyDate;
+    }
+
+    /**
+     * @return the inflated payload
+     */
+    @Transient
+    public String getCalendar() {
+        return data != null ? inflate(data) : null;
+    }
+
+    public static String hash(String calendar) {
+        return DigestUtils.sha256Hex(calendar.getBytes(UTF_8));
+    }
+
+    private static byte[] deflate(String calendar) {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DeflaterOutputStream out = new DeflaterOutputStream(bytes, new Deflater(Deflater.BEST_COMPRESSION))) {
+            out.write(calendar.getBytes(UTF_8));
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static String inflate(byte[] data) {
+        try (InflaterInputStream in = new InflaterInputStream(new ByteArrayInputStream(data))) {
+            return IOUtils.toString(in, UTF_8);
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package carldav.entity;
+
+import javax.persistence.*;
+import javax.validation.constraints.NotNull;
+import java.util.Date;
+
+/**
+ * A single materialized occurrence of a calendar {@link Item}.
+ *
+ * @author Kamill Sokol
+ */
+@Entity
+@Table(name = "item_instance",
+        indexes={@Index(name = "idx_institem",columnList = "itemid" ),
+                 @Index(name = "idx_inststartdt",columnList = "startdate"),
+                 @Index(name = "idx_instenddt",columnList = "enddate")
+        }
+)
+public class ItemInstance {
+
+    private Long id;
+    private Item item;
+    private Date startDate;
+    private Date endDate;
+    private Date recurrenceId;
+    private Boolean floating;
+
+    public ItemInstance() {}
+
+    public ItemInstance(Item item, Date startDate, Date endDate, Date recurrenceId, Boolean floating) {
+        this.item = item;
+        this.startDate = startDate;
+        this.endDate = endDate;
+        this.recurrenceId = recurrenceId;
+        this.floating = floating;
+    }
+
+    @Id
+    @GeneratedValue
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(final Long id) {
+        this.id = id;
+    }
+
+    @NotNull
+    @ManyToOne(targetEntity=Item.class, fetch=FetchType.LAZY)
+    @JoinColumn(name = "itemid", nullable = false)
+    public Item getItem() {
+        return item;
+    }
+
+    public void setItem(final Item item) {
+        this.item = item;
+    }
+
+    @NotNull
+    @Column(name = "startdate", nullable = false)
+    @Temporal(TemporalType.TIMESTAMP)
+    public Date getStartDate() {
+        return startDate;
+    }
+
+    public void setStartDate(final Date startDate) {
+        this.startDate = startDate;
+    }
+
+    @NotNull
+    @Column(name = "enddate", nullable = false)
+    @Temporal(TemporalType.TIMESTAMP)
+    public Date getEndDate() {
+        return endDate;
+    }
+
+    public void setEndDate(final Date endDate) {
+        this.endDate = endDate;
+    }
+
+    @Column(name = "recurrenceid")
+    @Temporal(TemporalType.TIMESTAMP)
+    public Date getRecurrenceId() {
+        return recurrenceId;
+    }
+
+    public void setRecurrenceId(final Date recurrenceId) {
+        this.recurrenceId = recurrenceId;
+    }
+
+    @Column(name = "floating")
+    public Boolean getFloating() {
+        return floating;
+    }
+
+    public void setFloating(final Boolean floating) {
+        this.floating = floating;
+    }
+}
@@ -0,0 +1,88 @@
+package carldav.entity;
+
+import javax.persistence.*;
+import javax.validation.constraints.NotNull;
+import java.util.Date;
+
+/**
+ * Records the removal of an {@link Item} from a {@link CollectionItem} so that sync clients can be told about it.
+ *
+ * @author Kamill Sokol
+ */
+@Entity
+@Table(name = "item_tombstone",
+        indexes={@Index(name = "idx_tombstonesync",columnList = "collectionid, synctoken"),
+                 @Index(name = "idx_tombstoneremoved",columnList = "removedate")}
+)
+public class ItemTombstone {
+
+    private Long id;
+    private CollectionItem collection;
+    private String name;
+    private Long syncToken;
+    private Date removedDate;
+
+    public ItemTombstone() {}
+
+    public ItemTombstone(CollectionItem collection, String name, Long syncToken, Date removedDate) {
+        this.collection = collection;
+        this.name = name;
+        this.syncToken = syncToken;
+        this.removedDate = removedDate;
+    }
+
+    @Id
+    @GeneratedValue
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(final Long id) {
+        this.id = id;
+    }
+
+    @NotNull
+    @ManyToOne(targetEntity=CollectionItem.class, fetch=FetchType.LAZY)
+    @JoinColumn(name = "collectionid", nullable = false)
+    public CollectionItem getCollection() {
+        return collection;
+    }
+
+    public void setCollection(final CollectionItem collection) {
+        this.collection = collection;
+    }
+
+    @NotNull
+    @Column(name = "itemname", nullable = false, length=255)
+    public String getName() {
+        return name;
+    }
+
+    public void setName(final String name) {
+        this.name = name;
+    }
+
+    @NotNull
+    @Column(name = "synctoken", nullable = false)
+    public Long getSyncToken() {
+        return syncToken;
+    }
+
+    public void setSyncToken(final Long syncToken) {
+        this.syncToken = syncToken;
+    }
+
+    /**
+     * @return point in time the item has been removed, {@code null} for tombstones recorded before this has been
+     * recorded
+     */
+    @Column(name = "removedate")
+    @Temporal(TemporalType.TIMESTAMP)
+    public Date getRemovedDate() {
+        return removedDate;
+    }
+
+    public void setRemovedDate(final Date removedDate) {
+        this.removedDate = removedDate;
+    }
+}
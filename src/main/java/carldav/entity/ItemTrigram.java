@@ -0,0 +1,105 @@
+package carldav.entity;
+
+import javax.persistence.*;
+import javax.validation.constraints.NotNull;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A normalized trigram occurring in an indexed text property of a calendar {@link Item}. Text is normalized by
+ * folding every character the same way {@link String#regionMatches(boolean, int, String, int, int)} compares
+ * characters ignoring case, hence the trigrams of a caseless search term are a subset of the trigrams of every
+ * matching property value.
+ *
+ * @author Kamill Sokol
+ */
+@Entity
+@Table(name = "item_trigram",
+        indexes={@Index(name = "idx_trigram",columnList = "property,trigram" ),
+                 @Index(name = "idx_trigramitem",columnList = "itemid")
+        }
+)
+public class ItemTrigram {
+
+    public static final List<String> PROPERTIES = Collections.unmodifiableList(Arrays.asList("SUMMARY", "UID", "LOCATION", "DESCRIPTION"));
+
+    private static final int LENGTH = 3;
+
+    private Long id;
+    private Item item;
+    private String property;
+    private String trigram;
+
+    public ItemTrigram() {}
+
+    public ItemTrigram(Item item, String property, String trigram) {
+        this.item = item;
+        this.property = property;
+        this.trigram = trigram;
+    }
+
+    /**
+     * @param text text to split
+     * @return distinct normalized trigrams of the given text in order of occurrence, empty if the text is shorter
+     * than three characters
+     */
+    public static Set<String> trigrams(String text) {
+        final Set<String> trigrams = new LinkedHashSet<>();
+        if (text == null || text.length() < LENGTH) {
+            return trigrams;
+        }
+
+        final char[] folded = new char[text.length()];
+        for (int i = 0; i < folded.length; i++) {
+            folded[i] = Character.toLowerCase(Character.toUpperCase(text.charAt(i)));
+        }
+        for (int i = 0; i + LENGTH <= folded.length; i++) {
+            trigrams.add(new String(folded, i, LENGTH));
+        }
+        return trigrams;
+    }
+
+    @Id
+    @GeneratedValue
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(final Long id) {
+        this.id = id;
+    }
+
+    @NotNull
+    @ManyToOne(targetEntity=Item.class, fetch=FetchType.LAZY)
+    @JoinColumn(name = "itemid", nullable = false)
+    public Item getItem() {
+        return item;
+    }
+
+    public void setItem(final Item item) {
+        this.item = item;
+    }
+
+    @NotNull
+    @Column(name = "property", nullable = false, length = 16)
+    public String getProperty() {
+        return property;
+    }
+
+    public void setProperty(final String property) {
+        this.property = property;
+    }
+
+    @NotNull
+    @Column(name = "trigram", nullable = false, length = LENGTH)
+    public String getTrigram() {
+        return trigram;
+    }
+
+    public void setTrigram(final String trigram) {
+        this.trigram = trigram;
+    }
+}
@@ -2,6 +2,7 @@ package carldav.exception.resolver;
 
 import carldav.jackrabbit.webdav.xml.DomUtils;
 import carldav.jackrabbit.webdav.xml.XmlSerializable;
+import carldav.jackrabbit.webdav.xml.XmlStreamSerializable;
 import org.unitedinternet.cosmo.dav.CosmoDavException;
 import org.w3c.dom.Document;
 
@@ -20,6 +21,7 @@ import javax.xml.stream.XMLStreamWriter;
 public final class ResponseUtils {
 
     private static final XMLOutputFactory XML_OUTPUT_FACTORY = XMLOutputFactory.newInstance();
+    private static final XMLOutputFactory REPAIRING_XML_OUTPUT_FACTORY = createRepairingOutputFactory();
 
     public static void sendDavError(CosmoDavException e, HttpServletResponse response) {
         response.setStatus(e.getErrorCode());
@@ -53,6 +55,34 @@ public final class ResponseUtils {
         }
     }
 
+    /**
+     * Writes the given object directly to the response instead of serializing it into a buffer first. The
+     * content length is unknown upfront, hence the response is sent with chunked transfer encoding.
+     */
+    public static void streamXmlResponse(HttpServletResponse httpResponse, XmlStreamSerializable serializable, int status) {
+        httpResponse.setStatus(status);
+        httpResponse.setContentType("text/xml; charset=UTF-8");
+
+        XMLStreamWriter writer = null;
+        try {
+            writer = REPAIRING_XML_OUTPUT_FACTORY.createXMLStreamWriter(httpResponse.getOutputStream(), "UTF-8");
+            writer.writeStartDocument("UTF-8", "1.0");
+            serializable.writeTo(writer);
+            writer.writeEndDocument();
+            writer.flush();
+        } catch (Exception e) {
+            throw new CosmoDavException(e);
+        } finally {
+            if (writer != null) {
+                try {
+                    writer.close();
+                } catch (XMLStreamException exception) {
+                    //ignore me
+                }
+            }
+        }
+    }
+
     public static void sendXmlResponse(HttpServletResponse httpResponse, XmlSerializable serializable, int status) {
         httpResponse.setStatus(status);
 
@@ -78,4 +108,10 @@ public final class ResponseUtils {
             }
         }
     }
+
+    private static XMLOutputFactory createRepairingOutputFactory() {
+        final XMLOutputFactory factory = XMLOutputFactory.newInstance();
+        factory.setProperty(XMLOutputFactory.IS_REPAIRING_NAMESPACES, true);
+        return factory;
+    }
 }
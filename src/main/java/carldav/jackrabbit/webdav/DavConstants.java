@@ -27,6 +27,11 @@ public interface DavConstants {
     String XML_PROPNAME = "propname";
     String XML_PROPSTAT = "propstat";
     String XML_RESPONSE = "response";
+    String XML_SYNC_COLLECTION = "sync-collection";
+    String XML_SYNC_TOKEN = "sync-token";
+    String XML_SYNC_LEVEL = "sync-level";
+    String XML_LIMIT = "limit";
+    String XML_NRESULTS = "nresults";
 
     QName ALLPROP = new QName("DAV:", XML_ALLPROP, "D");
     QName PROPNAME = new QName("DAV:", XML_PROPNAME, "D");
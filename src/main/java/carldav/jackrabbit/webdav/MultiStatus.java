@@ -2,21 +2,29 @@ package carldav.jackrabbit.webdav;
 
 import static carldav.CarldavConstants.caldav;
 import static carldav.jackrabbit.webdav.DavConstants.XML_MULTISTATUS;
+import static carldav.jackrabbit.webdav.DavConstants.XML_SYNC_TOKEN;
 
 import carldav.jackrabbit.webdav.property.DavPropertyNameSet;
 import carldav.jackrabbit.webdav.xml.DomUtils;
 import carldav.jackrabbit.webdav.xml.XmlSerializable;
+import carldav.jackrabbit.webdav.xml.XmlStreamSerializable;
 import org.unitedinternet.cosmo.dav.WebDavResource;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 
-import java.util.List;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+import java.util.Iterator;
 import java.util.Map;
 import java.util.TreeMap;
+import java.util.stream.Stream;
 
-public class MultiStatus implements XmlSerializable {
+public class MultiStatus implements XmlSerializable, XmlStreamSerializable {
 
     private final Map<String, MultiStatusResponse> responses = new TreeMap<>();
+    private Stream<MultiStatusResponse> pending = Stream.empty();
+    private String syncToken;
 
     @Override
     public Element toXml(Document document) {
@@ -24,21 +32,77 @@ public class MultiStatus implements XmlSerializable {
         for (Map.Entry<String, MultiStatusResponse> resp : responses.entrySet()) {
             multiStatus.appendChild(resp.getValue().toXml(document));
         }
+        try (Stream<MultiStatusResponse> stream = pending) {
+            stream.forEach(response -> multiStatus.appendChild(response.toXml(document)));
+        }
+        if (syncToken != null) {
+            final Element token = DomUtils.createElement(document, XML_SYNC_TOKEN, caldav(XML_SYNC_TOKEN));
+            DomUtils.setText(token, syncToken);
+            multiStatus.appendChild(token);
+        }
         return multiStatus;
     }
 
+    /**
+     * Writes the responses one by one and flushes the writer after each of them, hence the client starts
+     * receiving the result while the remaining responses are serialized.
+     */
+    @Override
+    public void writeTo(XMLStreamWriter writer) throws XMLStreamException {
+        DomUtils.writeStartElement(writer, caldav(XML_MULTISTATUS));
+        for (MultiStatusResponse response : responses.values()) {
+            response.writeTo(writer);
+            writer.flush();
+        }
+        try (Stream<MultiStatusResponse> stream = pending) {
+            for (Iterator<MultiStatusResponse> it = stream.iterator(); it.hasNext();) {
+                it.next().writeTo(writer);
+                writer.flush();
+            }
+        }
+        if (syncToken != null) {
+            DomUtils.writeElement(writer, caldav(XML_SYNC_TOKEN), syncToken);
+        }
+        writer.writeEndElement();
+    }
+
+    /**
+     * Sets the <code>DAV:sync-token</code> reported along with the responses (RFC 6578).
+     */
+    public void setSyncToken(String syncToken) {
+        this.syncToken = syncToken;
+    }
+
     public void addResponse(MultiStatusResponse response) {
         responses.put(response.getHref(), response);
     }
 
+    /**
+     * Adds responses that are built lazily while the multistatus is written. They follow the responses added
+     * by {@link #addResponse(MultiStatusResponse)} in the order of the stream which is closed afterwards.
+     */
+    public void addResponses(Stream<MultiStatusResponse> responses) {
+        pending = Stream.concat(pending, responses);
+    }
+
+    /**
+     * Adds the response of the given resource. Responses of its members are built lazily while the multistatus
+     * is written, see {@link #addResponses(Stream)}.
+     */
     public void addResourceProperties(WebDavResource resource, DavPropertyNameSet propNameSet, int propFindType, int depth) {
         addResponse(new MultiStatusResponse(resource, propNameSet, propFindType));
         if (depth > 0 && resource.isCollection()) {
-            final List<WebDavResource> members2 = resource.getMembers();
+            addResponses(memberResponses(resource, propNameSet, propFindType, depth - 1));
+        }
+    }
 
-            for (final WebDavResource webDavResource : members2) {
-                addResourceProperties(webDavResource, propNameSet, propFindType, depth - 1);
+    private static Stream<MultiStatusResponse> memberResponses(WebDavResource resource, DavPropertyNameSet propNameSet, int propFindType, int depth) {
+        return resource.streamMembers(propNameSet, propFindType).flatMap(member -> {
+            final Stream<MultiStatusResponse> response = Stream.of(new MultiStatusResponse(member, propNameSet, propFindType));
+            if (depth > 0 && member.isCollection()) {
+                return Stream.concat(response, memberResponses(member, propNameSet, propFindType, depth - 1));
             }
-        }
+            return response;
+        });
     }
 }
@@ -8,11 +8,14 @@ import carldav.jackrabbit.webdav.property.DavPropertySet;
 import carldav.jackrabbit.webdav.property.PropContainer;
 import carldav.jackrabbit.webdav.xml.DomUtils;
 import carldav.jackrabbit.webdav.xml.XmlSerializable;
+import carldav.jackrabbit.webdav.xml.XmlStreamSerializable;
 import org.unitedinternet.cosmo.dav.WebDavResource;
 import org.unitedinternet.cosmo.dav.property.WebDavProperty;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Set;
@@ -28,7 +31,7 @@ import java.util.Set;
  * &lt;!ELEMENT prop ANY &gt;
  * </pre>
  */
-public class MultiStatusResponse implements XmlSerializable, DavConstants {
+public class MultiStatusResponse implements XmlSerializable, XmlStreamSerializable, DavConstants {
 
     private static final int TYPE_PROPSTAT = 0;
     private static final int TYPE_HREFSTATUS = 1;
@@ -257,4 +260,24 @@ public class MultiStatusResponse implements XmlSerializable, DavConstants {
         }
         return response;
     }
+
+    @Override
+    public void writeTo(final XMLStreamWriter writer) throws XMLStreamException {
+        DomUtils.writeStartElement(writer, caldav(XML_RESPONSE));
+        DomUtils.writeElement(writer, caldav(XML_HREF), href);
+        if (type == TYPE_PROPSTAT) {
+            for (Integer statusKey : statusMap.keySet()) {
+                PropContainer propCont = statusMap.get(statusKey);
+                if (!propCont.isEmpty()) {
+                    DomUtils.writeStartElement(writer, caldav(XML_PROPSTAT));
+                    propCont.writeTo(writer);
+                    new Status(statusKey).writeTo(writer);
+                    writer.writeEndElement();
+                }
+            }
+        } else {
+            status.writeTo(writer);
+        }
+        writer.writeEndElement();
+    }
 }
@@ -2,14 +2,18 @@ package carldav.jackrabbit.webdav;
 
 import carldav.jackrabbit.webdav.xml.DomUtils;
 import carldav.jackrabbit.webdav.xml.XmlSerializable;
+import carldav.jackrabbit.webdav.xml.XmlStreamSerializable;
 import org.springframework.http.HttpStatus;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
 import static carldav.CarldavConstants.XML_STATUS;
 import static carldav.CarldavConstants.caldav;
 
-public class Status implements DavConstants, XmlSerializable {
+public class Status implements DavConstants, XmlSerializable, XmlStreamSerializable {
 
     private final String version;
     private final int code;
@@ -22,9 +26,16 @@ public class Status implements DavConstants, XmlSerializable {
     }
 
     public Element toXml(Document document) {
-        String statusLine = version + " " + code + " " + phrase;
         Element e = DomUtils.createElement(document, XML_STATUS, caldav(XML_STATUS));
-        DomUtils.setText(e, statusLine);
+        DomUtils.setText(e, getStatusLine());
         return e;
     }
+
+    public void writeTo(XMLStreamWriter writer) throws XMLStreamException {
+        DomUtils.writeElement(writer, caldav(XML_STATUS), getStatusLine());
+    }
+
+    private String getStatusLine() {
+        return version + " " + code + " " + phrase;
+    }
 }
@@ -4,13 +4,16 @@ import carldav.CarldavConstants;
 import carldav.jackrabbit.webdav.DavConstants;
 import carldav.jackrabbit.webdav.xml.DomUtils;
 import carldav.jackrabbit.webdav.xml.XmlSerializable;
+import carldav.jackrabbit.webdav.xml.XmlStreamSerializable;
 import org.springframework.util.Assert;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 
 import javax.xml.namespace.QName;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
 
-public class DavPropertyName implements DavConstants, XmlSerializable, PropEntry {
+public class DavPropertyName implements DavConstants, XmlSerializable, XmlStreamSerializable, PropEntry {
 
     private QName name;
 
@@ -47,6 +50,10 @@ public class DavPropertyName implements DavConstants, XmlSerializable, PropEntry
         return name.getNamespaceURI();
     }
 
+    public QName getQualifiedName() {
+        return name;
+    }
+
     @Override
     public int hashCode() {
         return (name.hashCode()) % Integer.MAX_VALUE;
@@ -69,5 +76,10 @@ public class DavPropertyName implements DavConstants, XmlSerializable, PropEntry
     public Element toXml(Document document) {
         return DomUtils.createElement(document, name.getLocalPart(), name);
     }
+
+    public void writeTo(XMLStreamWriter writer) throws XMLStreamException {
+        DomUtils.writeStartElement(writer, name);
+        writer.writeEndElement();
+    }
 }
 
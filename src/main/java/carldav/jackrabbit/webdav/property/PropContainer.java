@@ -5,14 +5,17 @@ import static carldav.CarldavConstants.caldav;
 import carldav.jackrabbit.webdav.DavConstants;
 import carldav.jackrabbit.webdav.xml.DomUtils;
 import carldav.jackrabbit.webdav.xml.XmlSerializable;
+import carldav.jackrabbit.webdav.xml.XmlStreamSerializable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
 import java.util.Collection;
 
-public abstract class PropContainer implements XmlSerializable, DavConstants {
+public abstract class PropContainer implements XmlSerializable, XmlStreamSerializable, DavConstants {
 
     private static Logger log = LoggerFactory.getLogger(PropContainer.class);
 
@@ -74,4 +77,20 @@ public abstract class PropContainer implements XmlSerializable, DavConstants {
         return prop;
     }
 
+    /**
+     * Streaming counterpart of {@link #toXml(Document)}.
+     *
+     * @see XmlStreamSerializable#writeTo(XMLStreamWriter)
+     */
+    public void writeTo(XMLStreamWriter writer) throws XMLStreamException {
+        DomUtils.writeStartElement(writer, caldav(XML_PROP));
+        for (Object content : getContent()) {
+            if (content instanceof XmlSerializable) {
+                DomUtils.write(writer, (XmlSerializable) content);
+            } else {
+                log.debug("Unexpected content in PropContainer: should be XmlSerializable.");
+            }
+        }
+        writer.writeEndElement();
+    }
 }
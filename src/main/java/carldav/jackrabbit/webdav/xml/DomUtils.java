@@ -12,6 +12,8 @@ import javax.xml.namespace.QName;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
 import javax.xml.transform.*;
 import javax.xml.transform.dom.DOMSource;
 import javax.xml.transform.sax.SAXResult;
@@ -192,6 +194,81 @@ public class DomUtils {
         return element;
     }
 
+    /**
+     * Writes the start tag of an element with the given name. Relies on the writer to declare the namespace.
+     */
+    public static void writeStartElement(XMLStreamWriter writer, QName name) throws XMLStreamException {
+        if (name.getNamespaceURI() == null || name.getNamespaceURI().isEmpty()) {
+            writer.writeStartElement(name.getLocalPart());
+        } else {
+            writer.writeStartElement(name.getPrefix(), name.getLocalPart(), name.getNamespaceURI());
+        }
+    }
+
+    /**
+     * Writes an element with the given name and text content.
+     */
+    public static void writeElement(XMLStreamWriter writer, QName name, String text) throws XMLStreamException {
+        writeStartElement(writer, name);
+        if (text != null && !text.isEmpty()) {
+            writer.writeCharacters(text);
+        }
+        writer.writeEndElement();
+    }
+
+    /**
+     * Writes the xml representation of the given object. Objects that aren't {@link XmlStreamSerializable} are
+     * converted to a DOM element first, which is then copied to the writer.
+     */
+    public static void write(XMLStreamWriter writer, XmlSerializable serializable) throws XMLStreamException {
+        if (serializable instanceof XmlStreamSerializable) {
+            ((XmlStreamSerializable) serializable).writeTo(writer);
+        } else {
+            write(writer, serializable.toXml(createDocument()));
+        }
+    }
+
+    /**
+     * Copies the given DOM element including its attributes and children to the writer.
+     */
+    public static void write(XMLStreamWriter writer, Element element) throws XMLStreamException {
+        if (element.getNamespaceURI() == null) {
+            writer.writeStartElement(element.getNodeName());
+        } else {
+            final String prefix = element.getPrefix() == null ? "" : element.getPrefix();
+            writer.writeStartElement(prefix, element.getLocalName(), element.getNamespaceURI());
+        }
+
+        final NamedNodeMap attributes = element.getAttributes();
+        for (int i = 0; i < attributes.getLength(); i++) {
+            final Attr attribute = (Attr) attributes.item(i);
+            if (XMLConstants.XMLNS_ATTRIBUTE_NS_URI.equals(attribute.getNamespaceURI())) {
+                // namespace declarations are repaired by the writer
+                continue;
+            }
+            if (attribute.getNamespaceURI() == null) {
+                writer.writeAttribute(attribute.getName(), attribute.getValue());
+            } else {
+                final String prefix = attribute.getPrefix() == null ? "" : attribute.getPrefix();
+                writer.writeAttribute(prefix, attribute.getNamespaceURI(), attribute.getLocalName(), attribute.getValue());
+            }
+        }
+
+        final NodeList children = element.getChildNodes();
+        for (int i = 0; i < children.getLength(); i++) {
+            final Node child = children.item(i);
+            if (isElement(child)) {
+                write(writer, (Element) child);
+            } else if (child.getNodeType() == Node.CDATA_SECTION_NODE) {
+                writer.writeCData(((CharacterData) child).getData());
+            } else if (child.getNodeType() == Node.TEXT_NODE) {
+                writer.writeCharacters(((CharacterData) child).getData());
+            }
+        }
+
+        writer.writeEndElement();
+    }
+
     public static Document parseDocument(InputStream stream)  {
         try {
             DocumentBuilder docBuilder = BUILDER_FACTORY.newDocumentBuilder();
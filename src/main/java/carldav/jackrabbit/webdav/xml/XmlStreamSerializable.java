@@ -0,0 +1,21 @@
+package carldav.jackrabbit.webdav.xml;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+/**
+ * Implemented by objects that can write their xml representation directly to a {@link XMLStreamWriter}
+ * without building a DOM first.
+ *
+ * @author Kamill Sokol
+ */
+public interface XmlStreamSerializable {
+
+    /**
+     * Writes the xml representation of the implementing object. The writer is expected to repair
+     * namespaces, i.e. to declare the namespace of each written element or attribute if required.
+     *
+     * @param writer the writer to write to
+     */
+    void writeTo(XMLStreamWriter writer) throws XMLStreamException;
+}
@@ -0,0 +1,21 @@
+package carldav.repository;
+
+import java.util.Date;
+
+/**
+ * Projection of the {@link carldav.entity.CollectionItem} attributes needed to render DAV metadata.
+ *
+ * @author Kamill Sokol
+ */
+public interface CollectionMetadata {
+
+    Long getId();
+
+    String getName();
+
+    String getDisplayName();
+
+    Date getModifiedDate();
+
+    Long getSyncToken();
+}
@@ -1,9 +1,11 @@
 package carldav.repository;
 
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 import carldav.entity.CollectionItem;
 
+import java.util.Date;
 import java.util.List;
 
 /**
@@ -27,4 +29,27 @@ public interface CollectionRepository extends CrudRepository<CollectionItem, Lon
     List<CollectionItem> findByCurrentUser();
 
     List<CollectionItem> findByParentId(Long id);
+
+    @Query("select c.id as id, c.name as name, c.displayName as displayName, c.modifiedDate as modifiedDate, c.syncToken as syncToken " +
+           "from CollectionItem c where c.parent.id = ?1")
+    List<CollectionMetadata> findMetadataByParentId(Long id);
+
+    /**
+     * Increments the change counter of the given collection in the database by the given number of changes. The
+     * row stays locked until the surrounding transaction completes, hence concurrent writers can't hand out the
+     * same value twice.
+     */
+    @Modifying
+    @Query("update CollectionItem c set c.syncToken = c.syncToken + ?2, c.modifiedDate = ?3 where c.id = ?1")
+    int incrementSyncToken(Long id, long count, Date modifiedDate);
+
+    @Query("select c.syncToken from CollectionItem c where c.id = ?1")
+    Long findSyncTokenById(Long id);
+
+    /**
+     * Raises the {@link CollectionItem#getPrunedSyncToken() pruned sync token} of the given collection, never lowers it.
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("update CollectionItem c set c.prunedSyncToken = ?2 where c.id = ?1 and c.prunedSyncToken < ?2")
+    int updatePrunedSyncToken(Long id, Long syncToken);
 }
@@ -0,0 +1,26 @@
+package carldav.repository;
+
+import java.util.Date;
+
+/**
+ * Projection of a materialized {@link carldav.entity.ItemInstance} joined with the indexing state of its
+ * {@link carldav.entity.Item}. Items without instances yield a single row with {@code null} instance attributes.
+ *
+ * @author Kamill Sokol
+ */
+public interface InstanceMetadata {
+
+    Long getItemId();
+
+    Date getInstanceHorizon();
+
+    Date getStartDate();
+
+    Date getEndDate();
+
+    Date getInstanceStart();
+
+    Date getInstanceEnd();
+
+    Boolean getFloating();
+}
@@ -0,0 +1,26 @@
+package carldav.repository;
+
+import carldav.entity.ItemContent;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+public interface ItemContentRepository extends CrudRepository<ItemContent, Long>, ItemContentRepositoryCustom {
+
+    ItemContent findByHash(String hash);
+
+    List<ItemContent> findByHashIn(Collection<String> hashes);
+
+    /**
+     * Removes payloads no longer referenced by any item. Payloads stored after the given threshold are kept, their
+     * item might belong to a transaction that has not been committed yet.
+     */
+    @Modifying
+    @Query("delete from ItemContent c where (c.modifyDate is null or c.modifyDate < ?1) " +
+            "and c.id not in (select i.content.id from Item i where i.content is not null)")
+    int deleteOrphans(Date threshold);
+}
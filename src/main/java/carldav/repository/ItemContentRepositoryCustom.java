@@ -0,0 +1,19 @@
+package carldav.repository;
+
+import carldav.entity.ItemContent;
+
+/**
+ * @author Kamill Sokol
+ */
+public interface ItemContentRepositoryCustom {
+
+    /**
+     * Stores the given payload unless a payload with the same hash exists. Uses a single insert-if-absent
+     * statement, hence a payload concurrently stored by another transaction does not violate the unique hash and
+     * fail the surrounding transaction but is returned instead.
+     *
+     * @param content the payload to store, left unmanaged
+     * @return the managed payload with the hash of the given one
+     */
+    ItemContent saveIfAbsent(ItemContent content);
+}
@@ -0,0 +1,34 @@
+package carldav.repository;
+
+import carldav.entity.ItemContent;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.TemporalType;
+
+/**
+ * @author Kamill Sokol
+ */
+class ItemContentRepositoryImpl implements ItemContentRepositoryCustom {
+
+    private static final String INSERT_IF_ABSENT = "merge into item_content c " +
+            "using (values (cast(?1 as varchar(64)), cast(?2 as blob), cast(?3 as timestamp))) as v (hash, data, modifydate) " +
+            "on c.hash = v.hash " +
+            "when not matched then insert (hash, data, modifydate) values (v.hash, v.data, v.modifydate)";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public ItemContent saveIfAbsent(final ItemContent content) {
+        entityManager.createNativeQuery(INSERT_IF_ABSENT)
+                .setParameter(1, content.getHash())
+                .setParameter(2, content.getData())
+                .setParameter(3, content.getModifyDate(), TemporalType.TIMESTAMP)
+                .executeUpdate();
+
+        return entityManager.createQuery("select c from ItemContent c where c.hash = ?1", ItemContent.class)
+                .setParameter(1, content.getHash())
+                .getSingleResult();
+    }
+}
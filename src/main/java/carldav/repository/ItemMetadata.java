@@ -0,0 +1,26 @@
+package carldav.repository;
+
+import java.util.Date;
+
+/**
+ * Projection of the {@link carldav.entity.Item} attributes needed to render DAV metadata
+ * without loading the payload.
+ *
+ * @author Kamill Sokol
+ */
+public interface ItemMetadata {
+
+    Long getId();
+
+    String getName();
+
+    String getDisplayName();
+
+    Date getModifiedDate();
+
+    String getEtag();
+
+    String getMimetype();
+
+    Long getContentLength();
+}
@@ -16,19 +16,48 @@
 package carldav.repository;
 
 import carldav.entity.Item;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 
+import java.util.Collection;
+import java.util.Date;
 import java.util.List;
 
-public interface ItemRepository extends CrudRepository<Item, Long>, JpaSpecificationExecutor {
+public interface ItemRepository extends CrudRepository<Item, Long>, JpaSpecificationExecutor, ItemRepositoryCustom {
 
     List<Item> findByCollectionIdAndType(Long id, Item.Type type);
 
     List<Item> findByCollectionId(Long id);
 
+    @Query("select i.id as id, i.name as name, i.displayName as displayName, i.modifiedDate as modifiedDate, i.etag as etag, " +
+           "i.mimetype as mimetype, i.contentLength as contentLength from Item i where i.collection.id = ?1")
+    List<ItemMetadata> findMetadataByCollectionId(Long id);
+
+    @Query("select i.id as id, i.name as name, i.displayName as displayName, i.modifiedDate as modifiedDate, i.etag as etag, " +
+           "i.mimetype as mimetype, i.contentLength as contentLength from Item i where i.collection.id = ?1 and i.name > ?2 order by i.name")
+    List<ItemMetadata> findMetadataByCollectionIdAndNameGreaterThan(Long id, String name, Pageable pageable);
+
+    @Query("select i.id as itemId, i.instanceHorizon as instanceHorizon, i.startDate as startDate, i.endDate as endDate, " +
+           "n.startDate as instanceStart, n.endDate as instanceEnd, n.floating as floating " +
+           "from Item i left join i.instances n where i.collection.id = ?1")
+    List<InstanceMetadata> findInstanceMetadataByCollectionId(Long id);
+
+    List<Item> findByCollectionIdAndNameIn(Long id, Collection<String> names);
+
+    @Query("select i.name from Item i where i.collection.id = ?1")
+    List<String> findNamesByCollectionId(Long id);
+
+    @Query("select i.uid from Item i where i.collection.id = ?1 and i.uid is not null")
+    List<String> findUidsByCollectionId(Long id);
+
+    List<Item> findByCollectionIdAndSyncTokenGreaterThanOrderBySyncToken(Long id, Long syncToken, Pageable pageable);
+
     @Query("select i from Item i where i.collection.name = ?1 and i.name = ?2 and i.collection.owner.email = ?#{ principal.username }")
     Item findByCurrentOwnerEmailAndCollectionNameAndName(String collectionName, String name);
 
+    @Query("select i from Item i where i.instanceHorizon < ?1 and i.id > ?2 order by i.id")
+    List<Item> findByInstanceHorizonBefore(Date date, Long lastId, Pageable pageable);
+
 }
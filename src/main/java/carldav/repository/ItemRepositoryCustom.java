@@ -0,0 +1,34 @@
+package carldav.repository;
+
+import carldav.entity.Item;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.stream.Stream;
+
+/**
+ * @author Kamill Sokol
+ */
+public interface ItemRepositoryCustom {
+
+    /**
+     * Streams all items matching the given specification ordered by name. Items are read from a database cursor
+     * and detached from the persistence context as soon as the next item is requested, hence only the current item
+     * is held in memory. The stream must be consumed within the surrounding transaction and closed afterwards.
+     *
+     * @param specification the specification to match
+     * @param fetchSize number of rows fetched from the database at once
+     */
+    Stream<Item> streamAll(Specification<Item> specification, int fetchSize);
+
+    /**
+     * Writes all pending changes to the database and detaches all entities from the persistence context. Used by
+     * bulk writes to keep the persistence context from growing with every written item.
+     */
+    void flushAndClear();
+
+    /**
+     * Detaches the given item and its payload from the persistence context, does nothing if the item is
+     * {@code null}. Used by reads that load items one by one to keep the persistence context from growing.
+     */
+    void detach(Item item);
+}
@@ -0,0 +1,81 @@
+package carldav.repository;
+
+import carldav.entity.Item;
+import org.hibernate.Query;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.springframework.data.jpa.domain.Specification;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * @author Kamill Sokol
+ */
+class ItemRepositoryImpl implements ItemRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Stream<Item> streamAll(final Specification<Item> specification, final int fetchSize) {
+        final CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        final CriteriaQuery<Item> query = cb.createQuery(Item.class);
+        final Root<Item> root = query.from(Item.class);
+        final Predicate predicate = specification.toPredicate(root, query, cb);
+
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.orderBy(cb.asc(root.get("name")));
+
+        final ScrollableResults results = entityManager.createQuery(query)
+                .unwrap(Query.class)
+                .setFetchSize(fetchSize)
+                .setReadOnly(true)
+                .scroll(ScrollMode.FORWARD_ONLY);
+
+        final Spliterator<Item> spliterator = new Spliterators.AbstractSpliterator<Item>(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+            private Item current;
+
+            @Override
+            public boolean tryAdvance(final Consumer<? super Item> action) {
+                detach(current);
+                current = results.next() ? (Item) results.get(0) : null;
+                if (current == null) {
+                    return false;
+                }
+                action.accept(current);
+                return true;
+            }
+        };
+
+        return StreamSupport.stream(spliterator, false).onClose(results::close);
+    }
+
+    @Override
+    public void flushAndClear() {
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Override
+    public void detach(final Item item) {
+        if (item == null) {
+            return;
+        }
+        if (item.getContent() != null) {
+            entityManager.detach(item.getContent());
+        }
+        entityManager.detach(item);
+    }
+}
@@ -0,0 +1,29 @@
+package carldav.repository;
+
+import carldav.entity.ItemTombstone;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * @author Kamill Sokol
+ */
+public interface ItemTombstoneRepository extends CrudRepository<ItemTombstone, Long> {
+
+    List<ItemTombstone> findByCollectionIdAndSyncTokenGreaterThanOrderBySyncToken(Long id, Long syncToken, Pageable pageable);
+
+    /**
+     * @return pairs of collection id and the highest sync token of its tombstones recorded before the given date
+     */
+    @Query("select t.collection.id, max(t.syncToken) from ItemTombstone t " +
+           "where t.removedDate is null or t.removedDate < ?1 group by t.collection.id")
+    List<Object[]> findMaxSyncTokenByCollectionRemovedBefore(Date date);
+
+    @Modifying
+    @Query("delete from ItemTombstone t where t.removedDate is null or t.removedDate < ?1")
+    int deleteRemovedBefore(Date date);
+}
@@ -1,16 +1,22 @@
 package carldav.repository.specification;
 
 import carldav.entity.Item;
+import carldav.entity.ItemInstance;
+import carldav.entity.ItemTrigram;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.jpa.domain.Specifications;
 
+import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.Expression;
 import javax.persistence.criteria.Path;
 import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Subquery;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static java.util.Locale.ENGLISH;
 
@@ -52,6 +58,27 @@ public final class ItemSpecs {
         };
     }
 
+    /**
+     * Narrows the candidates of a substring match on an indexed text property (see {@link ItemTrigram#PROPERTIES})
+     * to items containing every trigram of the given value. The result is a superset of the matching items and must
+     * be verified. Items that have not been indexed yet are always candidates.
+     *
+     * @param trigrams trigrams of the value, see {@link ItemTrigram#trigrams(String)}, must not be empty
+     */
+    public static Specification<Item> trigrams(String property, Set<String> trigrams) {
+        return (root, query, cb) -> {
+            final Subquery<Long> subquery = query.subquery(Long.class);
+            final Root<ItemTrigram> trigram = subquery.from(ItemTrigram.class);
+            final Path<Long> itemId = trigram.get("item").get("id");
+            subquery.select(itemId)
+                    .where(cb.equal(trigram.get("property"), property), trigram.get("trigram").in(trigrams))
+                    .groupBy(itemId)
+                    .having(cb.equal(cb.countDistinct(trigram.get("trigram")), (long) trigrams.size()));
+
+            return cb.or(root.get("id").in(subquery), cb.isNull(root.get("textIndexed")));
+        };
+    }
+
     public static Specification<Item> parent(Long id) {
         return (root, query, cb) -> {
             final Path<Long> collectionId = root.get("collection").get("id");
@@ -59,6 +86,22 @@ public final class ItemSpecs {
         };
     }
 
+    /**
+     * @param ids item ids, each one is bound as a separate parameter hence callers must bound their number
+     */
+    public static Specification<Item> ids(long[] ids) {
+        return (root, query, cb) -> {
+            if (ids.length == 0) {
+                return cb.disjunction();
+            }
+            final List<Long> values = new ArrayList<>(ids.length);
+            for (final long id : ids) {
+                values.add(id);
+            }
+            return root.get("id").in(values);
+        };
+    }
+
     public static Specification<Item> stamp(Item.Type type, Boolean recurring, Date start, Date end) {
         return (root, query, cb) -> {
             List<Predicate> predicates = new ArrayList<>(3);
@@ -93,4 +136,37 @@ public final class ItemSpecs {
             return predicates.stream().reduce((left, right) -> cb.and(left, right)).orElse(null);
         };
     }
+
+    /**
+     * Matches items with at least one materialized occurrence overlapping the given time range. Floating
+     * occurrences are compared against {@code floatingStart} and {@code floatingEnd}. Items whose occurrences
+     * are only materialized up to a horizon before {@code end} match as long as the series overlaps the range. Such
+     * items may have no occurrence within the range at all and have to be verified by the caller.
+     */
+    public static Specification<Item> instance(Date start, Date end, Date floatingStart, Date floatingEnd) {
+        return (root, query, cb) -> {
+            final Subquery<Long> subquery = query.subquery(Long.class);
+            final Root<ItemInstance> instance = subquery.from(ItemInstance.class);
+            subquery.select(instance.get("id"));
+
+            final Predicate fixed = cb.and(cb.isFalse(instance.get("floating")), overlaps(cb, instance, start, end));
+            final Predicate floating = cb.and(cb.isTrue(instance.get("floating")), overlaps(cb, instance, floatingStart, floatingEnd));
+            subquery.where(cb.equal(instance.get("item"), root), cb.or(fixed, floating));
+
+            final Predicate beyondHorizon = cb.and(
+                    cb.lessThan(root.get("instanceHorizon"), end),
+                    cb.lessThan(root.get("startDate"), end),
+                    cb.greaterThan(root.get("endDate"), start));
+            return cb.or(cb.exists(subquery), beyondHorizon);
+        };
+    }
+
+    private static Predicate overlaps(CriteriaBuilder cb, Root<ItemInstance> instance, Date start, Date end) {
+        final Path<Date> startDate = instance.get("startDate");
+        final Path<Date> endDate = instance.get("endDate");
+
+        // edge case where instance start==end
+        final Predicate pointInTime = cb.and(cb.equal(startDate, endDate), cb.greaterThanOrEqualTo(startDate, start));
+        return cb.and(cb.lessThan(startDate, end), cb.or(cb.greaterThan(endDate, start), pointInTime));
+    }
 }
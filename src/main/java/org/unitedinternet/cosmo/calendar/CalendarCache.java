@@ -0,0 +1,197 @@
+package org.unitedinternet.cosmo.calendar;
+
+import carldav.entity.Item;
+import net.fortuna.ical4j.model.Calendar;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.util.Assert;
+import org.unitedinternet.cosmo.model.hibernate.EntityConverter;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Size-bounded least recently used cache of parsed calendars keyed by item id and entity tag, hence a modified item
+ * never hits a stale entry. Entries are weighted by the length of their payload and evicted once the total weight
+ * exceeds {@code maxWeight}.
+ * <p>
+ * Cached calendars are shared between threads and must be treated as immutable by callers. Their timezones are
+ * resolved through the {@link TimeZoneCache}.
+ *
+ * @author Kamill Sokol
+ */
+@ManagedResource(objectName = "carldav:type=CalendarCache", description = "Parsed calendar cache")
+public class CalendarCache {
+
+    private static final EntityConverter converter = new EntityConverter();
+
+    private final Map<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final long maxWeight;
+    private final TimeZoneCache timeZoneCache;
+    private long weight;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public CalendarCache(final long maxWeight) {
+        this(maxWeight, new TimeZoneCache(0));
+    }
+
+    public CalendarCache(final long maxWeight, final TimeZoneCache timeZoneCache) {
+        Assert.isTrue(maxWeight >= 0, "maxWeight must not be negative");
+        Assert.notNull(timeZoneCache, "timeZoneCache is null");
+        this.maxWeight = maxWeight;
+        this.timeZoneCache = timeZoneCache;
+    }
+
+    /**
+     * Returns the parsed calendar of the given item. Items which have not been persisted yet are parsed
+     * but not cached.
+     *
+     * @param item the calendar item
+     * @return the parsed calendar or {@code null} if the item has no payload
+     */
+    public Calendar getCalendar(final Item item) {
+        // the payload is loaded lazily, a hit must not touch it
+        final String key = versionOf(item);
+        if (key != null) {
+            synchronized (entries) {
+                final Entry entry = entries.get(key);
+                if (entry != null) {
+                    hits.incrementAndGet();
+                    return entry.calendar;
+                }
+            }
+        }
+
+        final String payload = item.getCalendar();
+        if (payload == null) {
+            return null;
+        }
+        if (key == null) {
+            return converter.convertContent(item, timeZoneCache.createRegistry());
+        }
+
+        misses.incrementAndGet();
+        final Calendar calendar = converter.convertContent(item, timeZoneCache.createRegistry());
+        put(key, new Entry(calendar, payload.length()));
+        return calendar;
+    }
+
+    /**
+     * Returns the parsed calendar of the given item if it is cached. Never touches the payload of the item.
+     *
+     * @param item the calendar item
+     * @return the cached calendar or {@code null} if there is none
+     */
+    public Calendar getIfPresent(final Item item) {
+        final String key = versionOf(item);
+        if (key == null) {
+            return null;
+        }
+        synchronized (entries) {
+            final Entry entry = entries.get(key);
+            if (entry == null) {
+                return null;
+            }
+            hits.incrementAndGet();
+            return entry.calendar;
+        }
+    }
+
+    /**
+     * Removes all entries.
+     */
+    @ManagedOperation
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+            weight = 0;
+        }
+    }
+
+    @ManagedAttribute
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    @ManagedAttribute
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    @ManagedAttribute
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+
+    @ManagedAttribute
+    public int getSize() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    @ManagedAttribute
+    public long getWeight() {
+        synchronized (entries) {
+            return weight;
+        }
+    }
+
+    @ManagedAttribute
+    public long getMaxWeight() {
+        return maxWeight;
+    }
+
+    private void put(final String key, final Entry entry) {
+        if (entry.weight > maxWeight) {
+            return;
+        }
+
+        synchronized (entries) {
+            final Entry previous = entries.put(key, entry);
+            if (previous != null) {
+                weight -= previous.weight;
+            }
+            weight += entry.weight;
+
+            for (final Iterator<Entry> it = entries.values().iterator(); weight > maxWeight && it.hasNext();) {
+                weight -= it.next().weight;
+                it.remove();
+                evictions.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * @param item the calendar item
+     * @return key identifying the item and its current payload or {@code null} if the item has not been persisted yet
+     */
+    public static String versionOf(final Item item) {
+        if (item.getId() == null) {
+            return null;
+        }
+        if (item.getEtag() != null) {
+            return item.getId() + "-" + item.getEtag();
+        }
+        if (item.getModifiedDate() != null) {
+            return item.getId() + "-" + item.getModifiedDate().getTime();
+        }
+        return null;
+    }
+
+    private static final class Entry {
+        private final Calendar calendar;
+        private final long weight;
+
+        private Entry(final Calendar calendar, final long weight) {
+            this.calendar = calendar;
+            this.weight = weight;
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package org.unitedinternet.cosmo.calendar;
+
+import net.fortuna.ical4j.model.Component;
+import org.apache.commons.codec.digest.DigestUtils;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.Writer;
+import java.util.HashMap;
+import java.util.Map;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.unitedinternet.cosmo.calendar.ContentLineReader.CRLF;
+
+/**
+ * Writes any number of calendar objects as a single VCALENDAR object, e.g. to export a whole calendar collection.
+ * <p>
+ * Components are copied line by line without parsing them and written as soon as they have been read, hence only
+ * a single component is held in memory at a time. A VTIMEZONE component is written once per TZID, later
+ * definitions of an already written TZID are dropped. The properties of the merged calendar objects are replaced
+ * by those of the merged calendar.
+ *
+ * @author Kamill Sokol
+ */
+public class CalendarMerger {
+
+    private static final String VCALENDAR = "VCALENDAR";
+
+    private final Writer writer;
+    private final Map<String, String> timezones = new HashMap<>();
+    private int timezoneConflicts;
+
+    /**
+     * Writes the beginning of the merged calendar.
+     *
+     * @param writer the writer to write to
+     * @param productId value of the PRODID property of the merged calendar
+     */
+    public CalendarMerger(Writer writer, String productId) throws IOException {
+        this.writer = writer;
+        writer.write("BEGIN:" + VCALENDAR + CRLF);
+        writer.write("VERSION:2.0" + CRLF);
+        writer.write("PRODID:" + productId + CRLF);
+        writer.write("CALSCALE:GREGORIAN" + CRLF);
+    }
+
+    /**
+     * Writes the components of the given calendar objects.
+     *
+     * @param calendar iCalendar text holding one or more VCALENDAR objects
+     */
+    public void add(String calendar) throws IOException {
+        if (calendar == null) {
+            return;
+        }
+
+        final ContentLineReader reader = new ContentLineReader(new StringReader(calendar));
+        final StringBuilder component = new StringBuilder();
+        String name = null;
+        String tzid = null;
+        int depth = 0;
+
+        while (reader.next()) {
+            final String begin = reader.begin();
+            final String end = reader.end();
+
+            if (depth == 0) {
+                if (VCALENDAR.equals(begin)) {
+                    depth = 1;
+                }
+                continue;
+            }
+            if (depth == 1) {
+                if (VCALENDAR.equals(end)) {
+                    depth = 0;
+                } else if (begin != null) {
+                    name = begin;
+                    tzid = null;
+                    component.setLength(0);
+                    component.append(reader.getRaw());
+                    depth = 2;
+                }
+                continue;
+            }
+
+            component.append(reader.getRaw());
+            if (begin != null) {
+                depth++;
+            } else if (end != null) {
+                if (--depth == 1) {
+                    writeComponent(name, tzid, component);
+                }
+            } else if (depth == 2 && tzid == null && "TZID".equals(reader.propertyName())) {
+                tzid = reader.value();
+            }
+        }
+    }
+
+    /**
+     * Writes the end of the merged calendar and flushes the writer.
+     */
+    public void finish() throws IOException {
+        writer.write("END:" + VCALENDAR + CRLF);
+        writer.flush();
+    }
+
+    /**
+     * @return number of dropped VTIMEZONE components whose definition differed from the written one of their TZID
+     */
+    public int getTimezoneConflicts() {
+        return timezoneConflicts;
+    }
+
+    private void writeComponent(String name, String tzid, StringBuilder component) throws IOException {
+        if (Component.VTIMEZONE.equals(name) && tzid != null) {
+            final String hash = DigestUtils.sha256Hex(component.toString().getBytes(UTF_8));
+            final String written = timezones.putIfAbsent(tzid, hash);
+            if (written != null) {
+                if (!written.equals(hash)) {
+                    timezoneConflicts++;
+                }
+                return;
+            }
+        }
+        writer.append(component);
+    }
+}
@@ -0,0 +1,245 @@
+package org.unitedinternet.cosmo.calendar;
+
+import net.fortuna.ical4j.data.ParserException;
+import net.fortuna.ical4j.model.Component;
+import org.springframework.util.Assert;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.unitedinternet.cosmo.calendar.ContentLineReader.CRLF;
+
+/**
+ * Splits an iCalendar stream holding any number of calendar objects into one calendar object per UID, as stored by
+ * a calendar collection. A recurring component and all of its overrides (<code>RECURRENCE-ID</code>) end up in the
+ * same calendar object, together with the VTIMEZONE components referenced by them.
+ * <p>
+ * The stream is read line by line while calendar objects are handed out by {@link #next()}, components are kept as
+ * unparsed text. A calendar object is handed out once components of {@value #PENDING_UIDS} other UIDs have been
+ * read after its first component, or at the end of the stream, hence memory use doesn't depend on the size of the
+ * stream. Overrides following their master at a greater distance are handed out as a calendar object of their own,
+ * as are components referring to a VTIMEZONE that follows them at such a distance.
+ *
+ * @author Kamill Sokol
+ */
+public class CalendarSplitter {
+
+    static final int PENDING_UIDS = 1000;
+
+    private static final String VCALENDAR = "VCALENDAR";
+    private static final Set<String> SPLIT_COMPONENTS =
+            Collections.unmodifiableSet(new LinkedHashSet<>(Arrays.asList(Component.VEVENT, Component.VTODO, Component.VJOURNAL)));
+    private static final Pattern TZID_PARAMETER = Pattern.compile(";TZID=(\"[^\"]*\"|[^;:]*)", Pattern.CASE_INSENSITIVE);
+
+    private final Map<String, String> timezones = new HashMap<>();
+    private final Map<String, Entry> pending = new LinkedHashMap<>();
+    private final int pendingUids;
+    private int skipped;
+
+    private final ContentLineReader reader;
+    // properties of the VCALENDAR object currently read, null in between objects
+    private List<String> properties;
+    private boolean eof;
+    private Entry current;
+
+    CalendarSplitter(Reader reader, int pendingUids) {
+        this.reader = new ContentLineReader(reader);
+        this.pendingUids = pendingUids;
+    }
+
+    /**
+     * Nothing is read until the first call of {@link #next()}.
+     *
+     * @param reader the iCalendar stream to split
+     * @return the splitter of the given stream
+     */
+    public static CalendarSplitter split(Reader reader) {
+        return new CalendarSplitter(reader, PENDING_UIDS);
+    }
+
+    /**
+     * Reads ahead until the next calendar object is complete.
+     *
+     * @return true if there is another calendar object
+     * @throws ParserException if the stream is not a sequence of well formed VCALENDAR objects
+     */
+    public boolean next() throws IOException, ParserException {
+        while (pending.size() <= pendingUids && !eof) {
+            eof = !read();
+        }
+
+        final Iterator<Entry> it = pending.values().iterator();
+        if (!it.hasNext()) {
+            current = null;
+            return false;
+        }
+        current = it.next();
+        it.remove();
+        return true;
+    }
+
+    /**
+     * @return UID of the current calendar object
+     */
+    public String getUid() {
+        return current().uid;
+    }
+
+    /**
+     * @return name of the first component of the current calendar object
+     */
+    public String getComponentName() {
+        return current().name;
+    }
+
+    /**
+     * @return number of components read so far that have been dropped because they have no UID or are of an
+     * unsupported type
+     */
+    public int getSkippedCount() {
+        return skipped;
+    }
+
+    /**
+     * Assembles the current calendar object.
+     *
+     * @return iCalendar text of the calendar object
+     */
+    public String getCalendar() {
+        final Entry entry = current();
+        final StringBuilder calendar = new StringBuilder(entry.components.length() + 256);
+
+        calendar.append("BEGIN:").append(VCALENDAR).append(CRLF);
+        for (final String property : entry.properties) {
+            calendar.append(property).append(CRLF);
+        }
+        for (final String tzid : entry.tzids) {
+            final String timezone = timezones.get(tzid);
+            if (timezone != null) {
+                calendar.append(timezone);
+            }
+        }
+        calendar.append(entry.components);
+        calendar.append("END:").append(VCALENDAR).append(CRLF);
+        return calendar.toString();
+    }
+
+    private Entry current() {
+        Assert.state(current != null, "no current calendar object");
+        return current;
+    }
+
+    /**
+     * Reads the next component.
+     *
+     * @return false at the end of the stream
+     */
+    private boolean read() throws IOException, ParserException {
+        while (reader.next()) {
+            if (properties == null) {
+                if (!VCALENDAR.equals(reader.begin())) {
+                    throw new ParserException("Expected BEGIN:" + VCALENDAR, reader.getLineNumber());
+                }
+                properties = new ArrayList<>();
+                continue;
+            }
+
+            if (VCALENDAR.equals(reader.end())) {
+                properties = null;
+                continue;
+            }
+
+            final String name = reader.begin();
+            if (name == null) {
+                // a calendar object must not contain a METHOD property, see DavInputContext
+                if (!"METHOD".equals(reader.propertyName())) {
+                    properties.add(reader.getLine());
+                }
+                continue;
+            }
+
+            final StringBuilder text = new StringBuilder().append(reader.getLine()).append(CRLF);
+            final Set<String> tzids = new LinkedHashSet<>();
+            final String id = readComponent(name, text, tzids);
+
+            if (Component.VTIMEZONE.equals(name) && id != null) {
+                timezones.putIfAbsent(id, text.toString());
+            } else if (SPLIT_COMPONENTS.contains(name) && id != null) {
+                final List<String> calendarProperties = properties;
+                final Entry entry = pending.computeIfAbsent(id, uid -> new Entry(uid, name, calendarProperties));
+                entry.components.append(text);
+                entry.tzids.addAll(tzids);
+            } else {
+                skipped++;
+            }
+            return true;
+        }
+
+        if (properties != null) {
+            throw new ParserException("Expected END:" + VCALENDAR, reader.getLineNumber());
+        }
+        return false;
+    }
+
+    /**
+     * Copies the component that has just begun to the given buffer.
+     *
+     * @return the UID of an event, to-do or journal respectively the TZID of a timezone, {@code null} if missing
+     */
+    private String readComponent(String name, StringBuilder text, Set<String> tzids) throws IOException, ParserException {
+        final String idProperty = Component.VTIMEZONE.equals(name) ? "TZID" : "UID";
+        String id = null;
+        int depth = 1;
+
+        while (reader.next()) {
+            text.append(reader.getLine()).append(CRLF);
+
+            if (reader.begin() != null) {
+                depth++;
+            } else if (reader.end() != null) {
+                if (--depth == 0) {
+                    if (!name.equals(reader.end())) {
+                        throw new ParserException("Expected END:" + name, reader.getLineNumber());
+                    }
+                    return id;
+                }
+            } else {
+                if (depth == 1 && id == null && idProperty.equals(reader.propertyName())) {
+                    id = reader.value().isEmpty() ? null : reader.value();
+                }
+                final Matcher matcher = TZID_PARAMETER.matcher(reader.nameAndParameters());
+                while (matcher.find()) {
+                    tzids.add(matcher.group(1).replace("\"", ""));
+                }
+            }
+        }
+
+        throw new ParserException("Expected END:" + name, reader.getLineNumber());
+    }
+
+    private static final class Entry {
+        private final String uid;
+        private final String name;
+        private final List<String> properties;
+        private final StringBuilder components = new StringBuilder();
+        private final Set<String> tzids = new LinkedHashSet<>();
+
+        private Entry(String uid, String name, List<String> properties) {
+            this.uid = uid;
+            this.name = name;
+            this.properties = properties;
+        }
+    }
+}
@@ -0,0 +1,549 @@
+package org.unitedinternet.cosmo.calendar;
+
+import carldav.entity.Item;
+import carldav.entity.ItemInstance;
+import carldav.repository.InstanceMetadata;
+import carldav.repository.ItemRepository;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.Assert;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process index of the materialized instances of calendar collections. The instances of a collection are loaded
+ * lazily on the first lookup and kept as start-sorted {@code long} arrays, hence a time range is answered by a
+ * binary search instead of a database round trip. Writes replace the intervals of the written item once the
+ * transaction has been committed, until then the index does not answer lookups on the written collections within
+ * that transaction. Collections are weighted by their number of instances and evicted least recently
+ * used first.
+ * <p>
+ * Lookups follow the rules of {@link carldav.repository.specification.ItemSpecs#instance}. A {@code maxWeight} of
+ * zero disables the index.
+ *
+ * @author Kamill Sokol
+ */
+@ManagedResource(objectName = "carldav:type=CollectionTimeIndex", description = "Calendar collection time index")
+public class CollectionTimeIndex {
+
+    private static final int STRIPES = 64;
+    private static final long[] NO_IDS = new long[0];
+
+    private final ItemRepository itemRepository;
+    private final long maxWeight;
+
+    private final Map<Long, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    // incremented by every write, prevents a lookup from installing a collection loaded before the write
+    private final long[] stamps = new long[STRIPES];
+    private long weight;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public CollectionTimeIndex(final ItemRepository itemRepository, final long maxWeight) {
+        Assert.notNull(itemRepository, "itemRepository is null");
+        Assert.isTrue(maxWeight >= 0, "maxWeight must not be negative");
+        this.itemRepository = itemRepository;
+        this.maxWeight = maxWeight;
+    }
+
+    @ManagedAttribute
+    public boolean isEnabled() {
+        return maxWeight > 0;
+    }
+
+    /**
+     * Finds the items of the given collection with at least one instance overlapping the given time range.
+     * Floating instances are compared against {@code floatingStart} and {@code floatingEnd}.
+     *
+     * @return ascending item ids or {@code null} if the collection has been written in the current transaction
+     */
+    public long[] findItemIds(final Long collectionId, final Date start, final Date end,
+                              final Date floatingStart, final Date floatingEnd) {
+        if (isWritten(collectionId)) {
+            return null;
+        }
+
+        final Entry entry;
+        Snapshot snapshot = null;
+        Map<Long, Intervals> items = null;
+        long version = 0;
+        synchronized (entries) {
+            entry = entries.get(collectionId);
+            if (entry != null) {
+                snapshot = entry.snapshot;
+                if (snapshot == null) {
+                    items = new HashMap<>(entry.items);
+                    version = entry.version;
+                }
+            }
+        }
+
+        if (entry == null) {
+            misses.incrementAndGet();
+            snapshot = load(collectionId);
+        } else {
+            hits.incrementAndGet();
+            if (snapshot == null) {
+                // sorting happens outside of the lock, lookups on other collections must not wait for it
+                snapshot = new Snapshot(items);
+                synchronized (entries) {
+                    if (entry.version == version) {
+                        entry.snapshot = snapshot;
+                    }
+                }
+            }
+        }
+        return snapshot.find(start.getTime(), end.getTime(), floatingStart.getTime(), floatingEnd.getTime());
+    }
+
+    /**
+     * Replaces the intervals of the given item after the current transaction has been committed.
+     */
+    public void update(final Item item) {
+        if (!isEnabled() || item.getCollection() == null) {
+            return;
+        }
+        final Long collectionId = item.getCollection().getId();
+        final Long itemId = item.getId();
+        final Intervals intervals = Intervals.of(item);
+        afterCommit(collectionId, () -> apply(collectionId, itemId, intervals));
+    }
+
+    /**
+     * Removes the intervals of the given item after the current transaction has been committed.
+     */
+    public void remove(final Item item) {
+        if (!isEnabled() || item.getCollection() == null) {
+            return;
+        }
+        final Long collectionId = item.getCollection().getId();
+        final Long itemId = item.getId();
+        afterCommit(collectionId, () -> apply(collectionId, itemId, null));
+    }
+
+    /**
+     * Drops the given collection after the current transaction has been committed.
+     */
+    public void evict(final Long collectionId) {
+        if (!isEnabled()) {
+            return;
+        }
+        afterCommit(collectionId, () -> {
+            synchronized (entries) {
+                stamps[stripe(collectionId)]++;
+                final Entry entry = entries.remove(collectionId);
+                if (entry != null) {
+                    weight -= entry.weight;
+                }
+            }
+        });
+    }
+
+    @ManagedOperation
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+            weight = 0;
+        }
+    }
+
+    @ManagedAttribute
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    @ManagedAttribute
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    @ManagedAttribute
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+
+    @ManagedAttribute
+    public int getSize() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    @ManagedAttribute
+    public long getWeight() {
+        synchronized (entries) {
+            return weight;
+        }
+    }
+
+    @ManagedAttribute
+    public long getMaxWeight() {
+        return maxWeight;
+    }
+
+    private Snapshot load(final Long collectionId) {
+        final long stamp;
+        synchronized (entries) {
+            stamp = stamps[stripe(collectionId)];
+        }
+
+        final Entry entry = new Entry();
+        final Map<Long, List<InstanceMetadata>> rowsByItem = new HashMap<>();
+        for (final InstanceMetadata row : itemRepository.findInstanceMetadataByCollectionId(collectionId)) {
+            rowsByItem.computeIfAbsent(row.getItemId(), id -> new ArrayList<>()).add(row);
+        }
+        rowsByItem.forEach((itemId, rows) -> entry.put(itemId, Intervals.of(rows)));
+        final Snapshot snapshot = new Snapshot(entry.items);
+        entry.snapshot = snapshot;
+
+        synchronized (entries) {
+            if (isEnabled() && stamps[stripe(collectionId)] == stamp && entry.weight <= maxWeight) {
+                final Entry previous = entries.put(collectionId, entry);
+                if (previous != null) {
+                    weight -= previous.weight;
+                }
+                weight += entry.weight;
+                evict();
+            }
+        }
+        return snapshot;
+    }
+
+    private void apply(final Long collectionId, final Long itemId, final Intervals intervals) {
+        synchronized (entries) {
+            stamps[stripe(collectionId)]++;
+            final Entry entry = entries.get(collectionId);
+            if (entry == null) {
+                return;
+            }
+            weight -= entry.weight;
+            entry.remove(itemId);
+            if (intervals != null) {
+                entry.put(itemId, intervals);
+            }
+            weight += entry.weight;
+            evict();
+        }
+    }
+
+    private void evict() {
+        for (final Iterator<Entry> it = entries.values().iterator(); weight > maxWeight && it.hasNext();) {
+            weight -= it.next().weight;
+            it.remove();
+            evictions.incrementAndGet();
+        }
+    }
+
+    private static int stripe(final Long collectionId) {
+        return (collectionId.hashCode() & Integer.MAX_VALUE) % STRIPES;
+    }
+
+    @SuppressWarnings("unchecked")
+    private boolean isWritten(final Long collectionId) {
+        final Set<Long> written = (Set<Long>) TransactionSynchronizationManager.getResource(this);
+        return written != null && written.contains(collectionId);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void afterCommit(final Long collectionId, final Runnable runnable) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            runnable.run();
+            return;
+        }
+
+        Set<Long> written = (Set<Long>) TransactionSynchronizationManager.getResource(this);
+        if (written == null) {
+            written = new HashSet<>();
+            TransactionSynchronizationManager.bindResource(this, written);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCompletion(final int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(CollectionTimeIndex.this);
+                }
+            });
+        }
+        written.add(collectionId);
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCommit() {
+                runnable.run();
+            }
+        });
+    }
+
+    /**
+     * Instances of a single item. Items materialized up to a horizon match any range they overlap beyond it.
+     */
+    private static final class Intervals {
+        private final long[] starts;
+        private final long[] ends;
+        private final boolean[] floating;
+        private final boolean beyondHorizon;
+        private final long horizon;
+        private final long startDate;
+        private final long endDate;
+
+        private Intervals(long[] starts, long[] ends, boolean[] floating, Date horizon, Date startDate, Date endDate) {
+            this.starts = starts;
+            this.ends = ends;
+            this.floating = floating;
+            this.beyondHorizon = horizon != null && startDate != null && endDate != null;
+            this.horizon = beyondHorizon ? horizon.getTime() : 0;
+            this.startDate = beyondHorizon ? startDate.getTime() : 0;
+            this.endDate = beyondHorizon ? endDate.getTime() : 0;
+        }
+
+        private static Intervals of(Item item) {
+            final List<ItemInstance> instances = new ArrayList<>();
+            for (final ItemInstance instance : item.getInstances()) {
+                if (instance.getFloating() != null) {
+                    instances.add(instance);
+                }
+            }
+
+            final long[] starts = new long[instances.size()];
+            final long[] ends = new long[instances.size()];
+            final boolean[] floating = new boolean[instances.size()];
+            for (int i = 0; i < starts.length; i++) {
+                starts[i] = instances.get(i).getStartDate().getTime();
+                ends[i] = instances.get(i).getEndDate().getTime();
+                floating[i] = instances.get(i).getFloating();
+            }
+            return new Intervals(starts, ends, floating, item.getInstanceHorizon(), item.getStartDate(), item.getEndDate());
+        }
+
+        private static Intervals of(List<InstanceMetadata> rows) {
+            final List<InstanceMetadata> instances = new ArrayList<>(rows.size());
+            for (final InstanceMetadata row : rows) {
+                if (row.getInstanceStart() != null && row.getFloating() != null) {
+                    instances.add(row);
+                }
+            }
+
+            final long[] starts = new long[instances.size()];
+            final long[] ends = new long[instances.size()];
+            final boolean[] floating = new boolean[instances.size()];
+            for (int i = 0; i < starts.length; i++) {
+                starts[i] = instances.get(i).getInstanceStart().getTime();
+                ends[i] = instances.get(i).getInstanceEnd().getTime();
+                floating[i] = instances.get(i).getFloating();
+            }
+            final InstanceMetadata first = rows.get(0);
+            return new Intervals(starts, ends, floating, first.getInstanceHorizon(), first.getStartDate(), first.getEndDate());
+        }
+
+        private long weight() {
+            return 1 + starts.length;
+        }
+    }
+
+    /**
+     * Instances of a collection. Guarded by the lock on {@code entries} once installed. The snapshot is rebuilt
+     * lazily by the next lookup after a write, {@code version} tells whether a snapshot built from a copy of
+     * {@code items} is still current.
+     */
+    private static final class Entry {
+        private final Map<Long, Intervals> items = new HashMap<>();
+        private long weight;
+        private long version;
+        private Snapshot snapshot;
+
+        private void put(Long itemId, Intervals intervals) {
+            items.put(itemId, intervals);
+            weight += intervals.weight();
+            version++;
+            snapshot = null;
+        }
+
+        private void remove(Long itemId) {
+            final Intervals previous = items.remove(itemId);
+            if (previous != null) {
+                weight -= previous.weight();
+                version++;
+                snapshot = null;
+            }
+        }
+    }
+
+    /**
+     * Immutable, start-sorted view of the instances of a collection.
+     */
+    private static final class Snapshot {
+        private final Timeline fixed;
+        private final Timeline floating;
+        private final long[] horizonItems;
+        private final long[] horizons;
+        private final long[] startDates;
+        private final long[] endDates;
+
+        private Snapshot(Map<Long, Intervals> items) {
+            int fixedCount = 0;
+            int floatingCount = 0;
+            int horizonCount = 0;
+            for (final Intervals intervals : items.values()) {
+                for (final boolean value : intervals.floating) {
+                    if (value) {
+                        floatingCount++;
+                    } else {
+                        fixedCount++;
+                    }
+                }
+                if (intervals.beyondHorizon) {
+                    horizonCount++;
+                }
+            }
+
+            final long[][] fixedRows = new long[fixedCount][];
+            final long[][] floatingRows = new long[floatingCount][];
+            horizonItems = new long[horizonCount];
+            horizons = new long[horizonCount];
+            startDates = new long[horizonCount];
+            endDates = new long[horizonCount];
+
+            fixedCount = 0;
+            floatingCount = 0;
+            horizonCount = 0;
+            for (final Map.Entry<Long, Intervals> item : items.entrySet()) {
+                final Intervals intervals = item.getValue();
+                for (int i = 0; i < intervals.starts.length; i++) {
+                    final long[] row = {intervals.starts[i], intervals.ends[i], item.getKey()};
+                    if (intervals.floating[i]) {
+                        floatingRows[floatingCount++] = row;
+                    } else {
+                        fixedRows[fixedCount++] = row;
+                    }
+                }
+                if (intervals.beyondHorizon) {
+                    horizonItems[horizonCount] = item.getKey();
+                    horizons[horizonCount] = intervals.horizon;
+                    startDates[horizonCount] = intervals.startDate;
+                    endDates[horizonCount++] = intervals.endDate;
+                }
+            }
+
+            fixed = new Timeline(fixedRows);
+            floating = new Timeline(floatingRows);
+        }
+
+        private long[] find(long start, long end, long floatingStart, long floatingEnd) {
+            final IdBuffer ids = new IdBuffer();
+            fixed.find(start, end, ids);
+            floating.find(floatingStart, floatingEnd, ids);
+            for (int i = 0; i < horizonItems.length; i++) {
+                if (horizons[i] < end && startDates[i] < end && endDates[i] > start) {
+                    ids.add(horizonItems[i]);
+                }
+            }
+            return ids.toSortedSet();
+        }
+    }
+
+    /**
+     * Instances sorted by start, augmented by an implicit tree holding the latest end of every subrange. A lookup
+     * descends only into subranges reaching into the range, hence a single long instance doesn't widen the search
+     * for all others.
+     */
+    private static final class Timeline {
+        private final long[] starts;
+        private final long[] ends;
+        private final long[] items;
+        // node k covers the children 2k and 2k + 1, leaves start at index leaves
+        private final long[] maxEnds;
+        private final int leaves;
+
+        private Timeline(long[][] rows) {
+            Arrays.sort(rows, (left, right) -> Long.compare(left[0], right[0]));
+            starts = new long[rows.length];
+            ends = new long[rows.length];
+            items = new long[rows.length];
+            for (int i = 0; i < rows.length; i++) {
+                starts[i] = rows[i][0];
+                ends[i] = rows[i][1];
+                items[i] = rows[i][2];
+            }
+
+            int size = 1;
+            while (size < rows.length) {
+                size <<= 1;
+            }
+            leaves = size;
+            maxEnds = new long[2 * leaves];
+            Arrays.fill(maxEnds, Long.MIN_VALUE);
+            System.arraycopy(ends, 0, maxEnds, leaves, ends.length);
+            for (int node = leaves - 1; node > 0; node--) {
+                maxEnds[node] = Math.max(maxEnds[2 * node], maxEnds[2 * node + 1]);
+            }
+        }
+
+        private void find(long start, long end, IdBuffer ids) {
+            // instances starting at or after end cannot reach into the range
+            int low = 0;
+            int high = starts.length;
+            while (low < high) {
+                final int mid = (low + high) >>> 1;
+                if (starts[mid] < end) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            find(1, 0, leaves, low, start, ids);
+        }
+
+        private void find(int node, int from, int to, int limit, long start, IdBuffer ids) {
+            // a point in time at the range start ends at start, hence subranges ending before start are skipped
+            if (from >= limit || maxEnds[node] < start) {
+                return;
+            }
+            if (node >= leaves) {
+                final int i = node - leaves;
+                if (ends[i] > start || (starts[i] == ends[i] && starts[i] >= start)) {
+                    ids.add(items[i]);
+                }
+                return;
+            }
+            final int mid = (from + to) >>> 1;
+            find(2 * node, from, mid, limit, start, ids);
+            find(2 * node + 1, mid, to, limit, start, ids);
+        }
+    }
+
+    private static final class IdBuffer {
+        private long[] ids = NO_IDS;
+        private int size;
+
+        private void add(long id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, Math.max(16, size * 2));
+            }
+            ids[size++] = id;
+        }
+
+        private long[] toSortedSet() {
+            Arrays.sort(ids, 0, size);
+            int distinct = 0;
+            for (int i = 0; i < size; i++) {
+                if (distinct == 0 || ids[distinct - 1] != ids[i]) {
+                    ids[distinct++] = ids[i];
+                }
+            }
+            return Arrays.copyOf(ids, distinct);
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package org.unitedinternet.cosmo.calendar;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Reads the content lines of an iCalendar stream (RFC 5545 section 3.1) without parsing them. Folded lines are
+ * unfolded, the raw text of the current content line is kept for callers copying lines unchanged. Empty lines are
+ * skipped.
+ *
+ * @author Kamill Sokol
+ */
+class ContentLineReader {
+
+    static final String CRLF = "\r\n";
+
+    private final BufferedReader reader;
+    private String pending;
+    private String line;
+    private final StringBuilder raw = new StringBuilder();
+    private int lineNumber;
+
+    ContentLineReader(Reader reader) {
+        this.reader = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader);
+    }
+
+    /**
+     * Advances to the next content line.
+     *
+     * @return false at the end of the stream
+     */
+    boolean next() throws IOException {
+        String first = pending != null ? pending : readLine();
+        pending = null;
+        while (first != null && first.isEmpty()) {
+            first = readLine();
+        }
+
+        raw.setLength(0);
+        if (first == null) {
+            line = null;
+            return false;
+        }
+
+        final StringBuilder unfolded = new StringBuilder(first);
+        raw.append(first).append(CRLF);
+        String next;
+        while ((next = readLine()) != null && !next.isEmpty() && (next.charAt(0) == ' ' || next.charAt(0) == '\t')) {
+            unfolded.append(next, 1, next.length());
+            raw.append(next).append(CRLF);
+        }
+        pending = next;
+        line = unfolded.toString();
+        return true;
+    }
+
+    /**
+     * @return the unfolded current content line
+     */
+    String getLine() {
+        return line;
+    }
+
+    /**
+     * @return the current content line as read including its folding, terminated by CRLF
+     */
+    String getRaw() {
+        return raw.toString();
+    }
+
+    /**
+     * @return number of the last physical line read
+     */
+    int getLineNumber() {
+        return lineNumber;
+    }
+
+    /**
+     * @return upper case name of the component begun by the current line, {@code null} if it doesn't begin one
+     */
+    String begin() {
+        return line.regionMatches(true, 0, "BEGIN:", 0, 6) ? line.substring(6).trim().toUpperCase() : null;
+    }
+
+    /**
+     * @return upper case name of the component ended by the current line, {@code null} if it doesn't end one
+     */
+    String end() {
+        return line.regionMatches(true, 0, "END:", 0, 4) ? line.substring(4).trim().toUpperCase() : null;
+    }
+
+    /**
+     * @return upper case property name of the current line
+     */
+    String propertyName() {
+        int end = 0;
+        while (end < line.length() && line.charAt(end) != ';' && line.charAt(end) != ':') {
+            end++;
+        }
+        return line.substring(0, end).toUpperCase();
+    }
+
+    /**
+     * @return name and parameters of the current line
+     */
+    String nameAndParameters() {
+        return line.substring(0, valueSeparator());
+    }
+
+    /**
+     * @return value of the current line
+     */
+    String value() {
+        final int separator = valueSeparator();
+        return separator < line.length() ? line.substring(separator + 1) : "";
+    }
+
+    private int valueSeparator() {
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            final char c = line.charAt(i);
+            if (c == '"') {
+                quoted = !quoted;
+            } else if (c == ':' && !quoted) {
+                return i;
+            }
+        }
+        return line.length();
+    }
+
+    private String readLine() throws IOException {
+        final String read = reader.readLine();
+        if (read != null) {
+            lineNumber++;
+        }
+        return read;
+    }
+}
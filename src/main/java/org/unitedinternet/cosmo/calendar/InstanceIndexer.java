@@ -0,0 +1,127 @@
+package org.unitedinternet.cosmo.calendar;
+
+import carldav.entity.Item;
+import carldav.entity.ItemInstance;
+import net.fortuna.ical4j.model.Calendar;
+import net.fortuna.ical4j.model.Component;
+import net.fortuna.ical4j.model.ComponentList;
+import net.fortuna.ical4j.model.Date;
+import net.fortuna.ical4j.model.DateTime;
+import net.fortuna.ical4j.model.Property;
+import org.springframework.util.Assert;
+
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Materializes the occurrences of a calendar {@link Item} into {@link ItemInstance} rows so that
+ * time-range queries can be answered by the database. Occurrences are expanded up to a moving
+ * horizon of {@code horizonDays} days from now. Items whose recurrence extends beyond the horizon
+ * remember it in {@link Item#getInstanceHorizon()} and need to be indexed again as time passes.
+ *
+ * @author Kamill Sokol
+ */
+public class InstanceIndexer {
+
+    private static final long ONE_DAY = TimeUnit.DAYS.toMillis(1);
+
+    private final RecurrenceExpander expander = new RecurrenceExpander();
+    private final int horizonDays;
+    private final CalendarCache calendarCache;
+
+    public InstanceIndexer(final int horizonDays, final CalendarCache calendarCache) {
+        Assert.isTrue(horizonDays > 0, "horizonDays must be greater than zero");
+        Assert.notNull(calendarCache, "calendarCache is null");
+        this.horizonDays = horizonDays;
+        this.calendarCache = calendarCache;
+    }
+
+    public int getHorizonDays() {
+        return horizonDays;
+    }
+
+    /**
+     * @return the point in time up to which occurrences are currently expanded
+     */
+    public java.util.Date getHorizon() {
+        return new java.util.Date(System.currentTimeMillis() + TimeUnit.DAYS.toMillis(horizonDays));
+    }
+
+    /**
+     * Replaces the materialized occurrences of the given item. Index attributes like start date and end date
+     * must have been calculated beforehand.
+     *
+     * @param item item to index
+     */
+    public void index(final Item item) {
+        index(item, null);
+    }
+
+    /**
+     * Replaces the materialized occurrences of the given item from its already parsed payload.
+     *
+     * @param item item to index
+     * @param parsed the parsed payload of the item, {@code null} to look it up in the {@link CalendarCache}
+     */
+    public void index(final Item item, final Calendar parsed) {
+        item.getInstances().clear();
+        item.setInstanceHorizon(null);
+
+        if (item.getType() != Item.Type.VEVENT || item.getStartDate() == null) {
+            return;
+        }
+
+        final Calendar calendar = parsed != null ? parsed : calendarCache.getCalendar(item);
+        if (calendar == null) {
+            return;
+        }
+
+        final java.util.Date horizon = getHorizon();
+        final Date rangeStart = new DateTime(item.getStartDate());
+        final Date rangeEnd;
+
+        if (item.getEndDate() == null || item.getEndDate().after(horizon)) {
+            rangeEnd = new DateTime(horizon);
+            item.setInstanceHorizon(horizon);
+        } else {
+            // expand one day beyond the last occurrence so point-in-time and all-day events are included
+            rangeEnd = new DateTime(item.getEndDate().getTime() + ONE_DAY);
+        }
+
+        for (final Object value : expand(calendar, rangeStart, rangeEnd).values()) {
+            final Instance instance = (Instance) value;
+            item.getInstances().add(new ItemInstance(
+                    item,
+                    new java.util.Date(instance.getStart().getTime()),
+                    new java.util.Date(instance.getEnd().getTime()),
+                    new java.util.Date(instance.getRid().getTime()),
+                    isFloating(instance.getStart())));
+        }
+    }
+
+    private InstanceList expand(final Calendar calendar, final Date rangeStart, final Date rangeEnd) {
+        final ComponentList events = calendar.getComponents(Component.VEVENT);
+
+        for (final Iterator<Component> it = events.iterator(); it.hasNext();) {
+            if (it.next().getProperty(Property.RECURRENCE_ID) == null) {
+                return expander.getOcurrences(calendar, rangeStart, rangeEnd, null);
+            }
+        }
+
+        // no master event, calendar consists of overridden occurrences only
+        final InstanceList instances = new InstanceList();
+        for (final Iterator<Component> it = events.iterator(); it.hasNext();) {
+            instances.addOverride(it.next(), rangeStart, rangeEnd);
+        }
+        return instances;
+    }
+
+    private static boolean isFloating(final Date date) {
+        // A floating date is a DateTime with no timezone, or a Date
+        if (date instanceof DateTime) {
+            final DateTime dateTime = (DateTime) date;
+            return dateTime.getTimeZone() == null && !dateTime.isUtc();
+        }
+        return true;
+    }
+}
@@ -0,0 +1,221 @@
+package org.unitedinternet.cosmo.calendar;
+
+import net.fortuna.ical4j.model.Component;
+import net.fortuna.ical4j.model.DateTime;
+import net.fortuna.ical4j.model.TimeZone;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.util.Assert;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Memoizes the expanded occurrences of recurring master components. Entries are keyed by calendar version (see
+ * {@link CalendarCache#versionOf(carldav.entity.Item)}), the position of the master within the calendar and the
+ * timezone used for floating times. An entry holds the start and end of every occurrence overlapping the expanded
+ * range as sorted {@code long} arrays and answers any range within the expanded one. Requests for a range outside
+ * of it replace the entry. The union of both ranges is expanded if they are close to each other, otherwise just the
+ * requested range, as the gap between two distant ranges of an unbounded rule might hold any number of occurrences.
+ * <p>
+ * An occurrence overlaps a range if it starts before the end of the range and ends after its start. Occurrences
+ * with zero duration overlap if they start at or after the start of the range. That is the same rule the
+ * materialized instances are queried with.
+ * <p>
+ * Entries are weighted by their number of occurrences and evicted least recently used first.
+ *
+ * @author Kamill Sokol
+ */
+@ManagedResource(objectName = "carldav:type=RecurrenceCache", description = "Expanded recurrence cache")
+public class RecurrenceCache {
+
+    private final Map<String, Expansion> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final long maxWeight;
+    private long weight;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public RecurrenceCache(final long maxWeight) {
+        Assert.isTrue(maxWeight >= 0, "maxWeight must not be negative");
+        this.maxWeight = maxWeight;
+    }
+
+    /**
+     * Determines whether an occurrence of the given master component overlaps the given range.
+     *
+     * @param version version of the calendar containing the master, {@code null} disables memoization
+     * @param ordinal position of the master within the calendar
+     * @param master recurring master component
+     * @param timezone timezone for floating times or {@code null}
+     * @param start start of the range
+     * @param end end of the range
+     * @return true if at least one occurrence overlaps the range
+     */
+    public boolean overlaps(final String version, final int ordinal, final Component master, final TimeZone timezone,
+                            final DateTime start, final DateTime end) {
+        if (version == null) {
+            return expand(master, timezone, start.getTime(), end.getTime()).overlaps(start.getTime(), end.getTime());
+        }
+
+        final String key = version + "#" + ordinal + "#" + (timezone == null ? "" : timezone.getID());
+        final Expansion cached;
+        synchronized (entries) {
+            cached = entries.get(key);
+        }
+
+        if (cached != null && cached.covers(start.getTime(), end.getTime())) {
+            hits.incrementAndGet();
+            return cached.overlaps(start.getTime(), end.getTime());
+        }
+
+        misses.incrementAndGet();
+        final boolean union = cached != null && cached.isCloseTo(start.getTime(), end.getTime());
+        final long rangeStart = union ? Math.min(cached.rangeStart, start.getTime()) : start.getTime();
+        final long rangeEnd = union ? Math.max(cached.rangeEnd, end.getTime()) : end.getTime();
+        final Expansion expansion = expand(master, timezone, rangeStart, rangeEnd);
+        put(key, expansion);
+        return expansion.overlaps(start.getTime(), end.getTime());
+    }
+
+    @ManagedOperation
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+            weight = 0;
+        }
+    }
+
+    @ManagedAttribute
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    @ManagedAttribute
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    @ManagedAttribute
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+
+    @ManagedAttribute
+    public int getSize() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    @ManagedAttribute
+    public long getWeight() {
+        synchronized (entries) {
+            return weight;
+        }
+    }
+
+    @ManagedAttribute
+    public long getMaxWeight() {
+        return maxWeight;
+    }
+
+    private static Expansion expand(final Component master, final TimeZone timezone, final long rangeStart, final long rangeEnd) {
+        final InstanceList instances = new InstanceList();
+        if (timezone != null) {
+            instances.setTimezone(timezone);
+        }
+        instances.addMaster(master, new DateTime(rangeStart), new DateTime(rangeEnd));
+
+        final long[][] occurrences = new long[instances.size()][];
+        int i = 0;
+        for (final Object value : instances.values()) {
+            final Instance instance = (Instance) value;
+            occurrences[i++] = new long[] {instance.getStart().getTime(), instance.getEnd().getTime()};
+        }
+        Arrays.sort(occurrences, (left, right) -> Long.compare(left[0], right[0]));
+
+        final long[] starts = new long[occurrences.length];
+        final long[] ends = new long[occurrences.length];
+        long maxDuration = 0;
+        for (i = 0; i < occurrences.length; i++) {
+            starts[i] = occurrences[i][0];
+            ends[i] = occurrences[i][1];
+            maxDuration = Math.max(maxDuration, ends[i] - starts[i]);
+        }
+        return new Expansion(rangeStart, rangeEnd, starts, ends, maxDuration);
+    }
+
+    private void put(final String key, final Expansion expansion) {
+        if (expansion.weight() > maxWeight) {
+            return;
+        }
+
+        synchronized (entries) {
+            final Expansion previous = entries.put(key, expansion);
+            if (previous != null) {
+                weight -= previous.weight();
+            }
+            weight += expansion.weight();
+
+            for (final Iterator<Expansion> it = entries.values().iterator(); weight > maxWeight && it.hasNext();) {
+                weight -= it.next().weight();
+                it.remove();
+                evictions.incrementAndGet();
+            }
+        }
+    }
+
+    static final class Expansion {
+        private final long rangeStart;
+        private final long rangeEnd;
+        private final long[] starts;
+        private final long[] ends;
+        private final long maxDuration;
+
+        Expansion(final long rangeStart, final long rangeEnd, final long[] starts, final long[] ends, final long maxDuration) {
+            this.rangeStart = rangeStart;
+            this.rangeEnd = rangeEnd;
+            this.starts = starts;
+            this.ends = ends;
+            this.maxDuration = maxDuration;
+        }
+
+        boolean covers(final long start, final long end) {
+            return rangeStart <= start && end <= rangeEnd;
+        }
+
+        /**
+         * @return true if the union with the given range spans at most twice the length of both ranges
+         */
+        boolean isCloseTo(final long start, final long end) {
+            final long union = Math.max(rangeEnd, end) - Math.min(rangeStart, start);
+            return union <= 2 * ((rangeEnd - rangeStart) + (end - start));
+        }
+
+        boolean overlaps(final long start, final long end) {
+            // occurrences starting before start - maxDuration cannot reach into the range
+            int i = Arrays.binarySearch(starts, start - maxDuration);
+            i = i < 0 ? -i - 1 : i;
+            while (i > 0 && starts[i - 1] == start - maxDuration) {
+                i--;
+            }
+
+            for (; i < starts.length && starts[i] < end; i++) {
+                if (ends[i] > start || (starts[i] == ends[i] && starts[i] >= start)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        long weight() {
+            return Math.max(1, starts.length);
+        }
+    }
+}
@@ -0,0 +1,246 @@
+package org.unitedinternet.cosmo.calendar;
+
+import net.fortuna.ical4j.model.ComponentList;
+import net.fortuna.ical4j.model.TimeZone;
+import net.fortuna.ical4j.model.TimeZoneRegistry;
+import net.fortuna.ical4j.model.TimeZoneRegistryFactory;
+import net.fortuna.ical4j.model.component.VTimeZone;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.util.Assert;
+import org.unitedinternet.cosmo.dav.CosmoDavException;
+import org.unitedinternet.cosmo.dav.caldav.TimeZoneExtractor;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.text.ParseException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Shares timezone definitions between requests.
+ * <p>
+ * Clients send the same <code>CALDAV:timezone</code> text with every query. Validated {@link VTimeZone} components
+ * are cached keyed by a hash of the normalized text, hence a definition is parsed and validated only once.
+ * <p>
+ * Stored calendars embed their own VTIMEZONE components. Calendar builders created with {@link #createRegistry()}
+ * resolve TZIDs to a single {@link TimeZone} instance per distinct definition, so the observance onsets computed
+ * while expanding one calendar are reused by all others referring to the same definition.
+ * <p>
+ * Timezones handed out by a registry end up in calendars shared between threads, see {@link CalendarCache}. ical4j
+ * computes the onsets of an observance lazily and recomputes them without synchronization once a later date is
+ * requested, a concurrent reader might see a partially filled onset cache. Hence shared timezones and cached
+ * definitions resolve their observances to copies private to the calling thread, onsets are computed once per
+ * thread and definition.
+ * <p>
+ * Both maps stop growing once they hold {@code maxSize} entries. Cached components are shared between threads and
+ * must be treated as immutable by callers.
+ *
+ * @author Kamill Sokol
+ */
+@ManagedResource(objectName = "carldav:type=TimeZoneCache", description = "Timezone definition cache")
+public class TimeZoneCache {
+
+    private final ConcurrentMap<String, VTimeZone> definitions = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, TimeZone> timezones = new ConcurrentHashMap<>();
+    private final int maxSize;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public TimeZoneCache(final int maxSize) {
+        Assert.isTrue(maxSize >= 0, "maxSize must not be negative");
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Returns the timezone of the given iCalendar string, see {@link TimeZoneExtractor#extract(String)}.
+     *
+     * @param ical the iCalendar string to parse
+     * @return the validated timezone or <code>null</code> if the iCalendar string is <code>null</code>
+     * @throws CosmoDavException if the iCalendar string is not a valid iCalendar object containing a single
+     * VTIMEZONE component
+     */
+    public VTimeZone getTimeZone(final String ical) throws CosmoDavException {
+        if (ical == null) {
+            return null;
+        }
+
+        final String key = DigestUtils.sha256Hex(normalize(ical).getBytes(UTF_8));
+        final VTimeZone cached = definitions.get(key);
+        if (cached != null) {
+            hits.incrementAndGet();
+            return cached;
+        }
+
+        misses.incrementAndGet();
+        final VTimeZone vtz = confine(TimeZoneExtractor.extract(ical));
+        if (definitions.size() < maxSize) {
+            final VTimeZone previous = definitions.putIfAbsent(key, vtz);
+            return previous == null ? vtz : previous;
+        }
+        return vtz;
+    }
+
+    /**
+     * Creates a registry for a single calendar builder. Timezones registered by the builder are replaced by the
+     * shared instance of an equal definition. TZIDs without a definition in the calendar are resolved through the
+     * default registry.
+     *
+     * @return new timezone registry
+     */
+    public TimeZoneRegistry createRegistry() {
+        return new SharedTimeZoneRegistry();
+    }
+
+    /**
+     * Removes all entries.
+     */
+    @ManagedOperation
+    public void clear() {
+        definitions.clear();
+        timezones.clear();
+    }
+
+    @ManagedAttribute
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    @ManagedAttribute
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    @ManagedAttribute
+    public int getDefinitionCount() {
+        return definitions.size();
+    }
+
+    @ManagedAttribute
+    public int getTimeZoneCount() {
+        return timezones.size();
+    }
+
+    @ManagedAttribute
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    private TimeZone share(final TimeZone timezone) {
+        return share(timezone.getID() + "#" + DigestUtils.sha256Hex(timezone.getVTimeZone().toString().getBytes(UTF_8)), timezone);
+    }
+
+    /**
+     * Timezones of the default registry are cached by ical4j itself and used by any thread, their observances
+     * are only read to create the per thread copies.
+     */
+    private TimeZone shareDefault(final TimeZone timezone) {
+        return share("default#" + timezone.getID(), timezone);
+    }
+
+    private TimeZone share(final String key, final TimeZone timezone) {
+        final TimeZone shared = timezones.get(key);
+        if (shared != null) {
+            return shared;
+        }
+        final TimeZone confined = new TimeZone(confine(timezone.getVTimeZone()));
+        if (timezones.size() < maxSize) {
+            final TimeZone previous = timezones.putIfAbsent(key, confined);
+            return previous == null ? confined : previous;
+        }
+        return confined;
+    }
+
+    private static VTimeZone confine(final VTimeZone timezone) {
+        return new VTimeZone(timezone.getProperties(), new ThreadConfinedObservances(timezone.getObservances()));
+    }
+
+    private static String normalize(final String ical) {
+        final StringBuilder builder = new StringBuilder(ical.length());
+        for (final String line : ical.trim().split("\\r?\\n")) {
+            int end = line.length();
+            while (end > 0 && Character.isWhitespace(line.charAt(end - 1))) {
+                end--;
+            }
+            builder.append(line, 0, end).append('\n');
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Observances of a shared timezone. ical4j looks up the applicable observance by iterating the observances of a
+     * timezone, the iterator hands out copies private to the calling thread. The list itself holds the original
+     * observances, which are never asked for an onset.
+     */
+    private static final class ThreadConfinedObservances extends ComponentList {
+
+        private static final long serialVersionUID = 1L;
+
+        private final transient ThreadLocal<ComponentList> copies;
+
+        private ThreadConfinedObservances(final ComponentList observances) {
+            super(observances.size());
+            addAll(observances);
+            copies = ThreadLocal.withInitial(() -> {
+                try {
+                    return new ComponentList(observances);
+                } catch (ParseException | IOException | URISyntaxException exception) {
+                    throw new IllegalStateException("failed to copy observances", exception);
+                }
+            });
+        }
+
+        @Override
+        public Iterator iterator() {
+            return copies.get().iterator();
+        }
+    }
+
+    private final class SharedTimeZoneRegistry implements TimeZoneRegistry {
+
+        private final Map<String, TimeZone> registered = new HashMap<>();
+        private TimeZoneRegistry defaults;
+
+        @Override
+        public void register(final TimeZone timezone) {
+            registered.put(timezone.getID(), share(timezone));
+        }
+
+        @Override
+        public void register(final TimeZone timezone, final boolean update) {
+            register(timezone);
+        }
+
+        @Override
+        public void clear() {
+            registered.clear();
+        }
+
+        @Override
+        public TimeZone getTimeZone(final String id) {
+            final TimeZone timezone = registered.get(id);
+            if (timezone != null) {
+                return timezone;
+            }
+            if (defaults == null) {
+                defaults = TimeZoneRegistryFactory.getInstance().createRegistry();
+            }
+            final TimeZone defaultTimezone = defaults.getTimeZone(id);
+            if (defaultTimezone == null) {
+                return null;
+            }
+            final TimeZone shared = shareDefault(defaultTimezone);
+            registered.put(id, shared);
+            return shared;
+        }
+    }
+}
@@ -16,8 +16,10 @@
 package org.unitedinternet.cosmo.calendar.query;
 
 import carldav.entity.Item;
+import net.fortuna.ical4j.model.Period;
+import net.fortuna.ical4j.model.component.VFreeBusy;
 
-import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * <p>
@@ -31,6 +33,9 @@ import java.util.List;
  * and/or parameters. The items may be required to occur within a specified
  * time period. Query criteria are expressed using a
  * {@link CalendarFilter}.</dd>
+ * <dt>Free-busy query</dt>
+ * <dd>Computes the busy periods of the events of a collection within a
+ * specified time period.</dd>
  * </dl>
  * <p>
  * Calendar queries will only ever match instances of {@link Item}.
@@ -45,9 +50,10 @@ public interface CalendarQueryProcessor {
      * </p>
      * @param collection The collection.
      * @param filter The calendar filter.
-     * @return All members that match the provided filter.
+     * @return All members that match the provided filter. The stream is backed by a database cursor and
+     * must be consumed within the current transaction.
      */
-    List<Item> filterQuery(CalendarFilter filter);
+    Stream<Item> filterQuery(CalendarFilter filter);
 
     /**
      * <p>
@@ -55,8 +61,20 @@ public interface CalendarQueryProcessor {
      * item matches the provided filter.
      * </p>
      * @param item The ICalendar item.
-     * @param filter The calendar filter.
+     * @param filter The compiled calendar filter.
      * @return True if the item matches the provided filter.
      */
-    boolean filterQuery(Item item, CalendarFilter filter);
+    boolean filterQuery(Item item, CompiledCalendarFilter filter);
+
+    /**
+     * <p>
+     * Computes the busy time of the events in a collection. Cancelled and
+     * transparent occurrences are not busy, tentative occurrences are reported
+     * as <code>BUSY-TENTATIVE</code>.
+     * </p>
+     * @param collectionId The collection id.
+     * @param period The time period, start and end must be UTC.
+     * @return The merged busy periods.
+     */
+    VFreeBusy freeBusyQuery(Long collectionId, Period period);
 }
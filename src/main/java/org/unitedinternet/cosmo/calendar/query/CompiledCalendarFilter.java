@@ -0,0 +1,649 @@
+package org.unitedinternet.cosmo.calendar.query;
+
+import net.fortuna.ical4j.model.Calendar;
+import net.fortuna.ical4j.model.Component;
+import net.fortuna.ical4j.model.ComponentList;
+import net.fortuna.ical4j.model.Date;
+import net.fortuna.ical4j.model.DateTime;
+import net.fortuna.ical4j.model.Parameter;
+import net.fortuna.ical4j.model.ParameterList;
+import net.fortuna.ical4j.model.Property;
+import net.fortuna.ical4j.model.PropertyList;
+import net.fortuna.ical4j.model.TimeZone;
+import net.fortuna.ical4j.model.component.VAlarm;
+import net.fortuna.ical4j.model.component.VEvent;
+import net.fortuna.ical4j.model.component.VJournal;
+import net.fortuna.ical4j.model.component.VTimeZone;
+import net.fortuna.ical4j.model.component.VToDo;
+import net.fortuna.ical4j.model.property.DateProperty;
+import org.unitedinternet.cosmo.calendar.ICalendarUtils;
+import org.unitedinternet.cosmo.calendar.InstanceList;
+import org.unitedinternet.cosmo.calendar.RecurrenceCache;
+
+import java.util.Iterator;
+import java.util.List;
+
+import static java.util.Locale.ENGLISH;
+
+/**
+ * Immutable predicate graph compiled from a {@link CalendarFilter}. Names are normalized, text-match values
+ * lowered and time-range bounds and timezones resolved once at compile time, hence a compiled filter can be
+ * evaluated against any number of calendars and shared between threads. Evaluation walks the component and
+ * property lists of the calendar in place and allocates only when recurrences need to be expanded.
+ * <p>
+ * Matching follows the rules of RFC 4791 section 9.7.
+ *
+ * @author Kamill Sokol
+ */
+public final class CompiledCalendarFilter {
+
+    private static final String COMP_VCALENDAR = "VCALENDAR";
+    private static final ComponentList NO_COMPONENTS = new ComponentList();
+
+    private final ComponentNode[] components;
+
+    private CompiledCalendarFilter(ComponentNode[] components) {
+        this.components = components;
+    }
+
+    /**
+     * Compiles the given, validated filter.
+     *
+     * @param filter the filter to compile
+     * @return the compiled filter
+     */
+    public static CompiledCalendarFilter compile(CalendarFilter filter) {
+        final ComponentFilter root = filter.getFilter();
+
+        // root filter must be "VCALENDAR"
+        if (root == null || !COMP_VCALENDAR.equalsIgnoreCase(root.getName())) {
+            return new CompiledCalendarFilter(null);
+        }
+        return new CompiledCalendarFilter(compileComponents(root.getComponentFilters()));
+    }
+
+    /**
+     * @param calendar the calendar to evaluate
+     * @return true if all component filters match the calendar
+     */
+    public boolean matches(Calendar calendar) {
+        return matches(calendar, null, null);
+    }
+
+    /**
+     * Evaluates the filter and memoizes the expanded occurrences of recurring events in the given cache.
+     *
+     * @param calendar the calendar to evaluate
+     * @param recurrenceCache cache of expanded occurrences or {@code null}
+     * @param version version of the calendar, see {@link org.unitedinternet.cosmo.calendar.CalendarCache#versionOf}
+     * @return true if all component filters match the calendar
+     */
+    public boolean matches(Calendar calendar, RecurrenceCache recurrenceCache, String version) {
+        if (components == null) {
+            return false;
+        }
+        final Evaluation evaluation = recurrenceCache == null ? null : new Evaluation(recurrenceCache, version);
+        for (final ComponentNode node : components) {
+            if (!node.matches(calendar.getComponents(), null, evaluation)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static ComponentNode[] compileComponents(List<?> filters) {
+        final ComponentNode[] nodes = new ComponentNode[filters.size()];
+        for (int i = 0; i < nodes.length; i++) {
+            nodes[i] = new ComponentNode((ComponentFilter) filters.get(i));
+        }
+        return nodes;
+    }
+
+    private static boolean isComponent(Object component, String name) {
+        return name.equalsIgnoreCase(((Component) component).getName());
+    }
+
+    private static ComponentList getSubComponents(Component component) {
+        if (component instanceof VEvent) {
+            return ((VEvent) component).getAlarms();
+        }
+        if (component instanceof VTimeZone) {
+            return ((VTimeZone) component).getObservances();
+        }
+        if (component instanceof VToDo) {
+            return ((VToDo) component).getAlarms();
+        }
+        return NO_COMPONENTS;
+    }
+
+    private static final class Evaluation {
+        private final RecurrenceCache recurrenceCache;
+        private final String version;
+
+        private Evaluation(RecurrenceCache recurrenceCache, String version) {
+            this.recurrenceCache = recurrenceCache;
+            this.version = version;
+        }
+    }
+
+    private static final class ComponentNode {
+        private final String name;
+        private final boolean notDefined;
+        private final boolean exists;
+        private final TimeRangeNode timeRange;
+        private final ComponentNode[] components;
+        private final PropertyNode[] properties;
+
+        private ComponentNode(ComponentFilter filter) {
+            name = filter.getName().toUpperCase(ENGLISH);
+            notDefined = filter.getIsNotDefinedFilter() != null;
+            timeRange = filter.getTimeRangeFilter() == null ? null : new TimeRangeNode(filter.getTimeRangeFilter());
+            components = compileComponents(filter.getComponentFilters());
+
+            final List<?> propFilters = filter.getPropFilters();
+            properties = new PropertyNode[propFilters.size()];
+            for (int i = 0; i < properties.length; i++) {
+                properties[i] = new PropertyNode((PropertyFilter) propFilters.get(i));
+            }
+
+            exists = !notDefined && timeRange == null && components.length == 0 && properties.length == 0;
+        }
+
+        /**
+         * @param scope components in the current scope
+         * @param parent enclosing component of the scope, required to evaluate alarm time ranges
+         * @param evaluation memoization state of the evaluation or {@code null}
+         */
+        private boolean matches(ComponentList scope, Component parent, Evaluation evaluation) {
+            boolean found = false;
+            for (int i = 0; i < scope.size() && !found; i++) {
+                found = isComponent(scope.get(i), name);
+            }
+
+            /* The CALDAV:comp-filter XML element is empty and the calendar component type specified by the "name"
+               attribute exists in the current scope; */
+            if (exists) {
+                return found;
+            }
+            /* The CALDAV:comp-filter XML element contains a CALDAV:is-not-defined XML element and the calendar
+               object or calendar component type specified by the "name" attribute does not exist in the current
+               scope; */
+            if (notDefined) {
+                return !found;
+            }
+            if (!found) {
+                return false;
+            }
+
+            /* The CALDAV:comp-filter XML element contains a CALDAV:time-range XML element and at least one
+               recurrence instance in the targeted calendar component is scheduled to overlap the specified time
+               range, and all specified CALDAV:prop-filter and CALDAV:comp-filter child XML elements also match the
+               targeted calendar component; */
+            if (timeRange != null && !timeRange.matches(scope, name, parent, evaluation)) {
+                return false;
+            }
+            for (final ComponentNode node : components) {
+                if (!node.matchesAny(scope, name, evaluation)) {
+                    return false;
+                }
+            }
+            for (final PropertyNode node : properties) {
+                if (!node.matchesAny(scope, name)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private boolean matchesAny(ComponentList scope, String componentName, Evaluation evaluation) {
+            for (int i = 0; i < scope.size(); i++) {
+                final Component component = (Component) scope.get(i);
+                if (componentName.equalsIgnoreCase(component.getName())
+                        && matches(getSubComponents(component), component, evaluation)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private static final class PropertyNode {
+        private final String name;
+        private final boolean notDefined;
+        private final boolean exists;
+        private final TimeRangeNode timeRange;
+        private final TextMatchNode textMatch;
+        private final ParamNode[] params;
+
+        private PropertyNode(PropertyFilter filter) {
+            name = filter.getName().toUpperCase(ENGLISH);
+            notDefined = filter.getIsNotDefinedFilter() != null;
+            timeRange = filter.getTimeRangeFilter() == null ? null : new TimeRangeNode(filter.getTimeRangeFilter());
+            textMatch = filter.getTextMatchFilter() == null ? null : new TextMatchNode(filter.getTextMatchFilter());
+
+            final List<?> paramFilters = filter.getParamFilters();
+            params = new ParamNode[paramFilters.size()];
+            for (int i = 0; i < params.length; i++) {
+                params[i] = new ParamNode((ParamFilter) paramFilters.get(i));
+            }
+
+            exists = !notDefined && timeRange == null && textMatch == null && params.length == 0;
+        }
+
+        private boolean matchesAny(ComponentList scope, String componentName) {
+            for (int i = 0; i < scope.size(); i++) {
+                final Component component = (Component) scope.get(i);
+                if (componentName.equalsIgnoreCase(component.getName()) && matches(component.getProperties())) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private boolean matches(PropertyList props) {
+            boolean found = false;
+            for (int i = 0; i < props.size() && !found; i++) {
+                found = isProperty(props.get(i));
+            }
+
+            /* The CALDAV:prop-filter XML element is empty and a property of the type specified by the "name"
+               attribute exists in the enclosing calendar component; */
+            if (exists) {
+                return found;
+            }
+            /* The CALDAV:prop-filter XML element contains a CALDAV:is-not-defined XML element and no property of
+               the type specified by the "name" attribute exists in the enclosing calendar component; */
+            if (notDefined) {
+                return !found;
+            }
+            if (!found) {
+                return false;
+            }
+
+            /* The CALDAV:prop-filter XML element contains a CALDAV:time-range XML element and the property value
+               overlaps the specified time range, and all specified CALDAV:param-filter child XML elements also
+               match the targeted property; */
+            if (timeRange != null && !matchesTimeRange(props)) {
+                return false;
+            }
+            if (textMatch != null && !matchesParams(props, null)) {
+                return false;
+            }
+            for (final ParamNode param : params) {
+                if (!matchesParams(props, param)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private boolean matchesTimeRange(PropertyList props) {
+            for (int i = 0; i < props.size(); i++) {
+                final Object prop = props.get(i);
+                if (isProperty(prop) && prop instanceof DateProperty && timeRange.contains(((DateProperty) prop).getDate())) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Parameter filters are evaluated against the properties that satisfy the text-match filter only.
+         */
+        private boolean matchesParams(PropertyList props, ParamNode param) {
+            for (int i = 0; i < props.size(); i++) {
+                final Object prop = props.get(i);
+                if (!isProperty(prop)) {
+                    continue;
+                }
+                final Property property = (Property) prop;
+                if ((textMatch == null || textMatch.matches(property.getValue()))
+                        && (param == null || param.matches(property.getParameters()))) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private boolean isProperty(Object property) {
+            return name.equalsIgnoreCase(((Property) property).getName());
+        }
+    }
+
+    private static final class ParamNode {
+        private final String name;
+        private final boolean notDefined;
+        private final TextMatchNode textMatch;
+
+        private ParamNode(ParamFilter filter) {
+            name = filter.getName().toUpperCase(ENGLISH);
+            notDefined = filter.getIsNotDefinedFilter() != null;
+            textMatch = filter.getTextMatchFilter() == null ? null : new TextMatchNode(filter.getTextMatchFilter());
+        }
+
+        private boolean matches(ParameterList params) {
+            boolean found = false;
+            boolean matched = false;
+            for (final Iterator<Parameter> it = params.iterator(); it.hasNext() && !matched;) {
+                final Parameter param = it.next();
+                if (name.equalsIgnoreCase(param.getName())) {
+                    found = true;
+                    matched = textMatch != null && textMatch.matches(param.getValue());
+                }
+            }
+
+            /* The CALDAV:param-filter XML element contains a CALDAV:is-not-defined XML element and no parameter of
+               the type specified by the "name" attribute exists on the calendar property being examined; */
+            if (notDefined) {
+                return !found;
+            }
+            /* The CALDAV:param-filter XML element is empty and a parameter of the type specified by the "name"
+               attribute exists on the calendar property being examined; */
+            if (textMatch == null) {
+                return found;
+            }
+            return matched;
+        }
+    }
+
+    private static final class TextMatchNode {
+        private final String value;
+        private final boolean caseless;
+        private final boolean negate;
+
+        private TextMatchNode(TextMatchFilter filter) {
+            caseless = filter.isCaseless();
+            negate = filter.isNegateCondition();
+            value = caseless ? filter.getValue().toLowerCase(ENGLISH) : filter.getValue();
+        }
+
+        private boolean matches(String text) {
+            final boolean matched = caseless ? containsIgnoreCase(text) : text.contains(value);
+            return negate != matched;
+        }
+
+        private boolean containsIgnoreCase(String text) {
+            final int last = text.length() - value.length();
+            for (int i = 0; i <= last; i++) {
+                if (text.regionMatches(true, i, value, 0, value.length())) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private static final class TimeRangeNode {
+        private final DateTime start;
+        private final DateTime end;
+        private final TimeZone timezone;
+
+        private TimeRangeNode(TimeRangeFilter filter) {
+            start = filter.getPeriod().getStart();
+            end = filter.getPeriod().getEnd();
+            timezone = filter.getTimezone() == null ? null : new TimeZone(filter.getTimezone());
+        }
+
+        private boolean contains(Date date) {
+            return date.before(end) && date.after(start) || date.equals(start);
+        }
+
+        /**
+         * Evaluates the time range against the components of the given name in scope. The type of the first
+         * matching component determines the overlap rules.
+         */
+        private boolean matches(ComponentList scope, String name, Component parent, Evaluation evaluation) {
+            Component first = null;
+            for (int i = 0; i < scope.size() && first == null; i++) {
+                if (isComponent(scope.get(i), name)) {
+                    first = (Component) scope.get(i);
+                }
+            }
+
+            if (first instanceof VEvent) {
+                return evaluation == null ? matchesEvents(scope, name) : matchesEvents(scope, name, evaluation);
+            }
+            if (first instanceof VToDo) {
+                return matchesToDo(scope, name);
+            }
+            if (first instanceof VJournal) {
+                return matchesJournal((VJournal) first);
+            }
+            if (first instanceof VAlarm) {
+                return matchesAlarms(scope, name, parent);
+            }
+            return false;
+        }
+
+        private InstanceList newInstanceList() {
+            final InstanceList instances = new InstanceList();
+            if (timezone != null) {
+                instances.setTimezone(timezone);
+            }
+            return instances;
+        }
+
+        /*
+         * A VEVENT component overlaps a given time range if the condition
+           for the corresponding component state specified in the table below
+           is satisfied.  Note that, as specified in [RFC2445], the DTSTART
+           property is REQUIRED in the VEVENT component.  The conditions
+           depend on the presence of the DTEND and DURATION properties in the
+           VEVENT component.  Furthermore, the value of the DTEND property
+           MUST be later in time than the value of the DTSTART property.  The
+           duration of a VEVENT component with no DTEND and DURATION
+           properties is 1 day (+P1D) when the DTSTART is a DATE value, and 0
+           seconds when the DTSTART is a DATE-TIME value.
+
+           +---------------------------------------------------------------+
+           | VEVENT has the DTEND property?                                |
+           |   +-----------------------------------------------------------+
+           |   | VEVENT has the DURATION property?                         |
+           |   |   +-------------------------------------------------------+
+           |   |   | DURATION property value is greater than 0 seconds?    |
+           |   |   |   +---------------------------------------------------+
+           |   |   |   | DTSTART property is a DATE-TIME value?            |
+           |   |   |   |   +-----------------------------------------------+
+           |   |   |   |   | Condition to evaluate                         |
+           +---+---+---+---+-----------------------------------------------+
+           | Y | N | N | * | (start <  DTEND AND end > DTSTART)            |
+           +---+---+---+---+-----------------------------------------------+
+           | N | Y | Y | * | (start <  DTSTART+DURATION AND end > DTSTART) |
+           |   |   +---+---+-----------------------------------------------+
+           |   |   | N | * | (start <= DTSTART AND end > DTSTART)          |
+           +---+---+---+---+-----------------------------------------------+
+           | N | N | N | Y | (start <= DTSTART AND end > DTSTART)          |
+           +---+---+---+---+-----------------------------------------------+
+           | N | N | N | N | (start <  DTSTART+P1D AND end > DTSTART)      |
+           +---+---+---+---+-----------------------------------------------+
+
+           The conditions are applied to every recurrence instance by InstanceList.
+         */
+        private boolean matchesEvents(ComponentList scope, String name) {
+            final InstanceList instances = newInstanceList();
+            for (int i = 0; i < scope.size(); i++) {
+                final Component component = (Component) scope.get(i);
+                if (isComponent(component, name) && component.getProperty(Property.RECURRENCE_ID) == null) {
+                    instances.addComponent(component, start, end);
+                }
+            }
+            return instances.size() > 0;
+        }
+
+        /**
+         * Answers the time range from the memoized occurrences of each master event.
+         */
+        private boolean matchesEvents(ComponentList scope, String name, Evaluation evaluation) {
+            int ordinal = 0;
+            for (int i = 0; i < scope.size(); i++) {
+                final Component component = (Component) scope.get(i);
+                if (isComponent(component, name) && component.getProperty(Property.RECURRENCE_ID) == null
+                        && evaluation.recurrenceCache.overlaps(evaluation.version, ordinal++, component, timezone, start, end)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /*
+         * A VTODO component is said to overlap a given time range if the
+           condition for the corresponding component state specified in the
+           table below is satisfied.  The conditions depend on the presence
+           of the DTSTART, DURATION, DUE, COMPLETED, and CREATED properties
+           in the VTODO component.  Note that, as specified in [RFC2445], the
+           DUE value MUST be a DATE-TIME value equal to or after the DTSTART
+           value if specified.
+
+        +-------------------------------------------------------------------+
+        | VTODO has the DTSTART property?                                   |
+        |   +---------------------------------------------------------------+
+        |   |   VTODO has the DURATION property?                            |
+        |   |   +-----------------------------------------------------------+
+        |   |   | VTODO has the DUE property?                               |
+        |   |   |   +-------------------------------------------------------+
+        |   |   |   | VTODO has the COMPLETED property?                     |
+        |   |   |   |   +---------------------------------------------------+
+        |   |   |   |   | VTODO has the CREATED property?                   |
+        |   |   |   |   |   +-----------------------------------------------+
+        |   |   |   |   |   | Condition to evaluate                         |
+        +---+---+---+---+---+-----------------------------------------------+
+        | Y | Y | N | * | * | (start  <= DTSTART+DURATION)  AND             |
+        |   |   |   |   |   | ((end   >  DTSTART)  OR                       |
+        |   |   |   |   |   |  (end   >= DTSTART+DURATION))                 |
+        +---+---+---+---+---+-----------------------------------------------+
+        | Y | N | Y | * | * | ((start <  DUE)      OR  (start <= DTSTART))  |
+        |   |   |   |   |   | AND                                           |
+        |   |   |   |   |   | ((end   >  DTSTART)  OR  (end   >= DUE))      |
+        +---+---+---+---+---+-----------------------------------------------+
+        | Y | N | N | * | * | (start  <= DTSTART)  AND (end >  DTSTART)     |
+        +---+---+---+---+---+-----------------------------------------------+
+        | N | N | Y | * | * | (start  <  DUE)      AND (end >= DUE)         |
+        +---+---+---+---+---+-----------------------------------------------+
+        | N | N | N | Y | Y | ((start <= CREATED)  OR  (start <= COMPLETED))|
+        |   |   |   |   |   | AND                                           |
+        |   |   |   |   |   | ((end   >= CREATED)  OR  (end   >= COMPLETED))|
+        +---+---+---+---+---+-----------------------------------------------+
+        | N | N | N | Y | N | (start  <= COMPLETED) AND (end  >= COMPLETED) |
+        +---+---+---+---+---+-----------------------------------------------+
+        | N | N | N | N | Y | (end    >  CREATED)                           |
+        +---+---+---+---+---+-----------------------------------------------+
+        | N | N | N | N | N | TRUE                                          |
+        +---+---+---+---+---+-----------------------------------------------+
+
+           VTODOs with a DTSTART are expanded by InstanceList, which relies on
+           DTSTART and DURATION, see isToDoInRange for the others.
+         */
+        private boolean matchesToDo(ComponentList scope, String name) {
+            VToDo master = null;
+            for (int i = 0; i < scope.size(); i++) {
+                final Component component = (Component) scope.get(i);
+                if (isComponent(component, name) && component.getProperty(Property.RECURRENCE_ID) == null) {
+                    master = (VToDo) component;
+                }
+            }
+
+            if (master == null) {
+                return false;
+            }
+            // without DTSTART the rules of RFC 4791 section 9.9 apply
+            if (master.getStartDate() == null) {
+                return isToDoInRange(master);
+            }
+
+            final InstanceList instances = newInstanceList();
+            instances.addComponent(master, start, end);
+            return instances.size() > 0;
+        }
+
+        /**
+         * Determines whether a VTODO without DTSTART overlaps the time range, using the state table defined in
+         * RFC 4791 section 9.9 above.
+         */
+        private boolean isToDoInRange(VToDo vtodo) {
+            if (vtodo.getDue() != null) {
+                // (start < DUE) AND (end >= DUE)
+                final Date due = vtodo.getDue().getDate();
+                return start.compareTo(due) < 0 && end.compareTo(due) >= 0;
+            }
+            if (vtodo.getCreated() != null && vtodo.getDateCompleted() != null) {
+                // ((start <= CREATED) OR (start <= COMPLETED)) AND ((end >= CREATED) OR (end >= COMPLETED))
+                final Date created = vtodo.getCreated().getDate();
+                final Date completed = vtodo.getDateCompleted().getDate();
+                return (start.compareTo(created) <= 0 || start.compareTo(completed) <= 0) &&
+                        (end.compareTo(created) >= 0 || end.compareTo(completed) >= 0);
+            }
+            if (vtodo.getDateCompleted() != null) {
+                // (start <= COMPLETED) AND (end >= COMPLETED)
+                final Date completed = vtodo.getDateCompleted().getDate();
+                return start.compareTo(completed) <= 0 && end.compareTo(completed) >= 0;
+            }
+            if (vtodo.getCreated() != null) {
+                // (end > CREATED)
+                return end.compareTo(vtodo.getCreated().getDate()) > 0;
+            }
+            return true;
+        }
+
+        /*
+         * A VJOURNAL component overlaps a given time range if the condition
+           for the corresponding component state specified in the table below
+           is satisfied.  The conditions depend on the presence of the
+           DTSTART property in the VJOURNAL component and on whether the
+           DTSTART is a DATE-TIME or DATE value.  The effective "duration" of
+           a VJOURNAL component is 1 day (+P1D) when the DTSTART is a DATE
+           value, and 0 seconds when the DTSTART is a DATE-TIME value.
+
+           +----------------------------------------------------+
+           | VJOURNAL has the DTSTART property?                 |
+           |   +------------------------------------------------+
+           |   | DTSTART property is a DATE-TIME value?         |
+           |   |   +--------------------------------------------+
+           |   |   | Condition to evaluate                      |
+           +---+---+--------------------------------------------+
+           | Y | Y | (start <= DTSTART)     AND (end > DTSTART) |
+           +---+---+--------------------------------------------+
+           | Y | N | (start <  DTSTART+P1D) AND (end > DTSTART) |
+           +---+---+--------------------------------------------+
+           | N | * | FALSE                                      |
+           +---+---+--------------------------------------------+
+         */
+        private boolean matchesJournal(VJournal journal) {
+            if (journal.getStartDate() == null) {
+                return false;
+            }
+            final InstanceList instances = newInstanceList();
+            instances.addComponent(journal, start, end);
+            return instances.size() > 0;
+        }
+
+        /*
+         * A VALARM component is said to overlap a given time range if the
+           following condition holds:
+
+              (start <= trigger-time) AND (end > trigger-time)
+
+           A VALARM component can be defined such that it triggers repeatedly.
+           Such a VALARM component is said to overlap a given time range if at
+           least one of its triggers overlaps the time range.
+         */
+        private boolean matchesAlarms(ComponentList scope, String name, Component parent) {
+            // VALARM must have parent VEVENT or VTODO
+            if (parent == null) {
+                return false;
+            }
+
+            for (int i = 0; i < scope.size(); i++) {
+                final Component component = (Component) scope.get(i);
+                if (!isComponent(component, name) || ((VAlarm) component).getTrigger() == null) {
+                    continue;
+                }
+                for (final Date trigger : ICalendarUtils.getTriggerDates((VAlarm) component, parent)) {
+                    if (start.compareTo(trigger) <= 0 && end.after(trigger)) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package org.unitedinternet.cosmo.calendar.query.impl;
+
+import org.springframework.util.Assert;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Evaluates predicates over a stream of candidates on a dedicated, bounded {@link ForkJoinPool}. Candidates are
+ * consumed in batches on the calling thread, each batch is partitioned into at most
+ * {@code maxRequestParallelism} chunks that are evaluated concurrently, and the matches are emitted in the order
+ * of the source stream. The cap prevents a single large query from occupying the whole pool.
+ *
+ * @author Kamill Sokol
+ */
+public class ParallelFilterEvaluator {
+
+    /**
+     * Batches are not split into chunks smaller than this.
+     */
+    static final int MIN_CHUNK_SIZE = 8;
+
+    private final ForkJoinPool pool;
+    private final int maxRequestParallelism;
+
+    /**
+     * @param poolSize number of worker threads, {@code 0} to use one per available processor
+     * @param maxRequestParallelism maximum number of chunks evaluated concurrently for a single stream,
+     *                              {@code 1} disables parallel evaluation
+     */
+    public ParallelFilterEvaluator(int poolSize, int maxRequestParallelism) {
+        Assert.isTrue(poolSize >= 0, "poolSize must not be negative");
+        Assert.isTrue(maxRequestParallelism > 0, "maxRequestParallelism must be greater than zero");
+        final int parallelism = poolSize == 0 ? Runtime.getRuntime().availableProcessors() : poolSize;
+        this.pool = new ForkJoinPool(parallelism, ParallelFilterEvaluator::newThread, null, false);
+        this.maxRequestParallelism = maxRequestParallelism;
+    }
+
+    /**
+     * Filters the candidates lazily. The returned stream closes the source stream when it is closed.
+     *
+     * @param candidates candidates in the order the matches should be emitted in
+     * @param predicate thread-safe predicate, it must not access state bound to the calling thread
+     * @param batchSize number of candidates read from the source at once
+     */
+    public <T> Stream<T> filter(Stream<T> candidates, Predicate<T> predicate, int batchSize) {
+        Assert.isTrue(batchSize > 0, "batchSize must be greater than zero");
+        final Iterator<T> source = candidates.iterator();
+
+        final Spliterator<T> spliterator = new Spliterators.AbstractSpliterator<T>(Long.MAX_VALUE, Spliterator.ORDERED) {
+            private final Deque<T> matches = new ArrayDeque<>();
+
+            @Override
+            public boolean tryAdvance(final Consumer<? super T> action) {
+                while (matches.isEmpty() && source.hasNext()) {
+                    final List<T> batch = new ArrayList<>(batchSize);
+                    while (batch.size() < batchSize && source.hasNext()) {
+                        batch.add(source.next());
+                    }
+                    final boolean[] matched = evaluate(batch, predicate);
+                    for (int i = 0; i < matched.length; i++) {
+                        if (matched[i]) {
+                            matches.add(batch.get(i));
+                        }
+                    }
+                }
+
+                if (matches.isEmpty()) {
+                    return false;
+                }
+                action.accept(matches.poll());
+                return true;
+            }
+        };
+
+        return StreamSupport.stream(spliterator, false).onClose(candidates::close);
+    }
+
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    private <T> boolean[] evaluate(List<T> batch, Predicate<T> predicate) {
+        final boolean[] matched = new boolean[batch.size()];
+        final int chunks = Math.min(maxRequestParallelism, (batch.size() + MIN_CHUNK_SIZE - 1) / MIN_CHUNK_SIZE);
+
+        if (chunks <= 1) {
+            evaluate(batch, predicate, matched, 0, batch.size());
+            return matched;
+        }
+
+        final int chunkSize = (batch.size() + chunks - 1) / chunks;
+        final List<ForkJoinTask<?>> tasks = new ArrayList<>(chunks);
+        for (int from = 0; from < batch.size(); from += chunkSize) {
+            final int start = from;
+            final int end = Math.min(from + chunkSize, batch.size());
+            tasks.add(pool.submit(() -> evaluate(batch, predicate, matched, start, end)));
+        }
+        for (final ForkJoinTask<?> task : tasks) {
+            task.join();
+        }
+        return matched;
+    }
+
+    private static <T> void evaluate(List<T> batch, Predicate<T> predicate, boolean[] matched, int from, int to) {
+        for (int i = from; i < to; i++) {
+            matched[i] = predicate.test(batch.get(i));
+        }
+    }
+
+    private static ForkJoinWorkerThread newThread(ForkJoinPool pool) {
+        final ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+        thread.setName("carldav-query-" + thread.getPoolIndex());
+        return thread;
+    }
+}
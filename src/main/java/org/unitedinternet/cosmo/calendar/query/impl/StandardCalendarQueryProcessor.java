@@ -18,16 +18,39 @@ package org.unitedinternet.cosmo.calendar.query.impl;
 import carldav.entity.Item;
 import carldav.repository.ItemRepository;
 import net.fortuna.ical4j.model.Calendar;
+import net.fortuna.ical4j.model.Component;
+import net.fortuna.ical4j.model.ComponentList;
+import net.fortuna.ical4j.model.DateTime;
+import net.fortuna.ical4j.model.Period;
+import net.fortuna.ical4j.model.PeriodList;
+import net.fortuna.ical4j.model.Property;
+import net.fortuna.ical4j.model.component.VFreeBusy;
+import net.fortuna.ical4j.model.parameter.FbType;
+import net.fortuna.ical4j.model.property.FreeBusy;
+import net.fortuna.ical4j.model.property.Status;
+import net.fortuna.ical4j.model.property.Transp;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.util.Assert;
+import carldav.repository.specification.ItemSpecs;
+import org.springframework.data.jpa.domain.Specification;
+import org.unitedinternet.cosmo.calendar.CalendarCache;
+import org.unitedinternet.cosmo.calendar.CollectionTimeIndex;
+import org.unitedinternet.cosmo.calendar.Instance;
+import org.unitedinternet.cosmo.calendar.InstanceList;
+import org.unitedinternet.cosmo.calendar.RecurrenceExpander;
+import org.unitedinternet.cosmo.calendar.RecurrenceCache;
 import org.unitedinternet.cosmo.calendar.query.CalendarFilter;
-import org.unitedinternet.cosmo.calendar.query.CalendarFilterEvaluater;
 import org.unitedinternet.cosmo.calendar.query.CalendarQueryProcessor;
+import org.unitedinternet.cosmo.calendar.query.CompiledCalendarFilter;
 import org.unitedinternet.cosmo.dao.query.hibernate.CalendarFilterConverter;
-import org.unitedinternet.cosmo.model.hibernate.EntityConverter;
+import org.unitedinternet.cosmo.dao.query.hibernate.CalendarQueryPlan;
 
+import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
 
 import static carldav.repository.specification.ItemSpecs.combine;
 
@@ -36,31 +59,200 @@ public class StandardCalendarQueryProcessor implements CalendarQueryProcessor {
     private static final Logger LOG = LoggerFactory.getLogger(StandardCalendarQueryProcessor.class);
 
     private static final CalendarFilterConverter filterConverter = new CalendarFilterConverter();
-    private static final EntityConverter entityConverter = new EntityConverter();
+    private static final RecurrenceExpander expander = new RecurrenceExpander();
+    private static final int MAX_INDEXED_IDS = 500;
 
     private final ItemRepository itemRepository;
+    private final int fetchSize;
+    private final CalendarCache calendarCache;
+    private final ParallelFilterEvaluator parallelFilterEvaluator;
+    private final RecurrenceCache recurrenceCache;
+    private final CollectionTimeIndex collectionTimeIndex;
 
-    public StandardCalendarQueryProcessor(ItemRepository itemRepository) {
+    public StandardCalendarQueryProcessor(ItemRepository itemRepository, int fetchSize, CalendarCache calendarCache,
+                                          ParallelFilterEvaluator parallelFilterEvaluator, RecurrenceCache recurrenceCache,
+                                          CollectionTimeIndex collectionTimeIndex) {
         Assert.notNull(itemRepository, "itemRepository is null");
+        Assert.isTrue(fetchSize > 0, "fetchSize must be greater than zero");
+        Assert.notNull(calendarCache, "calendarCache is null");
+        Assert.notNull(parallelFilterEvaluator, "parallelFilterEvaluator is null");
+        Assert.notNull(recurrenceCache, "recurrenceCache is null");
+        Assert.notNull(collectionTimeIndex, "collectionTimeIndex is null");
         this.itemRepository = itemRepository;
+        this.fetchSize = fetchSize;
+        this.calendarCache = calendarCache;
+        this.parallelFilterEvaluator = parallelFilterEvaluator;
+        this.recurrenceCache = recurrenceCache;
+        this.collectionTimeIndex = collectionTimeIndex;
     }
 
-    public List<Item> filterQuery(CalendarFilter filter) {
-        return itemRepository.findAll(combine(filterConverter.translateToItemFilter(filter)));
+    public Stream<Item> filterQuery(CalendarFilter filter) {
+        final CalendarQueryPlan plan = filterConverter.plan(filter);
+        final List<Specification<Item>> specifications = new ArrayList<>(plan.getSpecifications());
+        for (final CalendarQueryPlan.InstanceRange range : plan.getInstanceRanges()) {
+            specifications.add(toSpecification(filter.getParent(), range));
+        }
+        final Stream<Item> candidates = itemRepository.streamAll(combine(specifications), fetchSize);
+
+        if (plan.getResidual() == null && plan.getHorizonFilter() == null) {
+            return candidates;
+        }
+
+        LOG.debug("evaluating residual filter in memory");
+        final CompiledCalendarFilter residual = plan.getResidual() == null ? null : CompiledCalendarFilter.compile(plan.getResidual());
+        final CompiledCalendarFilter horizonFilter = plan.getHorizonFilter() == null ? null : CompiledCalendarFilter.compile(plan.getHorizonFilter());
+        final Date horizonEnd = plan.getHorizonEnd();
+        final Predicate<Item> beyondHorizon = item -> horizonFilter != null && item.getInstanceHorizon() != null
+                && item.getInstanceHorizon().before(horizonEnd);
+
+        // the cache is consulted and the payload loaded on a miss on the calling thread as the persistence context
+        // is not thread-safe, a cached calendar is handed over as it might be evicted before a worker gets to it
+        final Stream<Candidate> loaded = candidates.map(item -> {
+            if (residual == null && !beyondHorizon.test(item)) {
+                return new Candidate(item, null);
+            }
+            final Calendar cached = calendarCache.getIfPresent(item);
+            if (cached == null) {
+                item.getCalendar();
+            }
+            return new Candidate(item, cached);
+        });
+        return parallelFilterEvaluator.filter(loaded, candidate ->
+                (!beyondHorizon.test(candidate.item) || matches(candidate, horizonFilter)) && (residual == null || matches(candidate, residual)),
+                fetchSize).map(candidate -> candidate.item);
+    }
+
+    public VFreeBusy freeBusyQuery(Long collectionId, Period period) {
+        final DateTime start = period.getStart();
+        final DateTime end = period.getEnd();
+        final List<Specification<Item>> specifications = new ArrayList<>(3);
+        specifications.add(ItemSpecs.parent(collectionId));
+        specifications.add(ItemSpecs.stamp(Item.Type.VEVENT, null, null, null));
+        // floating events are busy in server local time, as the occurrences below are expanded without a timezone
+        specifications.add(toSpecification(collectionId, CalendarQueryPlan.InstanceRange.of(new Date(start.getTime()), new Date(end.getTime()), null)));
+
+        final PeriodList busy = new PeriodList();
+        final PeriodList tentative = new PeriodList();
+
+        try (Stream<Item> candidates = itemRepository.streamAll(combine(specifications), fetchSize)) {
+            candidates.forEach(item -> {
+                final Calendar calendar = calendarCache.getCalendar(item);
+                if (calendar == null) {
+                    return;
+                }
+                for (final Object value : getOccurrences(calendar, start, end).values()) {
+                    final Instance instance = (Instance) value;
+                    final Component component = instance.getComp();
+                    if (isValue(component, Property.STATUS, Status.VEVENT_CANCELLED.getValue())
+                            || isValue(component, Property.TRANSP, Transp.TRANSPARENT.getValue())) {
+                        continue;
+                    }
+
+                    final long busyStart = Math.max(instance.getStart().getTime(), start.getTime());
+                    final long busyEnd = Math.min(instance.getEnd().getTime(), end.getTime());
+                    if (busyStart >= busyEnd) {
+                        continue;
+                    }
+                    final Period busyPeriod = new Period(utc(busyStart), utc(busyEnd));
+                    if (isValue(component, Property.STATUS, Status.VEVENT_TENTATIVE.getValue())) {
+                        tentative.add(busyPeriod);
+                    } else {
+                        busy.add(busyPeriod);
+                    }
+                }
+            });
+        }
+
+        final VFreeBusy freeBusy = new VFreeBusy(utc(start.getTime()), utc(end.getTime()));
+        addFreeBusy(freeBusy, busy, FbType.BUSY);
+        addFreeBusy(freeBusy, tentative, FbType.BUSY_TENTATIVE);
+        return freeBusy;
+    }
+
+    private static InstanceList getOccurrences(Calendar calendar, DateTime start, DateTime end) {
+        final ComponentList events = calendar.getComponents().getComponents(Component.VEVENT);
+        for (final Object event : events) {
+            if (((Component) event).getProperty(Property.RECURRENCE_ID) == null) {
+                return expander.getOcurrences(calendar, start, end, null);
+            }
+        }
+
+        // modifications without master
+        final InstanceList instances = new InstanceList();
+        for (final Object event : events) {
+            instances.addOverride((Component) event, start, end);
+        }
+        return instances;
+    }
+
+    private static boolean isValue(Component component, String name, String value) {
+        final Property property = component.getProperty(name);
+        return property != null && value.equalsIgnoreCase(property.getValue());
+    }
+
+    private static void addFreeBusy(VFreeBusy freeBusy, PeriodList periods, FbType type) {
+        if (periods.isEmpty()) {
+            return;
+        }
+        final FreeBusy property = new FreeBusy(periods.normalise());
+        property.getParameters().add(type);
+        freeBusy.getProperties().add(property);
+    }
+
+    private static DateTime utc(long time) {
+        final DateTime dateTime = new DateTime(time);
+        dateTime.setUtc(true);
+        return dateTime;
+    }
+
+    /**
+     * Answers the time range from the in-process index if possible, from the materialized instances otherwise.
+     * Results of more than {@link #MAX_INDEXED_IDS} items are answered from the materialized instances as well,
+     * their ids would exceed the bind parameter limit of a single query.
+     */
+    private Specification<Item> toSpecification(Long collectionId, CalendarQueryPlan.InstanceRange range) {
+        if (collectionTimeIndex.isEnabled()) {
+            final long[] ids = collectionTimeIndex.findItemIds(collectionId, range.getStart(), range.getEnd(),
+                    range.getFloatingStart(), range.getFloatingEnd());
+            if (ids != null && ids.length <= MAX_INDEXED_IDS) {
+                return ItemSpecs.ids(ids);
+            }
+        }
+        return ItemSpecs.instance(range.getStart(), range.getEnd(), range.getFloatingStart(), range.getFloatingEnd());
     }
 
     /**
      * Filter query.
      * @param item The ICalendar item.
-     * @param filter The calendar filter.
-     * @return The calendar filter evaluater.
+     * @param filter The compiled calendar filter.
+     * @return True if the item matches the filter.
      */
-    public boolean filterQuery(Item item, CalendarFilter filter) {
+    public boolean filterQuery(Item item, CompiledCalendarFilter filter) {
         LOG.debug("matching item {} to filter {}", item.getUid(), filter);
-        Calendar calendar = entityConverter.convertContent(item);
+        Calendar calendar = calendarCache.getCalendar(item);
         if(calendar != null) {
-            return new CalendarFilterEvaluater().evaluate(calendar, filter);
+            return filter.matches(calendar, recurrenceCache, CalendarCache.versionOf(item));
         }
         return false;
     }
+
+    private boolean matches(Candidate candidate, CompiledCalendarFilter filter) {
+        if (candidate.calendar == null) {
+            return filterQuery(candidate.item, filter);
+        }
+        return filter.matches(candidate.calendar, recurrenceCache, CalendarCache.versionOf(candidate.item));
+    }
+
+    /**
+     * An item to be evaluated along with its calendar if it has been cached.
+     */
+    private static final class Candidate {
+        private final Item item;
+        private final Calendar calendar;
+
+        private Candidate(Item item, Calendar calendar) {
+            this.item = item;
+            this.calendar = calendar;
+        }
+    }
 }
@@ -16,6 +16,7 @@
 package org.unitedinternet.cosmo.dao.query.hibernate;
 
 import carldav.entity.Item;
+import carldav.entity.ItemTrigram;
 import carldav.repository.specification.ItemSpecs;
 import net.fortuna.ical4j.model.TimeZone;
 import org.springframework.data.jpa.domain.Specification;
@@ -23,57 +24,85 @@ import org.unitedinternet.cosmo.calendar.query.*;
 import org.unitedinternet.cosmo.model.filter.StampFilter;
 
 import java.util.ArrayList;
-import java.util.Iterator;
+import java.util.EnumSet;
 import java.util.List;
-import java.util.Locale;
+import java.util.Set;
+
+import static java.util.Locale.ENGLISH;
 
 /**
- * Translates <code>CalendarFilter</code> into <code>ItemFilter</code>
+ * Plans the execution of a <code>CalendarFilter</code>. Predicates are pushed into <code>Specification</code>s
+ * where the indexed item attributes can answer them, the remaining predicates form a residual filter
+ * that is evaluated in memory against the narrowed candidates.
  */
 public class CalendarFilterConverter {
 
     private static final String COMP_VCALENDAR = "VCALENDAR";
-    private static final String COMP_VTODO = "VTODO";
     private static final String PROP_UID = "UID";
     private static final String PROP_SUMMARY = "SUMMARY";
+    private static final Set<Item.Type> COMPONENT_TYPES = EnumSet.of(Item.Type.VEVENT, Item.Type.VTODO, Item.Type.VJOURNAL);
 
     /**
-     * Tranlsate CalendarFilter to an equivalent ItemFilter.
-     * For now, only the basic CalendarFilter is supported, which is
-     * essentially a timerange filter.  The majority of CalendarFilters
-     * will fall into this case.  More cases will be supported as they
-     * are implemented.
+     * Plans the given filter. The following predicates are pushed down:
+     * <ul>
+     * <li>comp-filter on VEVENT, VTODO and VJOURNAL, including a time-range</li>
+     * <li>prop-filter on UID and SUMMARY consisting of a single text-match</li>
+     * <li>text-match on SUMMARY, UID, LOCATION and DESCRIPTION narrowed by trigrams, see {@link ItemSpecs#trigrams}</li>
+     * </ul>
+     * Everything else, e.g. nested comp-filter, param-filter, is-not-defined or other properties,
+     * ends up in the residual filter. Time ranges on VEVENT are answered by the materialized instances, they
+     * are kept in the horizon filter for items materialized only up to a horizon, see
+     * {@link CalendarQueryPlan#getHorizonFilter()}.
      *
-     * @param calendarFilter filter to translate
-     * @return equivalent List<Specification<Item>>
+     * @param calendarFilter filter to plan
+     * @return the query plan
      */
-    public List<Specification<Item>> translateToItemFilter(CalendarFilter calendarFilter) {
-        List<Specification<Item>> specifications = new ArrayList<>(5);
+    public CalendarQueryPlan plan(CalendarFilter calendarFilter) {
+        final List<Specification<Item>> specifications = new ArrayList<>(5);
         specifications.add(ItemSpecs.parent(calendarFilter.getParent()));
-        ComponentFilter rootFilter = calendarFilter.getFilter();
+        final List<CalendarQueryPlan.InstanceRange> instanceRanges = new ArrayList<>(1);
+
+        final ComponentFilter rootFilter = calendarFilter.getFilter();
         if (!COMP_VCALENDAR.equalsIgnoreCase(rootFilter.getName())) {
-            throw new IllegalArgumentException("unsupported component filter: " + rootFilter.getName());
+            // never matches, the residual filter rejects every candidate
+            return new CalendarQueryPlan(specifications, instanceRanges, calendarFilter, null);
         }
 
-        for (Iterator it = rootFilter.getComponentFilters().iterator(); it.hasNext(); ) {
-            ComponentFilter compFilter = (ComponentFilter) it.next();
-            specifications.addAll(handleCompFilter(compFilter));
+        final ComponentFilter residualRoot = new ComponentFilter(COMP_VCALENDAR);
+        final ComponentFilter horizonRoot = new ComponentFilter(COMP_VCALENDAR);
+        for (final Object filter : rootFilter.getComponentFilters()) {
+            final ComponentFilter residual = handleCompFilter((ComponentFilter) filter, specifications, instanceRanges, horizonRoot);
+            if (residual != null) {
+                residualRoot.getComponentFilters().add(residual);
+            }
         }
 
-        return specifications;
+        final CalendarFilter horizonFilter = horizonRoot.getComponentFilters().isEmpty() ? null : toFilter(horizonRoot, calendarFilter);
+        if (residualRoot.getComponentFilters().isEmpty()) {
+            return new CalendarQueryPlan(specifications, instanceRanges, null, horizonFilter);
+        }
+        return new CalendarQueryPlan(specifications, instanceRanges, toFilter(residualRoot, calendarFilter), horizonFilter);
     }
 
-    private List<Specification<Item>> handleCompFilter(ComponentFilter compFilter) {
-        try {
-            return handleEventCompFilter(compFilter, new StampFilter(Item.Type.valueOf(compFilter.getName().toUpperCase(Locale.ENGLISH))));
-        } catch(Exception e) {
-            throw new IllegalArgumentException("unsupported component filter: " + compFilter.getName());
-        }
+    private static CalendarFilter toFilter(ComponentFilter root, CalendarFilter calendarFilter) {
+        final CalendarFilter filter = new CalendarFilter();
+        filter.setFilter(root);
+        filter.setParent(calendarFilter.getParent());
+        return filter;
     }
 
-    private List<Specification<Item>> handleEventCompFilter(ComponentFilter compFilter, StampFilter eventFilter) {
-        List<Specification<Item>> specifications = new ArrayList<>(5);
-        TimeRangeFilter trf = compFilter.getTimeRangeFilter();
+    /**
+     * @return the part of the component filter that could not be pushed down or {@code null}
+     */
+    private ComponentFilter handleCompFilter(ComponentFilter compFilter, List<Specification<Item>> specifications,
+                                             List<CalendarQueryPlan.InstanceRange> instanceRanges, ComponentFilter horizonRoot) {
+        final Item.Type type = toType(compFilter.getName());
+        if (type == null || compFilter.getIsNotDefinedFilter() != null) {
+            return compFilter;
+        }
+
+        final StampFilter eventFilter = new StampFilter(type);
+        final TimeRangeFilter trf = compFilter.getTimeRangeFilter();
 
         // handle time-range filter
         if (trf != null) {
@@ -83,43 +112,76 @@ public class CalendarFilterConverter {
             }
         }
 
-        specifications.add(ItemSpecs.stamp(eventFilter.getType(), eventFilter.getIsRecurring(), eventFilter.getStart(), eventFilter.getEnd()));
+        if (eventFilter.getType() == Item.Type.VEVENT && eventFilter.getStart() != null && eventFilter.getEnd() != null) {
+            specifications.add(ItemSpecs.stamp(eventFilter.getType(), eventFilter.getIsRecurring(), null, null));
+            instanceRanges.add(handleInstanceFilter(eventFilter));
 
-        for (Iterator it = compFilter.getComponentFilters().iterator(); it.hasNext(); ) {
-            ComponentFilter subComp = (ComponentFilter) it.next();
-            throw new IllegalArgumentException("unsupported sub component filter: " + subComp.getName());
+            // items materialized up to a horizon before the end of the range are verified against the time range
+            final ComponentFilter horizon = new ComponentFilter(compFilter.getName());
+            horizon.setTimeRangeFilter(trf);
+            horizonRoot.getComponentFilters().add(horizon);
+        } else {
+            specifications.add(ItemSpecs.stamp(eventFilter.getType(), eventFilter.getIsRecurring(), eventFilter.getStart(), eventFilter.getEnd()));
         }
 
-        for (Iterator it = compFilter.getPropFilters().iterator(); it.hasNext(); ) {
-            PropertyFilter propFilter = (PropertyFilter) it.next();
-            specifications.add(handleEventPropFilter(propFilter));
+        final ComponentFilter residual = new ComponentFilter(compFilter.getName());
+        residual.getComponentFilters().addAll(compFilter.getComponentFilters());
+
+        for (final Object filter : compFilter.getPropFilters()) {
+            final PropertyFilter propFilter = (PropertyFilter) filter;
+            if (!handlePropFilter(propFilter, specifications)) {
+                residual.getPropFilters().add(propFilter);
+            }
         }
 
-        return specifications;
+        if (residual.getComponentFilters().isEmpty() && residual.getPropFilters().isEmpty()) {
+            return null;
+        }
+        return residual;
     }
 
-    private Specification<Item> handleEventPropFilter(PropertyFilter propFilter) {
-        if (PROP_UID.equalsIgnoreCase(propFilter.getName())) {
-            return handlePropertyFilter("uid", propFilter);
-        } else if (PROP_SUMMARY.equalsIgnoreCase(propFilter.getName())) {
-            return handlePropertyFilter("displayName", propFilter);
-        } else {
-            throw new IllegalArgumentException("unsupported prop filter: " + propFilter.getName());
-        }
+    private CalendarQueryPlan.InstanceRange handleInstanceFilter(StampFilter eventFilter) {
+        // floating instances are stored as server local time, the range is shifted into the requested timezone
+        return CalendarQueryPlan.InstanceRange.of(eventFilter.getStart(), eventFilter.getEnd(), eventFilter.getTimezone());
     }
 
-    private Specification<Item> handlePropertyFilter(String propertyName, PropertyFilter propFilter) {
-        for (Iterator it = propFilter.getParamFilters().iterator(); it.hasNext(); ) {
-            ParamFilter paramFilter = (ParamFilter) it.next();
-            throw new IllegalArgumentException("unsupported param filter: " + paramFilter.getName());
+    /**
+     * Adds the specifications narrowing the candidates of the given property filter. Substring matches on indexed
+     * text properties are narrowed by their trigrams, UID and SUMMARY are verified against the item attributes.
+     *
+     * @return true if the specifications are equivalent to the property filter, false if it has to be verified
+     * by the residual filter
+     */
+    private boolean handlePropFilter(PropertyFilter propFilter, List<Specification<Item>> specifications) {
+        final TextMatchFilter textMatch = propFilter.getTextMatchFilter();
+        if (textMatch == null || !propFilter.getParamFilters().isEmpty()
+                || propFilter.getIsNotDefinedFilter() != null || propFilter.getTimeRangeFilter() != null) {
+            return false;
         }
 
-        TextMatchFilter textMatch = propFilter.getTextMatchFilter();
-        if (textMatch == null) {
-            throw new IllegalArgumentException("unsupported filter: must contain text match filter");
+        final String name = propFilter.getName().toUpperCase(ENGLISH);
+        final Set<String> trigrams = ItemTrigram.trigrams(textMatch.getValue());
+        if (!textMatch.isNegateCondition() && !trigrams.isEmpty() && ItemTrigram.PROPERTIES.contains(name)) {
+            specifications.add(ItemSpecs.trigrams(name, trigrams));
         }
 
-        return ItemSpecs.propertyLike(propertyName, textMatch.getValue(), textMatch.isCaseless(), textMatch.isNegateCondition());
+        if (PROP_UID.equals(name)) {
+            specifications.add(ItemSpecs.propertyLike("uid", textMatch.getValue(), textMatch.isCaseless(), textMatch.isNegateCondition()));
+            return true;
+        }
+        if (PROP_SUMMARY.equals(name)) {
+            specifications.add(ItemSpecs.propertyLike("displayName", textMatch.getValue(), textMatch.isCaseless(), textMatch.isNegateCondition()));
+            return true;
+        }
+        return false;
     }
 
+    private static Item.Type toType(String name) {
+        for (final Item.Type type : COMPONENT_TYPES) {
+            if (type.name().equalsIgnoreCase(name)) {
+                return type;
+            }
+        }
+        return null;
+    }
 }
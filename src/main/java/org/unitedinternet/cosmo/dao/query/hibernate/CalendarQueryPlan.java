@@ -0,0 +1,132 @@
+package org.unitedinternet.cosmo.dao.query.hibernate;
+
+import carldav.entity.Item;
+import org.springframework.data.jpa.domain.Specification;
+import org.unitedinternet.cosmo.calendar.query.CalendarFilter;
+
+import java.util.Date;
+import java.util.List;
+import java.util.TimeZone;
+
+/**
+ * Result of planning a {@link CalendarFilter}. The specifications narrow the candidates in the database, the
+ * residual filter holds every predicate that could not be expressed as a specification and has to be evaluated
+ * against the parsed candidates. Time ranges on events are kept apart from the specifications, they can be answered
+ * by the materialized instances in the database or by an in-process index.
+ *
+ * @author Kamill Sokol
+ */
+public class CalendarQueryPlan {
+
+    private final List<Specification<Item>> specifications;
+    private final List<InstanceRange> instanceRanges;
+    private final CalendarFilter residual;
+    private final CalendarFilter horizonFilter;
+
+    public CalendarQueryPlan(List<Specification<Item>> specifications, List<InstanceRange> instanceRanges, CalendarFilter residual,
+                             CalendarFilter horizonFilter) {
+        this.specifications = specifications;
+        this.instanceRanges = instanceRanges;
+        this.residual = residual;
+        this.horizonFilter = horizonFilter;
+    }
+
+    public List<Specification<Item>> getSpecifications() {
+        return specifications;
+    }
+
+    /**
+     * @return time ranges every candidate must have an overlapping instance in
+     */
+    public List<InstanceRange> getInstanceRanges() {
+        return instanceRanges;
+    }
+
+    /**
+     * @return filter to evaluate in memory or {@code null} if the specifications match exactly
+     */
+    public CalendarFilter getResidual() {
+        return residual;
+    }
+
+    /**
+     * Items whose instances are materialized only up to a horizon before the end of an instance range are
+     * candidates as long as the series overlaps the range, see {@link carldav.repository.specification.ItemSpecs#instance}.
+     * They have to be verified in memory with this filter, it holds the time ranges of the instance ranges.
+     *
+     * @return filter to evaluate against candidates materialized only up to {@link #getHorizonEnd()} or {@code null}
+     * if the plan has no instance ranges
+     */
+    public CalendarFilter getHorizonFilter() {
+        return horizonFilter;
+    }
+
+    /**
+     * @return the latest end of all instance ranges or {@code null} if the plan has no instance ranges
+     */
+    public Date getHorizonEnd() {
+        Date horizonEnd = null;
+        for (final InstanceRange range : instanceRanges) {
+            if (horizonEnd == null || range.getEnd().after(horizonEnd)) {
+                horizonEnd = range.getEnd();
+            }
+        }
+        return horizonEnd;
+    }
+
+    /**
+     * Time range on materialized instances. Floating instances are compared against the floating bounds.
+     */
+    public static class InstanceRange {
+
+        private final Date start;
+        private final Date end;
+        private final Date floatingStart;
+        private final Date floatingEnd;
+
+        public InstanceRange(Date start, Date end, Date floatingStart, Date floatingEnd) {
+            this.start = start;
+            this.end = end;
+            this.floatingStart = floatingStart;
+            this.floatingEnd = floatingEnd;
+        }
+
+        /**
+         * Creates the range of the given bounds. Floating instances are materialized in the default timezone of the
+         * server, see {@link org.unitedinternet.cosmo.calendar.InstanceIndexer}. Their bounds are the wall time of
+         * the given bounds in the given timezone converted back to the server default timezone.
+         *
+         * @param timezone timezone floating occurrences are evaluated in, {@code null} for the server default
+         */
+        public static InstanceRange of(Date start, Date end, TimeZone timezone) {
+            if (timezone == null) {
+                return new InstanceRange(start, end, start, end);
+            }
+            return new InstanceRange(start, end, toFloating(start, timezone), toFloating(end, timezone));
+        }
+
+        private static Date toFloating(Date date, TimeZone timezone) {
+            final TimeZone serverTimezone = TimeZone.getDefault();
+            final long wallTime = date.getTime() + timezone.getOffset(date.getTime());
+            // the offset at the wall time itself may differ around daylight saving transitions, hence two steps
+            final long guess = wallTime - serverTimezone.getOffset(wallTime);
+            return new Date(wallTime - serverTimezone.getOffset(guess));
+        }
+
+        public Date getStart() {
+            return start;
+        }
+
+        public Date getEnd() {
+            return end;
+        }
+
+        public Date getFloatingStart() {
+            return floatingStart;
+        }
+
+        public Date getFloatingEnd() {
+            return floatingEnd;
+        }
+    }
+}
@@ -17,7 +17,9 @@ package org.unitedinternet.cosmo.dav;
 
 import carldav.jackrabbit.webdav.io.DavInputContext;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 /**
  * An interface for DAV collection resources.
@@ -37,6 +39,13 @@ public interface DavCollection extends WebDavResource {
     WebDavResource findMember(String href)
         throws CosmoDavException;
 
+    /**
+     * Returns the member resources at the given absolute hrefs keyed by href. Hrefs that don't identify an
+     * existing resource are not contained in the result.
+     */
+    Map<String, WebDavResource> findMembers(Collection<String> hrefs)
+        throws CosmoDavException;
+
     List<WebDavResource> getCollectionMembers();
     
 }
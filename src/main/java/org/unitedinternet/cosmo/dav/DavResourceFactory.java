@@ -15,9 +15,12 @@
  */
 package org.unitedinternet.cosmo.dav;
 
+import org.unitedinternet.cosmo.calendar.CalendarCache;
+import org.unitedinternet.cosmo.calendar.TimeZoneCache;
 import org.unitedinternet.cosmo.calendar.query.CalendarQueryProcessor;
 import carldav.repository.CollectionRepository;
 import carldav.repository.ItemRepository;
+import carldav.repository.ItemTombstoneRepository;
 import carldav.entity.CollectionItem;
 import carldav.entity.Item;
 import org.unitedinternet.cosmo.security.CosmoSecurityManager;
@@ -76,10 +79,16 @@ public interface DavResourceFactory {
 
     CalendarQueryProcessor getCalendarQueryProcessor();
 
+    CalendarCache getCalendarCache();
+
+    TimeZoneCache getTimeZoneCache();
+
     CosmoSecurityManager getSecurityManager();
 
     ItemRepository getItemRepository();
 
     CollectionRepository getCollectionRepository();
 
+    ItemTombstoneRepository getItemTombstoneRepository();
+
 }
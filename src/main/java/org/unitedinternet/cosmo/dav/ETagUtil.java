@@ -1,8 +1,7 @@
 package org.unitedinternet.cosmo.dav;
 
-import org.apache.commons.codec.digest.DigestUtils;
+import carldav.entity.Item;
 
-import java.nio.charset.Charset;
 import java.util.Date;
 
 /**
@@ -10,21 +9,15 @@ import java.util.Date;
  */
 public final class ETagUtil {
 
-    public static String createETag(Long id, Date modifiedDate) {
-        if(id == null && modifiedDate == null) {
-            return null;
-        }
-
-        String uid = String.valueOf(id);
-        String modTime = modifiedDate != null ? String.valueOf(modifiedDate.getTime()) : "";
-        final String etag = uid + ":" + modTime;
-
-        return DigestUtils.md5Hex(etag.getBytes(Charset.forName("UTF-8")));
+    /**
+     * Returns the given persisted entity tag escaped, or calculates it for rows written before entity tags
+     * have been persisted.
+     */
+    public static String createETagEscaped(String etag, Long id, Date modifiedDate) {
+        return escape(etag != null ? etag : Item.createEtag(id, modifiedDate));
     }
 
-    public static String createETagEscaped(Long id, Date modifiedDate) {
-        final String eTag = createETag(id, modifiedDate);
-
+    public static String escape(String eTag) {
         if(eTag == null) {
             return null;
         }
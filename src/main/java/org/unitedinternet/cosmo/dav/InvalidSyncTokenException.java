@@ -0,0 +1,25 @@
+package org.unitedinternet.cosmo.dav;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+/**
+ * Signals a violation of the <code>DAV:valid-sync-token</code> precondition of a sync-collection report.
+ *
+ * @author Kamill Sokol
+ */
+public class InvalidSyncTokenException extends ForbiddenException {
+
+    public InvalidSyncTokenException(String message) {
+        super(message);
+    }
+
+    protected void writeContent(XMLStreamWriter writer)
+        throws XMLStreamException {
+        writer.writeStartElement("DAV:", "valid-sync-token");
+        if (getMessage() != null) {
+            writer.writeCharacters(getMessage());
+        }
+        writer.writeEndElement();
+    }
+}
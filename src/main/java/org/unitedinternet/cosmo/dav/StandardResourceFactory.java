@@ -20,7 +20,10 @@ import carldav.entity.CollectionItem;
 import carldav.entity.Item;
 import carldav.repository.CollectionRepository;
 import carldav.repository.ItemRepository;
+import carldav.repository.ItemTombstoneRepository;
 import org.springframework.util.Assert;
+import org.unitedinternet.cosmo.calendar.CalendarCache;
+import org.unitedinternet.cosmo.calendar.TimeZoneCache;
 import org.unitedinternet.cosmo.calendar.query.CalendarQueryProcessor;
 import org.unitedinternet.cosmo.dav.impl.*;
 import org.unitedinternet.cosmo.security.CosmoSecurityManager;
@@ -41,6 +44,9 @@ public class StandardResourceFactory implements DavResourceFactory, ExtendedDavC
     private CalendarQueryProcessor calendarQueryProcessor;
     private CardQueryProcessor cardQueryProcessor;
     private UserService userService;
+    private ItemTombstoneRepository itemTombstoneRepository;
+    private CalendarCache calendarCache;
+    private TimeZoneCache timeZoneCache;
 
     public StandardResourceFactory(ContentService contentService,
                                    ItemRepository itemRepository,
@@ -48,7 +54,10 @@ public class StandardResourceFactory implements DavResourceFactory, ExtendedDavC
                                    CosmoSecurityManager securityManager,
                                    CalendarQueryProcessor calendarQueryProcessor,
                                    CardQueryProcessor cardQueryProcessor,
-                                   UserService userService) {
+                                   UserService userService,
+                                   ItemTombstoneRepository itemTombstoneRepository,
+                                   CalendarCache calendarCache,
+                                   TimeZoneCache timeZoneCache) {
         this.contentService = contentService;
         this.itemRepository = itemRepository;
         this.collectionRepository = collectionRepository;
@@ -56,6 +65,9 @@ public class StandardResourceFactory implements DavResourceFactory, ExtendedDavC
         this.calendarQueryProcessor = calendarQueryProcessor;
         this.cardQueryProcessor = cardQueryProcessor;
         this.userService = userService;
+        this.itemTombstoneRepository = itemTombstoneRepository;
+        this.calendarCache = calendarCache;
+        this.timeZoneCache = timeZoneCache;
     }
 
     /**
@@ -206,6 +218,14 @@ public class StandardResourceFactory implements DavResourceFactory, ExtendedDavC
         return calendarQueryProcessor;
     }
 
+    public CalendarCache getCalendarCache() {
+        return calendarCache;
+    }
+
+    public TimeZoneCache getTimeZoneCache() {
+        return timeZoneCache;
+    }
+
     public CardQueryProcessor getCardQueryProcessor() {
         return cardQueryProcessor;
     }
@@ -222,4 +242,8 @@ public class StandardResourceFactory implements DavResourceFactory, ExtendedDavC
     public CollectionRepository getCollectionRepository() {
         return collectionRepository;
     }
+
+    public ItemTombstoneRepository getItemTombstoneRepository() {
+        return itemTombstoneRepository;
+    }
 }
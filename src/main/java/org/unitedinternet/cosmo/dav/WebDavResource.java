@@ -17,6 +17,7 @@ package org.unitedinternet.cosmo.dav;
 
 import carldav.jackrabbit.webdav.DavConstants;
 import carldav.jackrabbit.webdav.property.DavPropertyName;
+import carldav.jackrabbit.webdav.property.DavPropertyNameSet;
 import carldav.jackrabbit.webdav.property.DavPropertySet;
 import carldav.jackrabbit.webdav.version.report.Report;
 import carldav.jackrabbit.webdav.version.report.ReportInfo;
@@ -25,6 +26,7 @@ import org.unitedinternet.cosmo.dav.property.WebDavProperty;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.stream.Stream;
 
 import javax.servlet.http.HttpServletResponse;
 
@@ -164,5 +166,13 @@ public interface WebDavResource {
 
     List<WebDavResource> getMembers();
 
+    /**
+     * @return the members of this resource, possibly reduced to what is needed to render
+     * the given properties. Members are resolved while the stream is consumed.
+     * @param propNames The requested property names.
+     * @param propFindType The PROPFIND type as defined in {@link DavConstants}.
+     */
+    Stream<WebDavResource> streamMembers(DavPropertyNameSet propNames, int propFindType);
+
     String getName();
 }
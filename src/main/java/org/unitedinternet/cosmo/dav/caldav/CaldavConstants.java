@@ -75,6 +75,8 @@ public interface CaldavConstants {
     String ELEMENT_CARDDAV_ADDRESSBOOK_MULTIGET = "addressbook-multiget";
     /** The CalDAV XML element name <CALDAV:calendar-query> */
     String ELEMENT_CALDAV_CALENDAR_QUERY = "calendar-query";
+    /** The CalDAV XML element name <CALDAV:free-busy-query> */
+    String ELEMENT_CALDAV_FREE_BUSY_QUERY = "free-busy-query";
     /** The CalDAV XML element name <CARDDAV:addressbook-query> */
     String ELEMENT_CARDDAV_ADDRESSBOOK_QUERY = "addressbook-query";
 
@@ -2,19 +2,28 @@ package org.unitedinternet.cosmo.dav.caldav.property;
 
 import static carldav.CarldavConstants.ADDRESS_DATA;
 
+import carldav.jackrabbit.webdav.xml.DomUtils;
+import carldav.jackrabbit.webdav.xml.XmlStreamSerializable;
 import org.unitedinternet.cosmo.dav.caldav.CaldavConstants;
 import org.unitedinternet.cosmo.dav.property.StandardDavProperty;
 import org.unitedinternet.cosmo.icalendar.ICalendarConstants;
 
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
 /**
  * @author Kamill Sokol
  */
-public class AddressData extends StandardDavProperty implements CaldavConstants, ICalendarConstants {
+public class AddressData extends StandardDavProperty implements CaldavConstants, ICalendarConstants, XmlStreamSerializable {
 
     public AddressData(String calendarData) {
         super(ADDRESS_DATA, calendarData);
     }
 
+    public void writeTo(XMLStreamWriter writer) throws XMLStreamException {
+        DomUtils.writeElement(writer, getName().getQualifiedName(), (String) getValue());
+    }
+
 //    public Element toXml(Document document) {
 //        Element element = super.toXml(document);
 //
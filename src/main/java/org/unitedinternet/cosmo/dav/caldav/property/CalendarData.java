@@ -19,13 +19,17 @@ import static carldav.CarldavConstants.CALENDAR_DATA;
 
 import carldav.CarldavConstants;
 import carldav.jackrabbit.webdav.xml.DomUtils;
+import carldav.jackrabbit.webdav.xml.XmlStreamSerializable;
 import org.unitedinternet.cosmo.dav.caldav.CaldavConstants;
 import org.unitedinternet.cosmo.dav.property.StandardDavProperty;
 import org.unitedinternet.cosmo.icalendar.ICalendarConstants;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 
-public class CalendarData extends StandardDavProperty implements CaldavConstants, ICalendarConstants {
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+public class CalendarData extends StandardDavProperty implements CaldavConstants, ICalendarConstants, XmlStreamSerializable {
 
     public CalendarData(String calendarData) {
         super(CALENDAR_DATA, calendarData);
@@ -39,4 +43,14 @@ public class CalendarData extends StandardDavProperty implements CaldavConstants
 
         return e;
     }
+
+    public void writeTo(XMLStreamWriter writer) throws XMLStreamException {
+        DomUtils.writeStartElement(writer, getName().getQualifiedName());
+        writer.writeAttribute(PRE_CALDAV, NS_CALDAV, ATTR_CALDAV_CONTENT_TYPE, ICALENDAR_MEDIA_TYPE);
+        writer.writeAttribute(PRE_CALDAV, NS_CALDAV, ATTR_CALDAV_VERSION, ICALENDAR_VERSION);
+        if (getValue() != null) {
+            writer.writeCharacters(getValue().toString());
+        }
+        writer.writeEndElement();
+    }
 }
@@ -23,7 +23,6 @@ import carldav.jackrabbit.webdav.property.DavPropertyNameSet;
 import carldav.jackrabbit.webdav.xml.DomUtils;
 import carldav.jackrabbit.webdav.MultiStatusResponse;
 import carldav.jackrabbit.webdav.version.report.ReportInfo;
-import net.fortuna.ical4j.data.CalendarBuilder;
 import net.fortuna.ical4j.model.Calendar;
 import org.unitedinternet.cosmo.calendar.data.OutputFilter;
 import org.unitedinternet.cosmo.dav.CosmoDavException;
@@ -34,8 +33,6 @@ import org.unitedinternet.cosmo.dav.impl.DavCalendarResource;
 import org.unitedinternet.cosmo.dav.report.MultiStatusReport;
 import org.w3c.dom.Element;
 
-import java.io.StringReader;
-
 /**
  * <p>
  * Extends <code>MultiStatusReport</code> to handle CalDAV report features.
@@ -103,18 +100,17 @@ public abstract class CaldavMultiStatusReport extends MultiStatusReport implemen
         if (! resource.exists()) {
             return null;
         }
-        final String calendarString = resource.getCalendar();
         StringBuffer buffer = new StringBuffer();
         if (outputFilter != null) {
             try {
-                final Calendar calendar = new CalendarBuilder().build(new StringReader(calendarString));
+                final Calendar calendar = resource.getResourceFactory().getCalendarCache().getCalendar(resource.getItem());
                 outputFilter.filter(calendar, buffer);
             } catch (Exception exception) {
                 throw new RuntimeException(exception.getMessage(), exception);
             }
         }
         else {
-            buffer.append(calendarString);
+            buffer.append(resource.getCalendar());
         }
         return buffer.toString();
     }
@@ -0,0 +1,123 @@
+package org.unitedinternet.cosmo.dav.caldav.report;
+
+import carldav.jackrabbit.webdav.version.report.ReportInfo;
+import carldav.jackrabbit.webdav.version.report.ReportType;
+import carldav.jackrabbit.webdav.xml.DomUtils;
+import net.fortuna.ical4j.data.CalendarOutputter;
+import net.fortuna.ical4j.model.Calendar;
+import net.fortuna.ical4j.model.Period;
+import net.fortuna.ical4j.model.component.VFreeBusy;
+import net.fortuna.ical4j.model.property.CalScale;
+import net.fortuna.ical4j.model.property.ProdId;
+import net.fortuna.ical4j.model.property.Version;
+import org.unitedinternet.cosmo.calendar.query.TimeRangeFilter;
+import org.unitedinternet.cosmo.dav.BadRequestException;
+import org.unitedinternet.cosmo.dav.CosmoDavException;
+import org.unitedinternet.cosmo.dav.DavCollection;
+import org.unitedinternet.cosmo.dav.UnprocessableEntityException;
+import org.unitedinternet.cosmo.dav.WebDavResource;
+import org.unitedinternet.cosmo.dav.caldav.CaldavConstants;
+import org.unitedinternet.cosmo.dav.impl.DavCalendarCollection;
+import org.unitedinternet.cosmo.dav.report.ReportBase;
+import org.w3c.dom.Element;
+
+import javax.servlet.http.HttpServletResponse;
+import javax.xml.namespace.QName;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
+
+import static carldav.CarldavConstants.TEXT_CALENDAR_VALUE;
+import static carldav.CarldavConstants.c;
+
+/**
+ * <p>
+ * Represents the <code>CALDAV:free-busy-query</code> report (RFC 4791 section 7.10) that provides the busy time
+ * of the events in a calendar collection as a single <code>VFREEBUSY</code> component.
+ * </p>
+ * <p>
+ * Busy time is computed from the time index and the expanded occurrences of the candidate events, no calendar
+ * data is written.
+ * </p>
+ *
+ * @author Kamill Sokol
+ */
+public class FreeBusyReport extends ReportBase implements CaldavConstants {
+
+    public static final ReportType REPORT_TYPE_CALDAV_FREEBUSY =
+            ReportType.register(new QName(NS_CALDAV, ELEMENT_CALDAV_FREE_BUSY_QUERY, PRE_CALDAV), FreeBusyReport.class);
+
+    private static final String PRODUCT_ID = "-//carldav//NONSGML free-busy-query//EN";
+
+    private Period period;
+    private VFreeBusy freeBusy;
+
+    public ReportType getType() {
+        return REPORT_TYPE_CALDAV_FREEBUSY;
+    }
+
+    /**
+     * <p>
+     * Parses the report info, extracting the time range.
+     * </p>
+     * <pre>
+     * <!ELEMENT free-busy-query (time-range)>
+     * </pre>
+     */
+    protected void parseReport(ReportInfo info) throws CosmoDavException {
+        if (! getType().isRequestedReportType(info)) {
+            throw new CosmoDavException("Report not of type " + getType().getReportName());
+        }
+
+        if (! (getResource() instanceof DavCalendarCollection)) {
+            throw new UnprocessableEntityException(getType() + " report not supported for non-calendar resources");
+        }
+
+        final Element timeRange = DomUtils.getChildElement(getReportElementFrom(info), c(ELEMENT_CALDAV_TIME_RANGE));
+        if (timeRange == null) {
+            throw new BadRequestException("Expected " + ELEMENT_CALDAV_TIME_RANGE);
+        }
+
+        try {
+            period = new TimeRangeFilter(timeRange, null).getPeriod();
+        } catch (ParseException | NumberFormatException e) {
+            throw new BadRequestException("Invalid " + ELEMENT_CALDAV_TIME_RANGE + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Computes the busy time of the targeted collection. Free-busy information is not aggregated over nested
+     * collections, hence the depth is not taken into account.
+     */
+    protected void runQuery() throws CosmoDavException {
+        doQuerySelf(getResource());
+    }
+
+    protected void doQuerySelf(WebDavResource resource) throws CosmoDavException {
+        freeBusy = ((DavCalendarCollection) resource).generateFreeBusy(period);
+    }
+
+    protected void doQueryChildren(DavCollection collection) throws CosmoDavException {}
+
+    protected void output(HttpServletResponse response) throws CosmoDavException {
+        final Calendar calendar = new Calendar();
+        calendar.getProperties().add(new ProdId(PRODUCT_ID));
+        calendar.getProperties().add(Version.VERSION_2_0);
+        calendar.getProperties().add(CalScale.GREGORIAN);
+        calendar.getComponents().add(freeBusy);
+
+        try {
+            // the outputter closes the writer
+            final StringWriter writer = new StringWriter();
+            new CalendarOutputter(false).output(calendar, writer);
+            final byte[] body = writer.toString().getBytes(StandardCharsets.UTF_8);
+
+            response.setStatus(200);
+            response.setContentType(TEXT_CALENDAR_VALUE);
+            response.setContentLength(body.length);
+            response.getOutputStream().write(body);
+        } catch (Exception e) {
+            throw new CosmoDavException(e);
+        }
+    }
+}
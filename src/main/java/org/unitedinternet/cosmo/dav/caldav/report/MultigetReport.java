@@ -41,6 +41,7 @@ import java.net.URISyntaxException;
 import java.net.URL;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -159,7 +160,8 @@ public class MultigetReport extends CaldavMultiStatusReport {
         throws CosmoDavException {}
 
     /**
-     * Resolves the hrefs provided in the report info to resources.
+     * Resolves the hrefs provided in the report info to resources. Members of the targeted collection are looked
+     * up in bulk, hrefs that could not be resolved are answered with 404.
      */
     protected void runQuery()
         throws CosmoDavException {
@@ -167,8 +169,9 @@ public class MultigetReport extends CaldavMultiStatusReport {
 
         if (getResource() instanceof DavCollection) {
             DavCollection collection = (DavCollection) getResource();
+            Map<String, WebDavResource> targets = collection.findMembers(hrefs);
             for (String href : hrefs) {
-                WebDavResource target = collection.findMember(href);
+                WebDavResource target = targets.get(href);
 
                 final MultiStatus multiStatus = getMultiStatus();
                 if (target != null) {
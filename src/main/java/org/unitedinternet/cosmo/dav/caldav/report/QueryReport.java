@@ -20,16 +20,18 @@ import carldav.jackrabbit.webdav.version.report.ReportInfo;
 import carldav.jackrabbit.webdav.version.report.ReportType;
 import carldav.jackrabbit.webdav.xml.DomUtils;
 import net.fortuna.ical4j.model.component.VTimeZone;
+import org.unitedinternet.cosmo.calendar.TimeZoneCache;
 import org.unitedinternet.cosmo.calendar.query.CalendarFilter;
+import org.unitedinternet.cosmo.calendar.query.CompiledCalendarFilter;
 import org.unitedinternet.cosmo.calendar.query.UnsupportedCollationException;
 import org.unitedinternet.cosmo.dav.CosmoDavException;
 import org.unitedinternet.cosmo.dav.DavCollection;
 import org.unitedinternet.cosmo.dav.UnprocessableEntityException;
 import org.unitedinternet.cosmo.dav.WebDavResource;
 import org.unitedinternet.cosmo.dav.caldav.SupportedCollationException;
-import org.unitedinternet.cosmo.dav.caldav.TimeZoneExtractor;
 import org.unitedinternet.cosmo.dav.impl.DavCalendarCollection;
 import org.unitedinternet.cosmo.dav.impl.DavCalendarResource;
+import org.unitedinternet.cosmo.dav.impl.DavResourceBase;
 import org.w3c.dom.Element;
 
 import javax.xml.namespace.QName;
@@ -51,6 +53,7 @@ public class QueryReport extends CaldavMultiStatusReport {
             ReportType.register(new QName(NS_CALDAV, ELEMENT_CALDAV_CALENDAR_QUERY, PRE_CALDAV), QueryReport.class);
 
     private CalendarFilter queryFilter;
+    private CompiledCalendarFilter compiledFilter;
 
     // Report methods
 
@@ -80,8 +83,9 @@ public class QueryReport extends CaldavMultiStatusReport {
             setOutputFilter(findOutputFilter(info));
         }
 
-        VTimeZone tz = findTimeZone(info);
+        VTimeZone tz = findTimeZone(info, ((DavResourceBase) getResource()).getResourceFactory().getTimeZoneCache());
         queryFilter = findQueryFilter(info, tz);
+        compiledFilter = queryFilter == null ? null : CompiledCalendarFilter.compile(queryFilter);
     }
 
     /**
@@ -91,7 +95,7 @@ public class QueryReport extends CaldavMultiStatusReport {
      * </p>
      * <p>
      * If the resource is a calendar resource, attempts to match the query
-     * filter using {@link DavCalendarResource#matches(CalendarFilter)}.
+     * filter using {@link DavCalendarResource#matches(CompiledCalendarFilter)}.
      * If a non-calendar resource, throws an exception. If a collection,
      * does nothing, as query reports only match non-collection resources.
      * </p>
@@ -103,7 +107,7 @@ public class QueryReport extends CaldavMultiStatusReport {
         throws CosmoDavException {
         if (resource instanceof DavCalendarResource) {
             DavCalendarResource dcr = (DavCalendarResource) resource;
-            if (dcr.matches(queryFilter)) {
+            if (dcr.matches(compiledFilter)) {
                 getResults().add(dcr);
             }
             return;
@@ -114,8 +118,9 @@ public class QueryReport extends CaldavMultiStatusReport {
 
     /**
     * <p>
-    * Runs the report query against the members of the collection. All
-    * resulting members are added to the results list.
+    * Runs the report query against the members of the collection. The
+    * resulting members are added to the results lazily and resolved while
+    * the report is written.
     * </p>
     * <p>
     * If the collection is a calendar collection, attempts to match the query
@@ -127,14 +132,14 @@ public class QueryReport extends CaldavMultiStatusReport {
     protected void doQueryChildren(DavCollection collection) throws CosmoDavException {
         if (collection instanceof DavCalendarCollection) {
             DavCalendarCollection dcc = (DavCalendarCollection) collection;
-            getResults().addAll(dcc.findMembers(queryFilter));
+            addResults(dcc.findMembers(queryFilter));
             return;
         }
         // if it's a regular collection, there won't be any calendar resources
         // within it to match the query
     }
 
-    private static VTimeZone findTimeZone(ReportInfo info) throws CosmoDavException {
+    private static VTimeZone findTimeZone(ReportInfo info, TimeZoneCache timeZoneCache) throws CosmoDavException {
         Element propdata = DomUtils.getChildElement(getReportElementFrom(info), caldav(XML_PROP));
         if (propdata == null) {
             return null;
@@ -150,7 +155,7 @@ public class QueryReport extends CaldavMultiStatusReport {
             throw new UnprocessableEntityException("Expected text content for " + ELEMENT_CALDAV_TIMEZONE);
         }
 
-        return TimeZoneExtractor.extract(icaltz);
+        return timeZoneCache.getTimeZone(icaltz);
     }
 
     private static CalendarFilter findQueryFilter(ReportInfo info, VTimeZone tz) throws CosmoDavException {
@@ -3,54 +3,195 @@ package org.unitedinternet.cosmo.dav.impl;
 import carldav.entity.CollectionItem;
 import carldav.entity.Item;
 import carldav.jackrabbit.webdav.property.DavPropertySet;
+import carldav.repository.ItemRepository;
+import net.fortuna.ical4j.data.CalendarBuilder;
+import net.fortuna.ical4j.data.ParserException;
+import net.fortuna.ical4j.model.Calendar;
+import net.fortuna.ical4j.model.Period;
+import net.fortuna.ical4j.model.component.VFreeBusy;
+import org.apache.commons.codec.digest.DigestUtils;
 import org.slf4j.Logger;
+import org.springframework.http.MediaType;
 import org.slf4j.LoggerFactory;
+import org.unitedinternet.cosmo.calendar.CalendarMerger;
+import org.unitedinternet.cosmo.calendar.CalendarSplitter;
 import org.unitedinternet.cosmo.calendar.query.CalendarFilter;
+import org.unitedinternet.cosmo.calendar.util.CalendarUtils;
 import org.unitedinternet.cosmo.dav.*;
 import org.unitedinternet.cosmo.dav.caldav.CaldavConstants;
+import org.unitedinternet.cosmo.dav.caldav.InvalidCalendarDataException;
 import org.unitedinternet.cosmo.dav.caldav.property.*;
+import org.unitedinternet.cosmo.dav.caldav.report.FreeBusyReport;
 import org.unitedinternet.cosmo.dav.caldav.report.MultigetReport;
 import org.unitedinternet.cosmo.dav.caldav.report.QueryReport;
 import org.unitedinternet.cosmo.dav.property.DisplayName;
+import org.unitedinternet.cosmo.dav.property.SyncToken;
+import org.unitedinternet.cosmo.dav.report.SyncCollectionReport;
 import org.unitedinternet.cosmo.icalendar.ICalendarConstants;
 
 import javax.xml.namespace.QName;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.Writer;
+import java.util.Date;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
 import java.util.Set;
 
 import static carldav.CarldavConstants.*;
 
-public class DavCalendarCollection extends DavCollectionBase implements CaldavConstants, ICalendarConstants {
+public class DavCalendarCollection extends DavExportableCollection implements CaldavConstants, ICalendarConstants {
 
     private static final Logger LOG = LoggerFactory.getLogger(DavCalendarCollection.class);
 
+    static final int IMPORT_BATCH_SIZE = 500;
+
+    private static final String EXPORT_PRODUCT_ID = "-//carldav//NONSGML export//EN";
+
+    private static final Pattern MEMBER_NAME = Pattern.compile("[\\w@.+=-]+");
+
     public DavCalendarCollection(CollectionItem collection, DavResourceLocator locator, DavResourceFactory factory) throws CosmoDavException {
         super(collection, locator, factory);
 
         registerLiveProperty(SUPPORTED_CALENDAR_COMPONENT_SET);
         registerLiveProperty(SUPPORTED_CALENDAR_DATA);
         registerLiveProperty(GET_CTAG);
+        registerLiveProperty(SYNC_TOKEN);
 
         reportTypes.add(MultigetReport.REPORT_TYPE_CALDAV_MULTIGET);
         reportTypes.add(QueryReport.REPORT_TYPE_CALDAV_QUERY);
+        reportTypes.add(FreeBusyReport.REPORT_TYPE_CALDAV_FREEBUSY);
+        reportTypes.add(SyncCollectionReport.REPORT_TYPE_SYNC_COLLECTION);
     }
 
     public String getSupportedMethods() {
-        return "OPTIONS, GET, HEAD, TRACE, PROPFIND, PUT, DELETE, REPORT";
+        return "OPTIONS, GET, HEAD, TRACE, PROPFIND, POST, PUT, DELETE, REPORT";
     }
 
-    public Set<DavCalendarResource> findMembers(CalendarFilter filter) throws CosmoDavException {
-        Set<DavCalendarResource> members = new HashSet<>();
-
+    /**
+     * Returns the members matching the given filter. Members are resolved one at a time while the stream is consumed.
+     */
+    public Stream<DavCalendarResource> findMembers(CalendarFilter filter) throws CosmoDavException {
         CollectionItem collection = getItem();
         filter.setParent(collection.getId());
 
-        for (Item memberItem : getCalendarQueryProcesor().filterQuery(filter)) {
-            WebDavResource resource = memberToResource(memberItem);
-            members.add((DavCalendarResource) resource);
+        return getCalendarQueryProcesor().filterQuery(filter).map(memberItem -> (DavCalendarResource) memberToResource(memberItem));
+    }
+
+    /**
+     * Returns the busy time of the events in this collection within the given period.
+     */
+    public VFreeBusy generateFreeBusy(Period period) {
+        return getCalendarQueryProcesor().freeBusyQuery(getItem().getId(), period);
+    }
+
+    /**
+     * Imports all calendar objects of the given iCalendar stream, see {@link CalendarSplitter}. The stream is split
+     * while it is read. Every UID becomes a member named after it. UIDs already present in this collection and
+     * calendar objects that are not valid are skipped. Members are created in batches of
+     * {@link #IMPORT_BATCH_SIZE}, every batch is committed on its own and the number of members imported so far is
+     * written to the given progress writer right afterwards. A failure stops the import, members of batches
+     * committed before remain.
+     *
+     * @param reader the iCalendar stream to import
+     * @param progress receives one line per batch and per skipped calendar object, followed by a summary line
+     * @return the number of imported members
+     * @throws InvalidCalendarDataException if the stream is not a sequence of well formed VCALENDAR objects
+     */
+    public int importCalendar(Reader reader, Writer progress) throws CosmoDavException, IOException {
+        final CalendarSplitter splitter = CalendarSplitter.split(reader);
+        final CollectionItem collection = getItem();
+        final ItemRepository itemRepository = getResourceFactory().getItemRepository();
+        final Set<String> names = new HashSet<>(itemRepository.findNamesByCollectionId(collection.getId()));
+        final Set<String> uids = new HashSet<>(itemRepository.findUidsByCollectionId(collection.getId()));
+        final Map<Item, Calendar> batch = new LinkedHashMap<>();
+        int imported = 0;
+        int skipped = 0;
+
+        while (next(splitter)) {
+            final String uid = splitter.getUid();
+            final String name = MEMBER_NAME.matcher(uid).matches() ? uid + ".ics" : DigestUtils.sha1Hex(uid) + ".ics";
+            if (!uids.add(uid) || !names.add(name)) {
+                skipped++;
+                progress.write("skipped " + uid + ": already exists\n");
+                continue;
+            }
+
+            try {
+                final Calendar calendar = new CalendarBuilder(getResourceFactory().getTimeZoneCache().createRegistry())
+                        .build(new StringReader(splitter.getCalendar()));
+                calendar.validate(true);
+                if (CalendarUtils.hasMultipleComponentTypes(calendar)) {
+                    throw new InvalidCalendarDataException("Calendar object contains more than one type of component");
+                }
+
+                final Item item = new Item(Item.Type.valueOf(splitter.getComponentName()));
+                item.setName(name);
+                item.setClientCreationDate(new Date());
+                item.setClientModifiedDate(item.getClientCreationDate());
+                item.setCalendar(calendar.toString());
+                batch.put(converter.convert(item, calendar), calendar);
+            } catch (Exception e) {
+                LOG.debug("skipping {} {}", uid, e.getMessage());
+                skipped++;
+                progress.write("skipped " + uid + ": " + e.getMessage() + "\n");
+                continue;
+            }
+
+            if (batch.size() == IMPORT_BATCH_SIZE) {
+                imported += flush(batch);
+                progress.write("imported " + imported + "\n");
+                progress.flush();
+            }
+        }
+
+        imported += flush(batch);
+        skipped += splitter.getSkippedCount();
+        progress.write("imported " + imported + ", skipped " + skipped + "\n");
+        progress.flush();
+        return imported;
+    }
+
+    private static boolean next(CalendarSplitter splitter) throws CosmoDavException, IOException {
+        try {
+            return splitter.next();
+        } catch (ParserException e) {
+            throw new InvalidCalendarDataException("Failed to parse calendar object: " + e.getMessage());
+        }
+    }
+
+    private int flush(Map<Item, Calendar> batch) {
+        final int size = batch.size();
+        LOG.debug("importing {} members into {}", size, getResourcePath());
+        getContentService().createContents(getItem().getId(), batch);
+        batch.clear();
+        return size;
+    }
+
+    @Override
+    public MediaType getExportMediaType() {
+        return TEXT_CALENDAR;
+    }
+
+    /**
+     * Writes all members as a single calendar, see {@link CalendarMerger}.
+     */
+    @Override
+    protected void export(Iterator<Item> members, Writer writer) throws IOException {
+        final CalendarMerger merger = new CalendarMerger(writer, EXPORT_PRODUCT_ID);
+        while (members.hasNext()) {
+            merger.add(members.next().getCalendar());
         }
+        merger.finish();
 
-        return members;
+        if (merger.getTimezoneConflicts() > 0) {
+            LOG.debug("dropped {} conflicting timezone definitions exporting {}", merger.getTimezoneConflicts(), getResourcePath());
+        }
     }
 
     protected Set<QName> getResourceTypes() {
@@ -62,7 +203,8 @@ public class DavCalendarCollection extends DavCollectionBase implements CaldavCo
     protected void loadLiveProperties(DavPropertySet properties) {
         super.loadLiveProperties(properties);
 
-        properties.add(new GetCTag(ETagUtil.createETag(getItem().getId(), getItem().getModifiedDate())));
+        properties.add(new GetCTag(getItem().getEtag()));
+        properties.add(new SyncToken(getItem().getSyncToken()));
         properties.add(new SupportedCalendarComponentSet());
         properties.add(new SupportedCollationSet());
         properties.add(new SupportedCalendarData());
@@ -72,14 +214,16 @@ public class DavCalendarCollection extends DavCollectionBase implements CaldavCo
 
     protected void saveContent(DavItemResourceBase member) throws CosmoDavException {
         Item content = member.getItem();
-        final Item converted = converter.convert(content);
+        // the payload has been parsed while populating the member, don't parse it again
+        final Calendar calendar = member instanceof DavCalendarResource ? ((DavCalendarResource) member).getParsedCalendar() : null;
+        final Item converted = calendar == null ? converter.convert(content) : converter.convert(content, calendar);
 
         if (content.getId() != null) {
             LOG.debug("updating {} {} ", content.getMimetype(), member.getResourcePath());
-            getContentService().updateContent(converted);
+            getContentService().updateContent(converted, calendar);
         } else {
             LOG.debug("creating {} {}", content.getMimetype(), member.getResourcePath());
-            getContentService().createContent(getItem(), converted);
+            getContentService().createContent(getItem(), converted, calendar);
         }
 
         member.setItem(content);
@@ -18,8 +18,9 @@ package org.unitedinternet.cosmo.dav.impl;
 import carldav.jackrabbit.webdav.io.DavInputContext;
 import carldav.jackrabbit.webdav.property.DavPropertySet;
 import carldav.jackrabbit.webdav.version.report.ReportType;
+import net.fortuna.ical4j.model.Calendar;
 import org.apache.commons.io.IOUtils;
-import org.unitedinternet.cosmo.calendar.query.CalendarFilter;
+import org.unitedinternet.cosmo.calendar.query.CompiledCalendarFilter;
 import org.unitedinternet.cosmo.dav.CosmoDavException;
 import org.unitedinternet.cosmo.dav.DavResourceFactory;
 import org.unitedinternet.cosmo.dav.DavResourceLocator;
@@ -33,7 +34,6 @@ import carldav.entity.Item;
 import javax.servlet.http.HttpServletResponse;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.util.Set;
 
@@ -45,28 +45,40 @@ public class DavCalendarResource extends DavItemResourceBase implements ICalenda
 
     //private final Set<CustomReportType> reportTypes = new HashSet<>();
 
+    private Calendar parsedCalendar;
+
     public DavCalendarResource(Item item,
                                DavResourceLocator locator,
                                DavResourceFactory factory)
         throws CosmoDavException {
         super(item, locator, factory);
 
-        registerLiveProperty(GET_CONTENT_LENGTH);
-        registerLiveProperty(GET_CONTENT_TYPE);
-
         reportTypes.add(MultigetReport.REPORT_TYPE_CALDAV_MULTIGET);
         reportTypes.add(QueryReport.REPORT_TYPE_CALDAV_QUERY);
     }
 
     @Override
     protected void populateItem(DavInputContext inputContext) throws CosmoDavException {
+        DavInputContext dic = inputContext;
+        parsedCalendar = dic.getCalendar();
+        final String calendar = parsedCalendar.toString();
+        if (isStored(calendar)) {
+            return;
+        }
+
         super.populateItem(inputContext);
+        setCalendar(calendar);
+    }
 
-        DavInputContext dic = inputContext;
-        setCalendar(dic.getCalendarString());
+    /**
+     * @return the calendar parsed from the request body this resource has been populated with, {@code null} if it
+     * has not been populated from a request
+     */
+    public Calendar getParsedCalendar() {
+        return parsedCalendar;
     }
 
-    public boolean matches(CalendarFilter filter)
+    public boolean matches(CompiledCalendarFilter filter)
         throws CosmoDavException {
         return getCalendarQueryProcesor().filterQuery(getItem(), filter);
     }
@@ -83,12 +95,7 @@ public class DavCalendarResource extends DavItemResourceBase implements ICalenda
     public void writeHead(final HttpServletResponse response) throws IOException {
         response.setContentType(TEXT_CALENDAR_VALUE);
 
-        // Get calendar
-        String calendar = getCalendar();
-
-        // convert Calendar object to String, then to bytes (UTF-8)
-        byte[] calendarBytes = calendar.getBytes(StandardCharsets.UTF_8);
-        response.setContentLength(calendarBytes.length);
+        response.setContentLengthLong(getContentLength());
         if (getModificationTime() >= 0) {
             response.addDateHeader(LAST_MODIFIED, getModificationTime());
         }
@@ -114,9 +121,8 @@ public class DavCalendarResource extends DavItemResourceBase implements ICalenda
 
     protected void loadLiveProperties(DavPropertySet properties) {
         super.loadLiveProperties(properties);
-        byte[] calendarBytes = getCalendar().getBytes(Charset.forName("UTF-8"));
 
-        properties.add(new ContentLength((long) calendarBytes.length));
+        properties.add(new ContentLength(getContentLength()));
         properties.add(new ContentType(ICALENDAR_MEDIA_TYPE, "UTF-8"));
     }
 }
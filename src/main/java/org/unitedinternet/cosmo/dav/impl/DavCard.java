@@ -45,11 +45,8 @@ public class DavCard extends DavItemResourceBase {
     }
 
     public void writeHead(final HttpServletResponse response) throws IOException {
-        Item content = (Item) getItem();
-        final byte[] calendar = content.getCalendar().getBytes(StandardCharsets.UTF_8);
-
-        response.setContentType(content.getMimetype());
-        response.setContentLength(calendar.length);
+        response.setContentType(getItem().getMimetype());
+        response.setContentLengthLong(getContentLength());
         if (getModificationTime() >= 0) {
             response.addDateHeader(LAST_MODIFIED, getModificationTime());
         }
@@ -65,11 +62,16 @@ public class DavCard extends DavItemResourceBase {
     }
 
     protected void populateItem(DavInputContext inputContext) throws CosmoDavException {
+        Scanner scanner = new Scanner(inputContext.getInputStream()).useDelimiter("\\A");
+        final String card = scanner.next();
+        if (isStored(card)) {
+            return;
+        }
+
         super.populateItem(inputContext);
 
         Item file = getItem();
-        Scanner scanner = new Scanner(inputContext.getInputStream()).useDelimiter("\\A");
-        file.setCalendar(scanner.next());
+        file.setCalendar(card);
         converter.convertCard(file);
     }
 
@@ -2,6 +2,7 @@ package org.unitedinternet.cosmo.dav.impl;
 
 import carldav.card.CardQueryProcessor;
 import carldav.jackrabbit.webdav.property.DavPropertySet;
+import org.springframework.http.MediaType;
 import org.unitedinternet.cosmo.calendar.query.AddressbookFilter;
 import org.unitedinternet.cosmo.dav.CosmoDavException;
 import org.unitedinternet.cosmo.dav.DavResourceFactory;
@@ -10,20 +11,27 @@ import org.unitedinternet.cosmo.dav.WebDavResource;
 import org.unitedinternet.cosmo.dav.caldav.property.SupportedAddressData;
 import org.unitedinternet.cosmo.dav.caldav.report.AddressbookMultigetReport;
 import org.unitedinternet.cosmo.dav.caldav.report.AddressbookQueryReport;
+import org.unitedinternet.cosmo.dav.property.SyncToken;
+import org.unitedinternet.cosmo.dav.report.SyncCollectionReport;
 import carldav.entity.CollectionItem;
 import carldav.entity.Item;
 
 import javax.xml.namespace.QName;
+import java.io.IOException;
+import java.io.Writer;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.Set;
 
 import static carldav.CarldavConstants.SUPPORTED_ADDRESS_DATA;
+import static carldav.CarldavConstants.SYNC_TOKEN;
+import static carldav.CarldavConstants.TEXT_VCARD;
 import static carldav.CarldavConstants.carddav;
 
 /**
  * @author Kamill Sokol
  */
-public class DavCardCollection extends DavCollectionBase {
+public class DavCardCollection extends DavExportableCollection {
 
     private final CardQueryProcessor cardQueryProcessor;
 
@@ -31,11 +39,13 @@ public class DavCardCollection extends DavCollectionBase {
                              final CardQueryProcessor cardQueryProcessor) throws CosmoDavException {
         super(collection, locator, factory);
         registerLiveProperty(SUPPORTED_ADDRESS_DATA);
+        registerLiveProperty(SYNC_TOKEN);
 
         this.cardQueryProcessor = cardQueryProcessor;
 
         reportTypes.add(AddressbookMultigetReport.REPORT_TYPE_CARDDAV_MULTIGET);
         reportTypes.add(AddressbookQueryReport.REPORT_TYPE_CARDDAV_QUERY);
+        reportTypes.add(SyncCollectionReport.REPORT_TYPE_SYNC_COLLECTION);
     }
 
     @Override
@@ -57,9 +67,32 @@ public class DavCardCollection extends DavCollectionBase {
         return members;
     }
 
+    @Override
+    public MediaType getExportMediaType() {
+        return TEXT_VCARD;
+    }
+
+    /**
+     * Writes all members as a single vCard stream.
+     */
+    @Override
+    protected void export(Iterator<Item> members, Writer writer) throws IOException {
+        while (members.hasNext()) {
+            final String card = members.next().getCalendar();
+            if (card == null) {
+                continue;
+            }
+            writer.write(card);
+            if (!card.endsWith("\n")) {
+                writer.write("\r\n");
+            }
+        }
+    }
+
     @Override
     protected void loadLiveProperties(final DavPropertySet properties) {
         super.loadLiveProperties(properties);
         properties.add(new SupportedAddressData());
+        properties.add(new SyncToken(getItem().getSyncToken()));
     }
 }
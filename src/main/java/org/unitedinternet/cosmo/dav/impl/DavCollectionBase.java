@@ -18,9 +18,13 @@ package org.unitedinternet.cosmo.dav.impl;
 import carldav.entity.CollectionItem;
 import carldav.entity.Item;
 import carldav.jackrabbit.webdav.io.DavInputContext;
+import carldav.jackrabbit.webdav.property.DavPropertyNameSet;
 import carldav.jackrabbit.webdav.property.DavPropertySet;
 import carldav.jackrabbit.webdav.version.report.ReportType;
+import carldav.repository.CollectionMetadata;
+import carldav.repository.ItemMetadata;
 import org.apache.commons.lang.StringEscapeUtils;
+import org.springframework.data.domain.PageRequest;
 import org.unitedinternet.cosmo.calendar.query.CalendarQueryProcessor;
 import org.unitedinternet.cosmo.dav.*;
 import org.unitedinternet.cosmo.dav.property.*;
@@ -35,7 +39,10 @@ import java.io.UnsupportedEncodingException;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import static carldav.CarldavConstants.TEXT_HTML_VALUE;
 import static carldav.CarldavConstants.caldav;
@@ -44,9 +51,12 @@ import static org.springframework.http.HttpHeaders.LAST_MODIFIED;
 
 public class DavCollectionBase extends DavResourceBase implements WebDavResource, DavCollection {
 
-    protected final Set<ReportType> reportTypes = new HashSet<>();
+    /**
+     * Maximum number of names passed to a single IN query when looking up members in bulk.
+     */
+    static final int MEMBER_BATCH_SIZE = 500;
 
-    private List<WebDavResource> members;
+    protected final Set<ReportType> reportTypes = new HashSet<>();
 
     private CollectionItem item;
     private DavCollection parent;
@@ -54,7 +64,6 @@ public class DavCollectionBase extends DavResourceBase implements WebDavResource
     public DavCollectionBase(CollectionItem collection, DavResourceLocator locator, DavResourceFactory factory) throws CosmoDavException {
         super(locator, factory);
         this.item = collection;
-        members = new ArrayList<>();
     }
 
     public DavCollectionBase(DavResourceLocator locator, DavResourceFactory factory) throws CosmoDavException {
@@ -87,6 +96,7 @@ public class DavCollectionBase extends DavResourceBase implements WebDavResource
     public List<WebDavResource> getMembers() {
         final List<CollectionItem> collections = getResourceFactory().getCollectionRepository().findByParentId(item.getId());
         final List<Item> items = getResourceFactory().getItemRepository().findByCollectionId(item.getId());
+        final List<WebDavResource> members = new ArrayList<>(collections.size() + items.size());
 
         members.addAll(collections.stream().map(this::collectionToResource).collect(Collectors.toList()));
         members.addAll(items.stream().map(this::memberToResource).collect(Collectors.toList()));
@@ -94,15 +104,85 @@ public class DavCollectionBase extends DavResourceBase implements WebDavResource
         return Collections.unmodifiableList(members);
     }
 
+    /**
+     * Builds the members from metadata projections so that PROPFIND does not need to load any payload. Items are
+     * read in pages of {@link #MEMBER_BATCH_SIZE} ordered by name, each page starting after the last name of the
+     * previous one, hence only a single page is held in memory while the stream is consumed. Members whose
+     * metadata is not sufficient are loaded one at a time and detached again, see
+     * {@link #acceptMember(ItemMetadata, DavPropertyNameSet, int, Consumer)}.
+     */
+    @Override
+    public Stream<WebDavResource> streamMembers(DavPropertyNameSet propNames, int propFindType) {
+        final Stream<WebDavResource> collections = getResourceFactory().getCollectionRepository().findMetadataByParentId(item.getId())
+                .stream()
+                .sorted(Comparator.comparing(CollectionMetadata::getName))
+                .map(this::collectionMetadataToResource);
+
+        final Spliterator<WebDavResource> items = new Spliterators.AbstractSpliterator<WebDavResource>(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+            private Iterator<ItemMetadata> page = Collections.emptyIterator();
+            private String lastName = "";
+            private boolean lastPage;
+
+            @Override
+            public boolean tryAdvance(final Consumer<? super WebDavResource> action) {
+                if (!page.hasNext()) {
+                    if (lastPage) {
+                        return false;
+                    }
+                    final List<ItemMetadata> metadata = getResourceFactory().getItemRepository()
+                            .findMetadataByCollectionIdAndNameGreaterThan(item.getId(), lastName, new PageRequest(0, MEMBER_BATCH_SIZE));
+                    lastPage = metadata.size() < MEMBER_BATCH_SIZE;
+                    if (metadata.isEmpty()) {
+                        return false;
+                    }
+                    lastName = metadata.get(metadata.size() - 1).getName();
+                    page = metadata.iterator();
+                }
+                acceptMember(page.next(), propNames, propFindType, action);
+                return true;
+            }
+        };
+
+        return Stream.concat(collections, StreamSupport.stream(items, false));
+    }
+
+    private WebDavResource collectionMetadataToResource(CollectionMetadata metadata) {
+        final CollectionItem collection = new CollectionItem();
+        collection.setId(metadata.getId());
+        collection.setName(metadata.getName());
+        collection.setDisplayName(metadata.getDisplayName());
+        collection.setModifiedDate(metadata.getModifiedDate());
+        collection.setSyncToken(metadata.getSyncToken());
+        return collectionToResource(collection);
+    }
+
+    /**
+     * Passes the member of the given metadata to the given action. Members that have to be loaded in full are
+     * detached once the action returned, the response of a member is built within the action.
+     */
+    private void acceptMember(ItemMetadata metadata, DavPropertyNameSet propNames, int propFindType, Consumer<? super WebDavResource> action) {
+        if (DavItemMetadataResource.isSufficient(metadata, propNames, propFindType)) {
+            action.accept(new DavItemMetadataResource(metadata, getMemberLocator(metadata.getName()), getResourceFactory()));
+            return;
+        }
+
+        final Item member = getResourceFactory().getItemRepository().findOne(metadata.getId());
+        try {
+            action.accept(memberToResource(member));
+        } finally {
+            getResourceFactory().getItemRepository().detach(member);
+        }
+    }
+
     @Override
     public String getName() {
         return item.getName();
     }
 
     public List<WebDavResource> getCollectionMembers() {
+        final List<WebDavResource> members = new ArrayList<>();
         for (CollectionItem memberItem : item.getCollections()) {
-            WebDavResource resource = collectionToResource(memberItem);
-            members.add(resource);
+            members.add(collectionToResource(memberItem));
         }
         return Collections.unmodifiableList(members);
     }
@@ -110,13 +190,11 @@ public class DavCollectionBase extends DavResourceBase implements WebDavResource
     public void removeItem(WebDavResource member) {
         Item item = ((DavItemResourceBase) member).getItem();
         getContentService().removeItemFromCollection(item, this.item);
-        members.remove(member);
     }
 
     public void removeCollection(DavCollectionBase member) {
         CollectionItem hibItem = member.getItem();
         getContentService().removeCollection(hibItem);
-        members.remove(member);
     }
 
     @Override
@@ -140,20 +218,58 @@ public class DavCollectionBase extends DavResourceBase implements WebDavResource
 
     @Override
     public String getETag() {
-        return ETagUtil.createETagEscaped(getItem().getId(), getItem().getModifiedDate());
+        return ETagUtil.escape(getItem().getEtag());
     }
 
     public void addContent(WebDavResource content, DavInputContext context) throws CosmoDavException {
         DavItemResourceBase base = (DavItemResourceBase) content;
         base.populateItem(context);
-        saveContent(base);
-        members.add(base);
+        if (!base.isUnchanged()) {
+            saveContent(base);
+        }
     }
 
     public WebDavResource findMember(String href) throws CosmoDavException {
         return memberToResource(href);
     }
 
+    /**
+     * Looks up all direct members in batches of {@link #MEMBER_BATCH_SIZE} names instead of one query per href.
+     * Any other href is resolved one by one through {@link #findMember(String)}.
+     */
+    public Map<String, WebDavResource> findMembers(Collection<String> hrefs) throws CosmoDavException {
+        final Map<String, WebDavResource> result = new HashMap<>(hrefs.size());
+        final Map<String, DavResourceLocator> locators = new HashMap<>(hrefs.size());
+        final Map<String, List<String>> hrefsByName = new HashMap<>(hrefs.size());
+
+        for (final String href : hrefs) {
+            final DavResourceLocator locator = getResourceLocator().getFactory()
+                    .createResourceLocatorByUri(getResourceLocator().getContext(), href);
+
+            if (exists() && locator.itemUid() != null && getResourceLocator().getPath().equals(locator.getParentLocator().getPath())) {
+                locators.put(locator.itemUid(), locator);
+                hrefsByName.computeIfAbsent(locator.itemUid(), name -> new ArrayList<>()).add(href);
+                continue;
+            }
+
+            final WebDavResource resource = getResourceFactory().resolve(locator);
+            if (resource != null) {
+                result.put(href, resource);
+            }
+        }
+
+        final List<String> names = new ArrayList<>(locators.keySet());
+        for (int i = 0; i < names.size(); i += MEMBER_BATCH_SIZE) {
+            final List<String> batch = names.subList(i, Math.min(i + MEMBER_BATCH_SIZE, names.size()));
+            for (final Item member : getResourceFactory().getItemRepository().findByCollectionIdAndNameIn(item.getId(), batch)) {
+                final WebDavResource resource = getResourceFactory().createResource(locators.get(member.getName()), member);
+                hrefsByName.get(member.getName()).forEach(href -> result.put(href, resource));
+            }
+        }
+
+        return result;
+    }
+
     public boolean isHomeCollection() {
         return false;
     }
@@ -195,30 +311,26 @@ public class DavCollectionBase extends DavResourceBase implements WebDavResource
     }
 
     protected WebDavResource memberToResource(Item item) throws CosmoDavException {
-        String path;
-        try {
-            path = getResourcePath() + "/" + URLEncoder.encode(item.getName(), "UTF-8");
-        } catch (UnsupportedEncodingException e) {
-            throw new CosmoDavException(e);
-        }
-        DavResourceLocator locator = getResourceLocator().getFactory()
-                .createResourceLocatorByPath(getResourceLocator().getContext(),
-                        path);
-
-        return getResourceFactory().createResource(locator, item);
+        return getResourceFactory().createResource(getMemberLocator(item.getName()), item);
     }
 
     protected WebDavResource collectionToResource(CollectionItem hibItem) {
+        return getResourceFactory().createCollectionResource(getMemberLocator(hibItem.getName()), hibItem);
+    }
+
+    /**
+     * Returns the locator of the member with the given name, regardless of whether it exists.
+     */
+    public DavResourceLocator getMemberLocator(String memberName) {
         String path;
         try {
-            path = getResourcePath() + "/" + URLEncoder.encode(hibItem.getName(), "UTF-8");
+            path = getResourcePath() + "/" + URLEncoder.encode(memberName, "UTF-8");
         } catch (UnsupportedEncodingException e) {
             throw new CosmoDavException(e);
         }
-        DavResourceLocator locator = getResourceLocator().getFactory()
+        return getResourceLocator().getFactory()
                 .createResourceLocatorByPath(getResourceLocator().getContext(),
                         path);
-        return getResourceFactory().createCollectionResource(locator, hibItem);
     }
 
     protected WebDavResource memberToResource(String uri) throws CosmoDavException {
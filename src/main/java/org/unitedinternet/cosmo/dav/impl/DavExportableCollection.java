@@ -0,0 +1,107 @@
+package org.unitedinternet.cosmo.dav.impl;
+
+import carldav.entity.CollectionItem;
+import carldav.entity.Item;
+import carldav.repository.specification.ItemSpecs;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.unitedinternet.cosmo.dav.CosmoDavException;
+import org.unitedinternet.cosmo.dav.DavResourceFactory;
+import org.unitedinternet.cosmo.dav.DavResourceLocator;
+import org.unitedinternet.cosmo.dav.ETagUtil;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+import static org.springframework.http.HttpHeaders.ACCEPT;
+import static org.springframework.http.HttpHeaders.ETAG;
+import static org.springframework.http.HttpHeaders.LAST_MODIFIED;
+import static org.springframework.http.HttpHeaders.VARY;
+
+/**
+ * A collection whose members can be exported as a single document on a GET or HEAD request that explicitly
+ * accepts {@link #getExportMediaType()}, every other request gets the HTML listing. Both representations
+ * carry {@code Vary: Accept} and have distinct entity tags.
+ *
+ * @author Kamill Sokol
+ */
+public abstract class DavExportableCollection extends DavCollectionBase {
+
+    /**
+     * Number of members fetched from the database at once while exporting a collection.
+     */
+    static final int EXPORT_FETCH_SIZE = 100;
+
+    public DavExportableCollection(CollectionItem collection, DavResourceLocator locator, DavResourceFactory factory) throws CosmoDavException {
+        super(collection, locator, factory);
+    }
+
+    /**
+     * @return media type the members of this collection are exported as
+     */
+    public abstract MediaType getExportMediaType();
+
+    /**
+     * Writes the payloads of the given members as {@link #getExportMediaType()}, see
+     * {@link #writeExport(HttpServletResponse)}.
+     */
+    protected abstract void export(Iterator<Item> members, Writer writer) throws IOException;
+
+    /**
+     * @param accept the <code>Accept</code> header of a GET or HEAD request, may be {@code null}
+     * @return true if the header explicitly asks for the {@link #getExportMediaType() export} of this collection
+     * rather than its HTML representation
+     */
+    public boolean isExportAccepted(String accept) {
+        if (accept == null) {
+            return false;
+        }
+
+        try {
+            return MediaType.parseMediaTypes(accept).stream()
+                    .anyMatch(type -> !type.isWildcardType() && !type.isWildcardSubtype() && type.isCompatibleWith(getExportMediaType()));
+        } catch (InvalidMediaTypeException e) {
+            return false;
+        }
+    }
+
+    /**
+     * @return entity tag of the export, differs from {@link #getETag()} of the HTML listing
+     */
+    public String getExportETag() {
+        return ETagUtil.escape(getItem().getEtag() + "-" + getExportMediaType().getSubtype());
+    }
+
+    @Override
+    public void writeHead(final HttpServletResponse response) throws IOException {
+        super.writeHead(response);
+        response.setHeader(VARY, ACCEPT);
+    }
+
+    public void writeExportHead(final HttpServletResponse response) {
+        response.setContentType(new MediaType(getExportMediaType(), StandardCharsets.UTF_8).toString());
+        response.setHeader(VARY, ACCEPT);
+        if (getModificationTime() >= 0) {
+            response.addDateHeader(LAST_MODIFIED, getModificationTime());
+        }
+        response.setHeader(ETAG, getExportETag());
+    }
+
+    /**
+     * Streams the payloads of all members to the response. Members are read from a database cursor and written
+     * one at a time, hence memory use doesn't depend on the size of the collection.
+     */
+    public void writeExport(final HttpServletResponse response) throws IOException {
+        final Writer writer = new BufferedWriter(new OutputStreamWriter(response.getOutputStream(), StandardCharsets.UTF_8));
+        try (Stream<Item> members = getResourceFactory().getItemRepository().streamAll(ItemSpecs.parent(getItem().getId()), EXPORT_FETCH_SIZE)) {
+            export(members.iterator(), writer);
+        }
+        writer.flush();
+    }
+}
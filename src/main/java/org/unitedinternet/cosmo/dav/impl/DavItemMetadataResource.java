@@ -0,0 +1,94 @@
+package org.unitedinternet.cosmo.dav.impl;
+
+import carldav.entity.Item;
+import carldav.jackrabbit.webdav.property.DavPropertyNameSet;
+import carldav.jackrabbit.webdav.property.DavPropertySet;
+import carldav.jackrabbit.webdav.version.report.ReportType;
+import carldav.repository.ItemMetadata;
+import org.unitedinternet.cosmo.dav.CosmoDavException;
+import org.unitedinternet.cosmo.dav.DavResourceFactory;
+import org.unitedinternet.cosmo.dav.DavResourceLocator;
+import org.unitedinternet.cosmo.dav.NotFoundException;
+import org.unitedinternet.cosmo.dav.WebDavResource;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Set;
+
+import static carldav.CarldavConstants.GET_CONTENT_LENGTH;
+import static carldav.jackrabbit.webdav.DavConstants.PROPFIND_BY_PROPERTY;
+import static org.unitedinternet.cosmo.icalendar.ICalendarConstants.CARD_MEDIA_TYPE;
+
+/**
+ * Read-only member resource backed by {@link ItemMetadata} instead of a fully loaded item. Live properties are
+ * rendered by the {@link DavCalendarResource} or {@link DavCard} the resource factory creates for an item holding
+ * the metadata alone, hence without touching the payload. Writing the resource's content loads the item and
+ * delegates to its fully backed resource.
+ *
+ * @author Kamill Sokol
+ */
+public class DavItemMetadataResource extends DavItemResourceBase {
+
+    private final DavItemResourceBase metadataResource;
+
+    public DavItemMetadataResource(ItemMetadata metadata, DavResourceLocator locator, DavResourceFactory factory) throws CosmoDavException {
+        super(toItem(metadata), locator, factory);
+        this.metadataResource = (DavItemResourceBase) factory.createResource(locator, getItem());
+    }
+
+    /**
+     * Determines whether the given item can be rendered from its metadata alone for the requested properties.
+     * Only {@code getcontentlength} of calendar resources written before the length has been persisted
+     * requires the payload.
+     */
+    public static boolean isSufficient(ItemMetadata metadata, DavPropertyNameSet propNames, int propFindType) {
+        if (metadata.getContentLength() != null || CARD_MEDIA_TYPE.equals(metadata.getMimetype())) {
+            return true;
+        }
+        return propFindType == PROPFIND_BY_PROPERTY && !propNames.contains(GET_CONTENT_LENGTH);
+    }
+
+    public void writeHead(final HttpServletResponse response) throws IOException {
+        load().writeHead(response);
+    }
+
+    public void writeBody(final HttpServletResponse response) throws IOException {
+        load().writeBody(response);
+    }
+
+    @Override
+    protected Set<ReportType> getReportTypes() {
+        return metadataResource.getReportTypes();
+    }
+
+    @Override
+    protected void loadLiveProperties(DavPropertySet properties) {
+        metadataResource.loadLiveProperties(properties);
+    }
+
+    /**
+     * @return the resource backed by the fully loaded item, for the rare case the payload is requested after all
+     */
+    private WebDavResource load() {
+        final Item item = getResourceFactory().getItemRepository().findOne(getItem().getId());
+        if (item == null) {
+            throw new NotFoundException();
+        }
+        return getResourceFactory().createResource(getResourceLocator(), item);
+    }
+
+    /**
+     * @return an item that is never persisted, holding the given metadata but no payload
+     */
+    private static Item toItem(ItemMetadata metadata) {
+        final Item item = new Item();
+        item.setId(metadata.getId());
+        item.setName(metadata.getName());
+        item.setDisplayName(metadata.getDisplayName());
+        item.setModifiedDate(metadata.getModifiedDate());
+        item.setEtag(metadata.getEtag());
+        item.setMimetype(metadata.getMimetype());
+        item.setContentLength(metadata.getContentLength());
+        return item;
+    }
+}
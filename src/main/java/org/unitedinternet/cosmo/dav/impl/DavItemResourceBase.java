@@ -16,6 +16,7 @@
 package org.unitedinternet.cosmo.dav.impl;
 
 import carldav.entity.Item;
+import carldav.entity.ItemContent;
 import carldav.jackrabbit.webdav.io.DavInputContext;
 import carldav.jackrabbit.webdav.property.DavPropertySet;
 import org.apache.abdera.i18n.text.UrlEncoding;
@@ -34,6 +35,7 @@ import org.unitedinternet.cosmo.dav.property.ResourceType;
 import org.unitedinternet.cosmo.util.PathUtil;
 
 import java.io.UnsupportedEncodingException;
+import java.nio.charset.StandardCharsets;
 import java.util.Calendar;
 import java.util.Date;
 
@@ -68,6 +70,7 @@ public abstract class DavItemResourceBase extends DavResourceBase implements Web
 
     private Item item;
     private DavCollection parent;
+    private boolean unchanged;
 
     public DavItemResourceBase(Item item, DavResourceLocator locator, DavResourceFactory factory) throws CosmoDavException {
         super(locator, factory);
@@ -92,7 +95,17 @@ public abstract class DavItemResourceBase extends DavResourceBase implements Web
     }
 
     public String getETag() {
-        return ETagUtil.createETagEscaped(getItem().getId(), getItem().getModifiedDate());
+        return ETagUtil.createETagEscaped(getItem().getEtag(), getItem().getId(), getItem().getModifiedDate());
+    }
+
+    /**
+     * @return UTF-8 encoded length of the payload in bytes
+     */
+    public long getContentLength() {
+        if (item.getContentLength() != null) {
+            return item.getContentLength();
+        }
+        return item.getCalendar() == null ? 0 : item.getCalendar().getBytes(StandardCharsets.UTF_8).length;
     }
 
     @Override
@@ -141,6 +154,28 @@ public abstract class DavItemResourceBase extends DavResourceBase implements Web
         hibICalendarItem.setClientModifiedDate(hibICalendarItem.getClientCreationDate());
     }
 
+    /**
+     * @return true if the resource has been populated with a payload identical to the stored one, storing it again
+     * must be skipped
+     */
+    public boolean isUnchanged() {
+        return unchanged;
+    }
+
+    /**
+     * Compares the given payload with the stored one of an existing item. Items with an identical payload are
+     * marked as {@link #isUnchanged() unchanged}, so clients re-uploading an unchanged resource don't alter its
+     * entity tag or the state of its collection.
+     *
+     * @param payload the uploaded payload
+     * @return true if the payload is identical to the stored one
+     */
+    protected boolean isStored(String payload) {
+        final ItemContent content = item.getContent();
+        unchanged = item.getId() != null && content != null && content.getHash().equals(ItemContent.hash(payload));
+        return unchanged;
+    }
+
     protected void loadLiveProperties(DavPropertySet properties) {
         properties.add(new LastModified(item.getModifiedDate()));
         properties.add(new Etag(getETag()));
@@ -16,6 +16,7 @@
 package org.unitedinternet.cosmo.dav.impl;
 
 import carldav.jackrabbit.webdav.property.DavPropertyName;
+import carldav.jackrabbit.webdav.property.DavPropertyNameSet;
 import carldav.jackrabbit.webdav.property.DavPropertySet;
 import carldav.jackrabbit.webdav.version.report.Report;
 import carldav.jackrabbit.webdav.version.report.ReportInfo;
@@ -32,6 +33,7 @@ import org.unitedinternet.cosmo.model.hibernate.EntityConverter;
 import javax.xml.namespace.QName;
 import java.io.PrintWriter;
 import java.util.*;
+import java.util.stream.Stream;
 
 import static carldav.CarldavConstants.SUPPORTED_REPORT_SET;
 
@@ -87,6 +89,10 @@ public abstract class DavResourceBase implements ExtendedDavConstants, WebDavRes
         return new ArrayList<>();
     }
 
+    public Stream<WebDavResource> streamMembers(DavPropertyNameSet propNames, int propFindType) {
+        return getMembers().stream();
+    }
+
     public String getComplianceClass() {
         return WebDavResource.COMPLIANCE_CLASS;
     }
@@ -0,0 +1,41 @@
+package org.unitedinternet.cosmo.dav.property;
+
+import static carldav.CarldavConstants.SYNC_TOKEN;
+
+/**
+ * The <code>DAV:sync-token</code> property of a collection as defined by RFC 6578.
+ *
+ * @author Kamill Sokol
+ */
+public class SyncToken extends StandardDavProperty {
+
+    private static final String PREFIX = "http://carldav.org/ns/sync/";
+
+    public SyncToken(long token) {
+        super(SYNC_TOKEN, toUri(token));
+    }
+
+    @Override
+    public boolean isInvisibleInAllprop() {
+        return true;
+    }
+
+    public static String toUri(long token) {
+        return PREFIX + token;
+    }
+
+    /**
+     * @return the token value of the given URI or <code>null</code> if the URI is not a valid sync token
+     */
+    public static Long parse(String uri) {
+        if (uri == null || !uri.startsWith(PREFIX)) {
+            return null;
+        }
+        try {
+            final long token = Long.parseLong(uri.substring(PREFIX.length()));
+            return token < 0 ? null : token;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -25,6 +25,8 @@ import carldav.jackrabbit.webdav.version.report.ReportInfo;
 import carldav.jackrabbit.webdav.xml.DomUtils;
 import carldav.jackrabbit.webdav.xml.ElementIterator;
 import org.apache.commons.lang.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.http.MediaType;
 import org.unitedinternet.cosmo.dav.BadRequestException;
 import org.unitedinternet.cosmo.dav.ConflictException;
@@ -35,7 +37,9 @@ import org.unitedinternet.cosmo.dav.MethodNotAllowedException;
 import org.unitedinternet.cosmo.dav.NotFoundException;
 import org.unitedinternet.cosmo.dav.UnsupportedMediaTypeException;
 import org.unitedinternet.cosmo.dav.WebDavResource;
+import org.unitedinternet.cosmo.dav.impl.DavCalendarCollection;
 import org.unitedinternet.cosmo.dav.impl.DavCollectionBase;
+import org.unitedinternet.cosmo.dav.impl.DavExportableCollection;
 import org.unitedinternet.cosmo.dav.impl.DavItemResourceBase;
 import org.unitedinternet.cosmo.dav.report.ReportBase;
 import org.w3c.dom.Document;
@@ -46,11 +50,18 @@ import javax.servlet.http.HttpServletResponse;
 import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 
 import static carldav.CarldavConstants.caldav;
 
 public class BaseProvider implements DavConstants {
 
+    private static final Logger LOG = LoggerFactory.getLogger(BaseProvider.class);
+
     private static final MediaType APPLICATION_XML = MediaType.APPLICATION_XML;
     private static final MediaType TEXT_XML = MediaType.TEXT_XML;
 
@@ -107,7 +118,7 @@ public class BaseProvider implements DavConstants {
         MultiStatus ms = new MultiStatus();
         ms.addResourceProperties(resource, props, type, depth);
 
-        ResponseUtils.sendXmlResponse(response, ms, 207);
+        ResponseUtils.streamXmlResponse(response, ms, 207);
     }
 
     public void put(HttpServletRequest request, HttpServletResponse response, WebDavResource content) throws CosmoDavException, IOException {
@@ -124,6 +135,39 @@ public class BaseProvider implements DavConstants {
         response.setHeader("ETag", content.getETag());
     }
 
+    /**
+     * Imports the iCalendar stream of the request body into the calendar collection, see
+     * {@link DavCalendarCollection#importCalendar(Reader, Writer)}. Progress is streamed as plain text while batches
+     * are committed. A failure before any progress has been sent ends up as an error response, a later failure
+     * stops the import and is reported on the last line, prefixed with {@code failed:}.
+     */
+    public void post(HttpServletRequest request, HttpServletResponse response, WebDavResource resource) throws CosmoDavException, IOException {
+        if (! resource.exists()){
+            throw new NotFoundException();
+        }
+        if (! (resource instanceof DavCalendarCollection)) {
+            throw new MethodNotAllowedException(request.getMethod() + " not allowed for a non-calendar resource");
+        }
+
+        final Charset charset = request.getCharacterEncoding() != null ? Charset.forName(request.getCharacterEncoding()) : StandardCharsets.UTF_8;
+        final Reader reader = new InputStreamReader(request.getInputStream(), charset);
+
+        response.setStatus(200);
+        response.setContentType("text/plain; charset=UTF-8");
+        final Writer progress = response.getWriter();
+        try {
+            ((DavCalendarCollection) resource).importCalendar(reader, progress);
+        } catch (RuntimeException e) {
+            if (!response.isCommitted()) {
+                response.reset();
+                throw e;
+            }
+            LOG.error("import into {} failed", resource.getResourcePath(), e);
+            progress.write("failed: " + e.getMessage() + "\n");
+            progress.flush();
+        }
+    }
+
     public void delete(HttpServletRequest request,
                        HttpServletResponse response,
                        WebDavResource resource)
@@ -190,9 +234,17 @@ public class BaseProvider implements DavConstants {
             throw new NotFoundException();
         }
         checkNoRequestBody(request);
-        resource.writeHead(response);
-        if(withEntity) {
-            resource.writeBody(response);
+        if (resource instanceof DavExportableCollection && ((DavExportableCollection) resource).isExportAccepted(request.getHeader("Accept"))) {
+            final DavExportableCollection collection = (DavExportableCollection) resource;
+            collection.writeExportHead(response);
+            if (withEntity) {
+                collection.writeExport(response);
+            }
+        } else {
+            resource.writeHead(response);
+            if (withEntity) {
+                resource.writeBody(response);
+            }
         }
         response.flushBuffer();
     }
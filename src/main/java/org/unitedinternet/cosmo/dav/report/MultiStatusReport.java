@@ -39,7 +39,7 @@ public abstract class MultiStatusReport extends ReportBase {
             throws CosmoDavException {
         try {
             buildMultistatus();
-            ResponseUtils.sendXmlResponse(response, multistatus, 207);
+            ResponseUtils.streamXmlResponse(response, multistatus, 207);
         } catch (Exception e) {
             throw new CosmoDavException(e);
         }
@@ -49,10 +49,7 @@ public abstract class MultiStatusReport extends ReportBase {
 
         DavPropertyNameSet resultProps = createResultPropSpec();
 
-        for (WebDavResource result : getResults()) {
-            MultiStatusResponse msr = buildMultiStatusResponse(result, resultProps);
-            multistatus.addResponse(msr);
-        }
+        multistatus.addResponses(streamResults().map(result -> buildMultiStatusResponse(result, resultProps)));
     }
 
     protected DavPropertyNameSet createResultPropSpec() {
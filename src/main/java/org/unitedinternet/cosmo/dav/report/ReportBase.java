@@ -28,6 +28,7 @@ import org.w3c.dom.Element;
 
 import java.util.HashSet;
 import java.util.Set;
+import java.util.stream.Stream;
 
 import javax.servlet.http.HttpServletResponse;
 
@@ -41,6 +42,7 @@ public abstract class ReportBase implements Report, ExtendedDavConstants {
     private WebDavResource resource;
     private ReportInfo info;
     private HashSet<WebDavResource> results;
+    private Stream<? extends WebDavResource> resultStream;
 
     public void init(WebDavResource resource,
                      ReportInfo info)
@@ -48,6 +50,7 @@ public abstract class ReportBase implements Report, ExtendedDavConstants {
         this.resource = resource;
         this.info = info;
         this.results = new HashSet<>();
+        this.resultStream = Stream.empty();
         parseReport(info);
     }
 
@@ -153,4 +156,19 @@ public abstract class ReportBase implements Report, ExtendedDavConstants {
     public Set<WebDavResource> getResults() {
         return results;
     }
+
+    /**
+     * Adds results that are produced lazily while the report is written, e.g. read from a database cursor.
+     */
+    protected void addResults(Stream<? extends WebDavResource> results) {
+        resultStream = Stream.concat(resultStream, results);
+    }
+
+    /**
+     * @return the results of {@link #getResults()} followed by the lazily produced results. Closing the
+     * returned stream releases the underlying resources.
+     */
+    public Stream<WebDavResource> streamResults() {
+        return Stream.concat(results.stream(), resultStream);
+    }
 }
@@ -0,0 +1,230 @@
+package org.unitedinternet.cosmo.dav.report;
+
+import carldav.entity.CollectionItem;
+import carldav.entity.Item;
+import carldav.entity.ItemTombstone;
+import carldav.jackrabbit.webdav.MultiStatus;
+import carldav.jackrabbit.webdav.MultiStatusResponse;
+import carldav.jackrabbit.webdav.property.DavPropertyNameSet;
+import carldav.jackrabbit.webdav.version.report.ReportInfo;
+import carldav.jackrabbit.webdav.version.report.ReportType;
+import carldav.jackrabbit.webdav.xml.DomUtils;
+import org.springframework.data.domain.PageRequest;
+import org.unitedinternet.cosmo.dav.BadRequestException;
+import org.unitedinternet.cosmo.dav.CosmoDavException;
+import org.unitedinternet.cosmo.dav.DavCollection;
+import org.unitedinternet.cosmo.dav.DavResourceFactory;
+import org.unitedinternet.cosmo.dav.ForbiddenException;
+import org.unitedinternet.cosmo.dav.InvalidSyncTokenException;
+import org.unitedinternet.cosmo.dav.UnprocessableEntityException;
+import org.unitedinternet.cosmo.dav.WebDavResource;
+import org.unitedinternet.cosmo.dav.caldav.property.AddressData;
+import org.unitedinternet.cosmo.dav.caldav.property.CalendarData;
+import org.unitedinternet.cosmo.dav.impl.DavCalendarResource;
+import org.unitedinternet.cosmo.dav.impl.DavCard;
+import org.unitedinternet.cosmo.dav.impl.DavCollectionBase;
+import org.unitedinternet.cosmo.dav.property.SyncToken;
+import org.w3c.dom.Element;
+
+import javax.xml.namespace.QName;
+import java.util.Collections;
+import java.util.List;
+
+import static carldav.CarldavConstants.ADDRESS_DATA;
+import static carldav.CarldavConstants.CALENDAR_DATA;
+import static carldav.CarldavConstants.caldav;
+
+/**
+ * <p>
+ * Represents the <code>DAV:sync-collection</code> report (RFC 6578) that provides the members of a collection
+ * which have been changed or removed since the state identified by a sync token.
+ * </p>
+ * <p>
+ * Changes are returned in the order they have been made. If there are more changes than the client asked for,
+ * or than {@link #MAX_RESULTS}, the result is truncated, the collection is reported with status 507 and the
+ * returned sync token identifies the last change included so that the client can continue from there.
+ * </p>
+ * <p>
+ * Removals are told for a limited time only, a sync token older than the oldest recorded removal violates the
+ * <code>DAV:valid-sync-token</code> precondition and the client has to start over with an initial synchronization.
+ * </p>
+ *
+ * @author Kamill Sokol
+ */
+public class SyncCollectionReport extends MultiStatusReport {
+
+    public static final ReportType REPORT_TYPE_SYNC_COLLECTION =
+            ReportType.register(caldav(XML_SYNC_COLLECTION), SyncCollectionReport.class);
+
+    /**
+     * Maximum number of changes returned by a single report.
+     */
+    public static final int MAX_RESULTS = 500;
+
+    private long syncToken;
+    private int limit;
+
+    public ReportType getType() {
+        return REPORT_TYPE_SYNC_COLLECTION;
+    }
+
+    /**
+     * <p>
+     * Parses the report info, extracting the sync token, the sync level, the optional limit and the properties.
+     * </p>
+     * <pre>
+     * <!ELEMENT sync-collection (sync-token, sync-level, limit?, prop)>
+     * </pre>
+     */
+    protected void parseReport(ReportInfo info) throws CosmoDavException {
+        if (! getType().isRequestedReportType(info)) {
+            throw new CosmoDavException("Report not of type " + getType().getReportName());
+        }
+
+        if (! (getResource() instanceof DavCollectionBase)) {
+            throw new UnprocessableEntityException(getType() + " report not supported for non-collection resources");
+        }
+
+        setPropFindProps(info.getPropertyNameSet());
+        if (info.containsContentElement(ALLPROP)) {
+            setPropFindType(PROPFIND_ALL_PROP);
+        } else if (info.containsContentElement(PROPNAME)) {
+            setPropFindType(PROPFIND_PROPERTY_NAMES);
+        } else {
+            setPropFindType(PROPFIND_BY_PROPERTY);
+        }
+
+        final String level = textOf(info, caldav(XML_SYNC_LEVEL));
+        if (level == null) {
+            throw new BadRequestException("Expected " + XML_SYNC_LEVEL);
+        }
+        if (! "1".equals(level)) {
+            throw new ForbiddenException("Unsupported " + XML_SYNC_LEVEL + " " + level);
+        }
+
+        syncToken = parseSyncToken(textOf(info, caldav(XML_SYNC_TOKEN)));
+        limit = parseLimit(info);
+    }
+
+    protected void doQuerySelf(WebDavResource resource) throws CosmoDavException {}
+
+    protected void doQueryChildren(DavCollection collection) throws CosmoDavException {}
+
+    /**
+     * Collects the members changed and removed since the requested sync token.
+     */
+    protected void runQuery() throws CosmoDavException {
+        final DavCollectionBase collection = (DavCollectionBase) getResource();
+        final CollectionItem collectionItem = collection.getItem();
+        final DavResourceFactory factory = collection.getResourceFactory();
+        final PageRequest page = new PageRequest(0, limit + 1);
+
+        final List<Item> items = factory.getItemRepository()
+                .findByCollectionIdAndSyncTokenGreaterThanOrderBySyncToken(collectionItem.getId(), syncToken, page);
+        // removals are irrelevant for an initial synchronization
+        final List<ItemTombstone> tombstones = syncToken == 0 ? Collections.emptyList() : factory.getItemTombstoneRepository()
+                .findByCollectionIdAndSyncTokenGreaterThanOrderBySyncToken(collectionItem.getId(), syncToken, page);
+
+        final DavPropertyNameSet propspec = createResultPropSpec();
+        final MultiStatus multiStatus = getMultiStatus();
+        long lastToken = syncToken;
+        int itemIndex = 0;
+        int tombstoneIndex = 0;
+
+        while (itemIndex + tombstoneIndex < limit && (itemIndex < items.size() || tombstoneIndex < tombstones.size())) {
+            if (tombstoneIndex == tombstones.size() || (itemIndex < items.size() &&
+                    items.get(itemIndex).getSyncToken() < tombstones.get(tombstoneIndex).getSyncToken())) {
+                final Item item = items.get(itemIndex++);
+                final WebDavResource member = factory.createResource(collection.getMemberLocator(item.getName()), item);
+                multiStatus.addResponse(buildMultiStatusResponse(member, propspec));
+                lastToken = item.getSyncToken();
+            } else {
+                final ItemTombstone tombstone = tombstones.get(tombstoneIndex++);
+                final String href = collection.getMemberLocator(tombstone.getName()).getHref(false);
+                multiStatus.addResponse(new MultiStatusResponse(href, 404));
+                lastToken = tombstone.getSyncToken();
+            }
+        }
+
+        if (itemIndex < items.size() || tombstoneIndex < tombstones.size()) {
+            multiStatus.addResponse(new MultiStatusResponse(collection.getHref(), 507));
+            multiStatus.setSyncToken(SyncToken.toUri(lastToken));
+        } else {
+            multiStatus.setSyncToken(SyncToken.toUri(collectionItem.getSyncToken()));
+        }
+    }
+
+    /**
+     * Removes <code>CALDAV:calendar-data</code> and <code>CARDDAV:address-data</code> from the property spec
+     * since they don't represent real properties.
+     */
+    protected DavPropertyNameSet createResultPropSpec() {
+        final DavPropertyNameSet spec = super.createResultPropSpec();
+        spec.remove(CALENDAR_DATA);
+        spec.remove(ADDRESS_DATA);
+        return spec;
+    }
+
+    /**
+     * Includes the payload of the member as <code>CALDAV:calendar-data</code> or
+     * <code>CARDDAV:address-data</code> if it was requested.
+     */
+    protected MultiStatusResponse buildMultiStatusResponse(WebDavResource resource, DavPropertyNameSet props) {
+        final boolean calendarData = resource instanceof DavCalendarResource && getPropFindProps().contains(CALENDAR_DATA);
+        final boolean addressData = resource instanceof DavCard && getPropFindProps().contains(ADDRESS_DATA);
+
+        if (! calendarData && ! addressData) {
+            return super.buildMultiStatusResponse(resource, props);
+        }
+
+        final MultiStatusResponse msr = new MultiStatusResponse(resource, props, propfindType);
+        if (calendarData) {
+            msr.add(new CalendarData(((DavCalendarResource) resource).getCalendar()));
+        } else {
+            msr.add(new AddressData(((DavCard) resource).getItem().getCalendar()));
+        }
+        return msr;
+    }
+
+    private long parseSyncToken(String value) {
+        // an empty token requests an initial synchronization
+        if (value == null || value.isEmpty()) {
+            return 0;
+        }
+
+        final Long token = SyncToken.parse(value);
+        final CollectionItem collection = ((DavCollectionBase) getResource()).getItem();
+        if (token == null || token > collection.getSyncToken()) {
+            throw new InvalidSyncTokenException("Invalid " + XML_SYNC_TOKEN + " " + value);
+        }
+        // removals prior to the pruned sync token are no longer recorded
+        if (token < collection.getPrunedSyncToken()) {
+            throw new InvalidSyncTokenException("Expired " + XML_SYNC_TOKEN + " " + value);
+        }
+        return token;
+    }
+
+    private static int parseLimit(ReportInfo info) {
+        final List<Element> limits = info.getContentElements(caldav(XML_LIMIT));
+        if (limits.isEmpty()) {
+            return MAX_RESULTS;
+        }
+
+        final String nresults = DomUtils.getTextTrim(DomUtils.getChildElement(limits.get(0), caldav(XML_NRESULTS)));
+        final int value;
+        try {
+            value = Integer.parseInt(nresults);
+        } catch (NumberFormatException e) {
+            throw new BadRequestException("Invalid " + XML_NRESULTS + " " + nresults);
+        }
+        if (value < 1) {
+            throw new BadRequestException("Invalid " + XML_NRESULTS + " " + nresults);
+        }
+        return Math.min(value, MAX_RESULTS);
+    }
+
+    private static String textOf(ReportInfo info, QName name) {
+        final List<Element> elements = info.getContentElements(name);
+        return elements.isEmpty() ? null : DomUtils.getTextTrim(elements.get(0));
+    }
+}
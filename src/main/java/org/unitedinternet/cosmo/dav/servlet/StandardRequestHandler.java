@@ -20,6 +20,8 @@ import carldav.exception.resolver.ResponseUtils;
 import org.apache.abdera.util.EntityTag;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.Assert;
 import org.springframework.web.HttpRequestHandler;
@@ -32,7 +34,9 @@ import org.unitedinternet.cosmo.dav.MethodNotAllowedException;
 import org.unitedinternet.cosmo.dav.NotModifiedException;
 import org.unitedinternet.cosmo.dav.PreconditionFailedException;
 import org.unitedinternet.cosmo.dav.WebDavResource;
+import org.unitedinternet.cosmo.dav.impl.DavCalendarCollection;
 import org.unitedinternet.cosmo.dav.impl.DavCalendarResource;
+import org.unitedinternet.cosmo.dav.impl.DavExportableCollection;
 import org.unitedinternet.cosmo.dav.provider.BaseProvider;
 import org.unitedinternet.cosmo.dav.provider.CalendarResourceProvider;
 import org.unitedinternet.cosmo.server.ServerConstants;
@@ -41,6 +45,8 @@ import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
 
+import static carldav.CarldavConstants.TEXT_CALENDAR;
+
 /**
  * <p>
  * An implementation of the Spring {@link HttpRequestHandler} that
@@ -143,6 +149,9 @@ public class StandardRequestHandler extends AbstractController implements Server
         else if (request.getMethod().equals("REPORT")) {
             provider.report(request, response, resource);
         }
+        else if (request.getMethod().equals("POST") && resource instanceof DavCalendarCollection && isCalendarContent(request)) {
+            provider.post(request, response, resource);
+        }
         else {
             if (resource.isCollection()) {
                 throw new MethodNotAllowedException(request.getMethod() + " not allowed for a collection");
@@ -180,7 +189,7 @@ public class StandardRequestHandler extends AbstractController implements Server
             return;
         }
 
-        EntityTag resourceEtag = etag(resource);
+        EntityTag resourceEtag = etag(request, resource);
         if (resourceEtag == null) {
             return;
         }
@@ -200,7 +209,7 @@ public class StandardRequestHandler extends AbstractController implements Server
             return;
         }
 
-        EntityTag resourceEtag = etag(resource);
+        EntityTag resourceEtag = etag(request, resource);
         if (resourceEtag == null) {
             return;
         }
@@ -257,8 +266,8 @@ public class StandardRequestHandler extends AbstractController implements Server
         throw new PreconditionFailedException("If-Unmodified-Since disallows conditional request");
     }
 
-    private EntityTag etag(WebDavResource resource) {
-        String etag = resource.getETag();
+    private EntityTag etag(HttpServletRequest request, WebDavResource resource) {
+        String etag = isExport(request, resource) ? ((DavExportableCollection) resource).getExportETag() : resource.getETag();
         if (etag == null) {
             return null;
         }
@@ -269,6 +278,23 @@ public class StandardRequestHandler extends AbstractController implements Server
         return new EntityTag(etag);
     }
 
+    private boolean isExport(HttpServletRequest request, WebDavResource resource) {
+        return deservesNotModified(request) && resource instanceof DavExportableCollection
+                && ((DavExportableCollection) resource).isExportAccepted(request.getHeader("Accept"));
+    }
+
+    private boolean isCalendarContent(HttpServletRequest request) {
+        if (request.getContentType() == null) {
+            return false;
+        }
+
+        try {
+            return MediaType.parseMediaType(request.getContentType()).isCompatibleWith(TEXT_CALENDAR);
+        } catch (InvalidMediaTypeException e) {
+            return false;
+        }
+    }
+
     private boolean deservesNotModified(HttpServletRequest request) {
         return "GET".equals(request.getMethod()) || "HEAD".equals(request.getMethod());
     }
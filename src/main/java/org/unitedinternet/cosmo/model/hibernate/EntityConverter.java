@@ -16,6 +16,7 @@
 package org.unitedinternet.cosmo.model.hibernate;
 
 import carldav.entity.Item;
+import carldav.entity.ItemTrigram;
 import ezvcard.Ezvcard;
 import ezvcard.VCard;
 import net.fortuna.ical4j.data.CalendarBuilder;
@@ -28,8 +29,10 @@ import org.unitedinternet.cosmo.calendar.RecurrenceExpander;
 
 import java.io.StringReader;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
 
 import static org.unitedinternet.cosmo.icalendar.ICalendarConstants.CARD_MEDIA_TYPE;
 import static org.unitedinternet.cosmo.icalendar.ICalendarConstants.ICALENDAR_MEDIA_TYPE;
@@ -53,11 +56,28 @@ public class EntityConverter {
     }
 
     public Item convert(Item calendarItem) {
+        final Calendar calendar;
+        try {
+            calendar = new CalendarBuilder().build(new StringReader(calendarItem.getCalendar()));
+        } catch (Exception exception) {
+            throw new RuntimeException(exception.getMessage(), exception);
+        }
+        return convert(calendarItem, calendar);
+    }
+
+    /**
+     * Derives the index attributes of the given item from its already parsed payload.
+     *
+     * @param calendarItem the item to convert
+     * @param calendar the parsed payload of the item
+     * @return the converted item
+     */
+    public Item convert(Item calendarItem, Calendar calendar) {
         try {
-            final Calendar calendar = new CalendarBuilder().build(new StringReader(calendarItem.getCalendar()));
             Component component = getFirstComponent(calendar.getComponents(calendarItem.getType().name()));
             setCalendarAttributes(calendarItem, component);
             calculateEventStampIndexes(calendar, component, calendarItem);
+            indexText(calendar, calendarItem);
             calendarItem.setMimetype(ICALENDAR_MEDIA_TYPE);
             return calendarItem;
         } catch (Exception exception) {
@@ -66,9 +86,13 @@ public class EntityConverter {
     }
 
     public Calendar convertContent(Item item) {
+        return convertContent(item, TimeZoneRegistryFactory.getInstance().createRegistry());
+    }
+
+    public Calendar convertContent(Item item, TimeZoneRegistry registry) {
         if(item.getCalendar() != null) {
             try {
-                return new CalendarBuilder().build(new StringReader(item.getCalendar()));
+                return new CalendarBuilder(registry).build(new StringReader(item.getCalendar()));
             } catch (Exception exception) {
                 throw new RuntimeException(exception.getMessage(), exception);
             }
@@ -76,6 +100,31 @@ public class EntityConverter {
         return null;
     }
 
+    /**
+     * Replaces the trigrams of the indexed text properties of all components of the item's type. Trigrams that
+     * did not change are kept as they are.
+     */
+    private void indexText(Calendar calendar, Item item) {
+        final Set<String> keys = new HashSet<>();
+        for (final Object component : calendar.getComponents(item.getType().name())) {
+            for (final String name : ItemTrigram.PROPERTIES) {
+                for (final Object property : ((Component) component).getProperties(name)) {
+                    for (final String trigram : ItemTrigram.trigrams(((Property) property).getValue())) {
+                        keys.add(name + ":" + trigram);
+                    }
+                }
+            }
+        }
+
+        final Set<ItemTrigram> trigrams = item.getTrigrams();
+        trigrams.removeIf(trigram -> !keys.remove(trigram.getProperty() + ":" + trigram.getTrigram()));
+        for (final String key : keys) {
+            final int separator = key.indexOf(':');
+            trigrams.add(new ItemTrigram(item, key.substring(0, separator), key.substring(separator + 1)));
+        }
+        item.setTextIndexed(true);
+    }
+
     private void setCalendarAttributes(Item note, Component component) {
         final Property uid = component.getProperty(Property.UID);
         String uidString = null;
@@ -263,10 +312,12 @@ public class EntityConverter {
         note.setStartDate(startDateTime);
 
         // A null endDate equates to infinity, which is represented by
-        // a String that will always come after any date when compared.
+        // an instant that will always come after any date when compared.
         if(endDate!=null) {
             final DateTime endDateTime = new DateTime(endDate);
             note.setEndDate(endDateTime);
+        } else {
+            note.setEndDate(new java.util.Date(Item.OPEN_ENDED));
         }
 
         note.setFloating(isFloating);
@@ -18,6 +18,9 @@ package org.unitedinternet.cosmo.service;
 import carldav.entity.CollectionItem;
 import carldav.entity.Item;
 import carldav.entity.User;
+import net.fortuna.ical4j.model.Calendar;
+
+import java.util.Map;
 
 /**
  * Interface for services that manage access to user content.
@@ -66,6 +69,31 @@ public interface ContentService {
     Item createContent(CollectionItem parent,
                        Item content);
 
+    /**
+     * Create new content item from its already parsed payload.
+     *
+     * @param parent
+     *            parent collection of content
+     * @param content
+     *            content to create
+     * @param calendar
+     *            the parsed payload of the content, {@code null} if it has not been parsed yet
+     * @return newly created content
+     */
+    Item createContent(CollectionItem parent, Item content, Calendar calendar);
+
+    /**
+     * Create a batch of new content items from their already parsed payloads. The collection is touched once for
+     * the whole batch, every item still gets a sync token of its own. The batch is committed in a transaction of its
+     * own, a surrounding transaction is suspended meanwhile and doesn't see the collection being touched.
+     *
+     * @param parentId
+     *            id of the parent collection of content
+     * @param contents
+     *            content to create mapped to its parsed payload
+     */
+    void createContents(Long parentId, Map<Item, Calendar> contents);
+
     /**
      * Update an existing content item.
      * 
@@ -75,5 +103,16 @@ public interface ContentService {
      */
     Item updateContent(Item content);
 
+    /**
+     * Update an existing content item from its already parsed payload.
+     *
+     * @param content
+     *            content item to update
+     * @param calendar
+     *            the parsed payload of the content, {@code null} if it has not been parsed yet
+     * @return updated content item
+     */
+    Item updateContent(Item content, Calendar calendar);
+
     CollectionItem createRootItem(User user);
 }
@@ -15,28 +15,71 @@
  */
 package org.unitedinternet.cosmo.service.impl;
 
+import net.fortuna.ical4j.model.Calendar;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.Assert;
 import carldav.repository.CollectionRepository;
+import carldav.repository.ItemContentRepository;
 import carldav.repository.ItemRepository;
+import carldav.repository.ItemTombstoneRepository;
 import carldav.entity.CollectionItem;
 import carldav.entity.Item;
+import carldav.entity.ItemContent;
+import carldav.entity.ItemTombstone;
 import carldav.entity.User;
+import org.unitedinternet.cosmo.calendar.CollectionTimeIndex;
+import org.unitedinternet.cosmo.calendar.InstanceIndexer;
 import org.unitedinternet.cosmo.service.ContentService;
 
+import java.nio.charset.StandardCharsets;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import static org.unitedinternet.cosmo.dav.caldav.CaldavConstants.HOME_COLLECTION;
 
 public class StandardContentService implements ContentService {
 
+    private static final int REFRESH_BATCH_SIZE = 100;
+    private static final long ORPHAN_GRACE_PERIOD = TimeUnit.HOURS.toMillis(1);
+
     private final ItemRepository itemRepository;
     private final CollectionRepository collectionRepository;
+    private final ItemContentRepository itemContentRepository;
+    private final InstanceIndexer instanceIndexer;
+    private final ItemTombstoneRepository itemTombstoneRepository;
+    private final CollectionTimeIndex collectionTimeIndex;
+    private final long tombstoneRetention;
 
-    public StandardContentService(final ItemRepository itemRepository, CollectionRepository collectionRepository) {
+    /**
+     * @param tombstoneRetentionDays number of days removals are told to synchronizing clients, clients that haven't
+     * synchronized for longer have to start over
+     */
+    public StandardContentService(final ItemRepository itemRepository, CollectionRepository collectionRepository,
+                                  ItemContentRepository itemContentRepository, InstanceIndexer instanceIndexer,
+                                  ItemTombstoneRepository itemTombstoneRepository, CollectionTimeIndex collectionTimeIndex,
+                                  int tombstoneRetentionDays) {
         Assert.notNull(itemRepository, "itemRepository is null");
         Assert.notNull(collectionRepository, "collectionRepository is null");
+        Assert.notNull(itemContentRepository, "itemContentRepository is null");
+        Assert.notNull(instanceIndexer, "instanceIndexer is null");
+        Assert.notNull(itemTombstoneRepository, "itemTombstoneRepository is null");
+        Assert.notNull(collectionTimeIndex, "collectionTimeIndex is null");
+        Assert.isTrue(tombstoneRetentionDays > 0, "tombstoneRetentionDays must be positive");
         this.itemRepository = itemRepository;
         this.collectionRepository = collectionRepository;
+        this.itemContentRepository = itemContentRepository;
+        this.instanceIndexer = instanceIndexer;
+        this.itemTombstoneRepository = itemTombstoneRepository;
+        this.collectionTimeIndex = collectionTimeIndex;
+        this.tombstoneRetention = TimeUnit.DAYS.toMillis(tombstoneRetentionDays);
     }
 
     /**
@@ -47,7 +90,10 @@ public class StandardContentService implements ContentService {
      */
     public void removeItemFromCollection(Item item, CollectionItem collection) {
         itemRepository.delete(item);
-        collection.setModifiedDate(new Date());
+        collectionTimeIndex.remove(item);
+        final Date date = new Date();
+        final long syncToken = touch(collection, date);
+        itemTombstoneRepository.save(new ItemTombstone(collection, item.getName(), syncToken, date));
     }
 
     /**
@@ -79,6 +125,7 @@ public class StandardContentService implements ContentService {
             throw new IllegalArgumentException("cannot remove home collection");
         }
         collectionRepository.delete(collection);
+        collectionTimeIndex.evict(collection.getId());
     }
 
     /**
@@ -93,12 +140,74 @@ public class StandardContentService implements ContentService {
      * @return newly created content
      */
     public Item createContent(CollectionItem parent, Item content) {
+        return createContent(parent, content, null);
+    }
+
+    /**
+     * Create new content item from its already parsed payload.
+     *
+     * @param parent
+     *            parent collection of content
+     * @param content
+     *            content to create
+     * @param calendar
+     *            the parsed payload of the content, {@code null} if it has not been parsed yet
+     * @return newly created content
+     */
+    public Item createContent(CollectionItem parent, Item content, Calendar calendar) {
         content.setCollection(parent);
-        content.getCollection().setModifiedDate(new Date());
+        content.setSyncToken(touch(parent, new Date()));
+        storeContent(content);
+        instanceIndexer.index(content, calendar);
         itemRepository.save(content);
+        collectionTimeIndex.update(content);
+        content.updateEtag();
         return content;
     }
 
+    /**
+     * Create a batch of new content items from their already parsed payloads. The collection is touched once for
+     * the whole batch, every item still gets a sync token of its own so that paged synchronizations don't skip
+     * any of them. Every batch is committed on its own, the import of a large calendar doesn't hold the locks of
+     * a single long running transaction.
+     *
+     * @param parentId
+     *            id of the parent collection of content
+     * @param contents
+     *            content to create mapped to its parsed payload
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void createContents(Long parentId, Map<Item, Calendar> contents) {
+        if (contents.isEmpty()) {
+            return;
+        }
+        final CollectionItem parent = collectionRepository.findOne(parentId);
+
+        // look up existing payloads at once, every query would flush the growing persistence context otherwise
+        final Map<String, ItemContent> stored = new HashMap<>();
+        final Set<String> hashes = contents.keySet().stream()
+                .filter(content -> content.getCalendar() != null)
+                .map(content -> ItemContent.hash(content.getCalendar()))
+                .collect(Collectors.toSet());
+        itemContentRepository.findByHashIn(hashes).forEach(content -> stored.put(content.getHash(), content));
+
+        long syncToken = touch(parent, new Date(), contents.size()) - contents.size();
+        for (final Map.Entry<Item, Calendar> entry : contents.entrySet()) {
+            final Item content = entry.getKey();
+            content.setCollection(parent);
+            content.setSyncToken(++syncToken);
+            storeContent(content, stored::get);
+            if (content.getContent() != null) {
+                stored.putIfAbsent(content.getContent().getHash(), content.getContent());
+            }
+            instanceIndexer.index(content, entry.getValue());
+            itemRepository.save(content);
+            collectionTimeIndex.update(content);
+            content.updateEtag();
+        }
+        itemRepository.flushAndClear();
+    }
+
     /**
      * Update an existing content item.
      * 
@@ -107,13 +216,104 @@ public class StandardContentService implements ContentService {
      * @return updated content item
      */
     public Item updateContent(Item content) {
+        return updateContent(content, null);
+    }
+
+    /**
+     * Update an existing content item from its already parsed payload.
+     *
+     * @param content
+     *            content item to update
+     * @param calendar
+     *            the parsed payload of the content, {@code null} if it has not been parsed yet
+     * @return updated content item
+     */
+    public Item updateContent(Item content, Calendar calendar) {
         final Date date = new Date();
         content.setModifiedDate(date);
-        content.getCollection().setModifiedDate(date);
+        content.updateEtag();
+        content.setSyncToken(touch(content.getCollection(), date));
+        storeContent(content);
+        instanceIndexer.index(content, calendar);
         itemRepository.save(content);
+        collectionTimeIndex.update(content);
         return content;
     }
 
+    /**
+     * Expand occurrences of recurring items again once their materialized instances
+     * get close to the end of the indexed time window.
+     */
+    @Transactional
+    public void refreshInstances() {
+        final Date threshold = new Date(System.currentTimeMillis() + TimeUnit.DAYS.toMillis(instanceIndexer.getHorizonDays()) / 2);
+        Long lastId = 0L;
+        List<Item> items;
+
+        do {
+            items = itemRepository.findByInstanceHorizonBefore(threshold, lastId, new PageRequest(0, REFRESH_BATCH_SIZE));
+            for (final Item item : items) {
+                instanceIndexer.index(item);
+                itemRepository.save(item);
+                collectionTimeIndex.update(item);
+                lastId = item.getId();
+            }
+        } while (items.size() == REFRESH_BATCH_SIZE);
+    }
+
+    /**
+     * Remove payloads no longer referenced by any item, e.g. after an item has been updated or removed. Payloads are
+     * never removed along with their item, pointing an item to a shared payload therefore doesn't lock it. Payloads
+     * stored within the last hour are skipped, the storing transaction might still be running.
+     */
+    @Transactional
+    public void removeOrphanedContent() {
+        itemContentRepository.deleteOrphans(new Date(System.currentTimeMillis() - ORPHAN_GRACE_PERIOD));
+    }
+
+    /**
+     * Remove tombstones of items removed before the retention period. Collections remember the highest sync token
+     * of their removed tombstones, clients synchronizing from an older sync token have to start over.
+     */
+    @Transactional
+    public void removeExpiredTombstones() {
+        final Date threshold = new Date(System.currentTimeMillis() - tombstoneRetention);
+        for (final Object[] collection : itemTombstoneRepository.findMaxSyncTokenByCollectionRemovedBefore(threshold)) {
+            collectionRepository.updatePrunedSyncToken((Long) collection[0], (Long) collection[1]);
+        }
+        itemTombstoneRepository.deleteRemovedBefore(threshold);
+    }
+
+    /**
+     * Points the item to the stored payload matching its calendar. Identical payloads are stored once.
+     */
+    private void storeContent(Item item) {
+        storeContent(item, itemContentRepository::findByHash);
+    }
+
+    /**
+     * @param lookup resolves a stored payload by its hash, returns {@code null} if there is none
+     */
+    private void storeContent(Item item, Function<String, ItemContent> lookup) {
+        final String calendar = item.getCalendar();
+        if (calendar == null) {
+            return;
+        }
+
+        item.setContentLength((long) calendar.getBytes(StandardCharsets.UTF_8).length);
+
+        final String hash = ItemContent.hash(calendar);
+        if (item.getContent() != null && hash.equals(item.getContent().getHash())) {
+            return;
+        }
+
+        ItemContent content = lookup.apply(hash);
+        if (content == null) {
+            content = itemContentRepository.saveIfAbsent(new ItemContent(calendar));
+        }
+        item.setContent(content);
+    }
+
     @Override
     public CollectionItem createRootItem(User user) {
         CollectionItem newItem = new CollectionItem();
@@ -125,4 +325,26 @@ public class StandardContentService implements ContentService {
         collectionRepository.save(newItem);
         return newItem;
     }
+
+    /**
+     * Marks the collection as modified because one of its members changed. The change counter is incremented
+     * by the database so that concurrent writes to the same collection never observe the same value.
+     *
+     * @return the new sync token of the collection
+     */
+    private long touch(CollectionItem collection, Date date) {
+        return touch(collection, date, 1);
+    }
+
+    /**
+     * Same as {@link #touch(CollectionItem, Date)} but reserves the given number of sync tokens at once.
+     *
+     * @return the highest reserved sync token of the collection
+     */
+    private long touch(CollectionItem collection, Date date, int count) {
+        collectionRepository.incrementSyncToken(collection.getId(), count, date);
+        collection.setSyncToken(collectionRepository.findSyncTokenById(collection.getId()));
+        collection.setModifiedDate(date);
+        return collection.getSyncToken();
+    }
 }
@@ -83,7 +83,7 @@ class DavDroidTests extends IntegrationTestSupport {
         mockMvc.perform(options("/dav/{email}/calendar", USER01))
                 .andExpect(status().isOk())
                 .andExpect(header().string("DAV", "1, 3, addressbook, calendar-access"))
-                .andExpect(header().string(ALLOW, "OPTIONS, GET, HEAD, TRACE, PROPFIND, PUT, DELETE, REPORT"))
+                .andExpect(header().string(ALLOW, "OPTIONS, GET, HEAD, TRACE, PROPFIND, POST, PUT, DELETE, REPORT"))
 
         def request2 = """\
                         <propfind xmlns="DAV:">
@@ -176,7 +176,7 @@ class DavDroidTests extends IntegrationTestSupport {
                                 <D:propstat>
                                     <D:prop>
                                         <D:displayname>calendarDisplayName</D:displayname>
-                                        <CS:getctag xmlns:CS="http://calendarserver.org/ns/">157565ba8b0d3652b027c868d554f914</CS:getctag>
+                                        <CS:getctag xmlns:CS="http://calendarserver.org/ns/">2-0</CS:getctag>
                                     </D:prop>
                                     <D:status>HTTP/1.1 200 OK</D:status>
                                 </D:propstat>
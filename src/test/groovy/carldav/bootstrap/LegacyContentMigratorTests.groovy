@@ -0,0 +1,86 @@
+package carldav.bootstrap
+
+import carldav.CarldavApplication
+import carldav.repository.ItemRepository
+import org.junit.After
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.springframework.beans.factory.annotation.Autowired
+import org.springframework.boot.test.context.SpringBootTest
+import org.springframework.jdbc.core.JdbcTemplate
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner
+import org.springframework.transaction.PlatformTransactionManager
+import org.springframework.transaction.support.TransactionTemplate
+import util.TestData
+
+import javax.sql.DataSource
+
+/**
+ * Not transactional on purpose, adding and dropping the legacy column commits the current transaction.
+ *
+ * @author Kamill Sokol
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@SpringBootTest(classes = [CarldavApplication.class, TestData.class])
+class LegacyContentMigratorTests {
+
+    private static final String CALENDAR = "BEGIN:VCALENDAR\r\nVERSION:2.0\r\nPRODID:test\r\n" +
+            "BEGIN:VEVENT\r\nUID:legacy\r\nDTSTAMP:20160101T000000Z\r\nDTSTART:20160104T100000Z\r\nSUMMARY:café\r\nEND:VEVENT\r\n" +
+            "END:VCALENDAR\r\n"
+
+    @Autowired
+    private LegacyContentMigrator migrator
+
+    @Autowired
+    private ItemRepository itemRepository
+
+    @Autowired
+    private DataSource dataSource
+
+    @Autowired
+    private PlatformTransactionManager transactionManager
+
+    private JdbcTemplate jdbcTemplate
+
+    @Before
+    void before() {
+        jdbcTemplate = new JdbcTemplate(dataSource)
+        jdbcTemplate.execute("alter table item add column calendar clob")
+        jdbcTemplate.update("insert into item (id, itemname, uid, displayname, mimetype, type, synctoken, collectionid, calendar) " +
+                "values (1000, 'legacy.ics', 'legacy', 'legacy', 'text/calendar', 'VEVENT', 0, 2, ?)", CALENDAR)
+    }
+
+    @After
+    void after() {
+        def contentId = jdbcTemplate.queryForObject("select contentid from item where id = 1000", Long)
+        jdbcTemplate.update("delete from item where id = 1000")
+        jdbcTemplate.update("delete from item_content where id = ?", contentId)
+        jdbcTemplate.execute("alter table item drop column calendar")
+    }
+
+    @Test
+    void migratesLegacyColumn() {
+        migrator.onApplicationEvent(null)
+
+        new TransactionTemplate(transactionManager).execute {
+            def item = itemRepository.findOne(1000L)
+
+            assert item.content != null
+            assert item.calendar == CALENDAR
+            assert item.contentLength == CALENDAR.getBytes("UTF-8").length
+        }
+
+        assert jdbcTemplate.queryForObject("select count(*) from item where calendar is not null", Long) == 0
+    }
+
+    @Test
+    void migrationIsIdempotent() {
+        migrator.onApplicationEvent(null)
+        def contentId = jdbcTemplate.queryForObject("select contentid from item where id = 1000", Long)
+
+        migrator.onApplicationEvent(null)
+
+        assert jdbcTemplate.queryForObject("select contentid from item where id = 1000", Long) == contentId
+    }
+}
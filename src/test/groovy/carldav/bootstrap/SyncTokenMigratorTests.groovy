@@ -0,0 +1,66 @@
+package carldav.bootstrap
+
+import carldav.CarldavApplication
+import org.junit.After
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.springframework.beans.factory.annotation.Autowired
+import org.springframework.boot.test.context.SpringBootTest
+import org.springframework.jdbc.core.JdbcTemplate
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner
+import util.TestData
+
+import javax.sql.DataSource
+
+/**
+ * Not transactional on purpose, the migration commits batches of its own.
+ *
+ * @author Kamill Sokol
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@SpringBootTest(classes = [CarldavApplication.class, TestData.class])
+class SyncTokenMigratorTests {
+
+    @Autowired
+    private SyncTokenMigrator migrator
+
+    @Autowired
+    private DataSource dataSource
+
+    private JdbcTemplate jdbcTemplate
+    private long collectionSyncToken
+
+    @Before
+    void before() {
+        jdbcTemplate = new JdbcTemplate(dataSource)
+        collectionSyncToken = jdbcTemplate.queryForObject("select synctoken from collection where id = 2", Long)
+        [1000, 1001].each {
+            jdbcTemplate.update("insert into item (id, itemname, uid, displayname, mimetype, type, synctoken, collectionid) " +
+                    "values (?, ?, ?, 'legacy', 'text/calendar', 'VEVENT', 0, 2)", it, "legacy${it}.ics".toString(), "legacy${it}".toString())
+        }
+    }
+
+    @After
+    void after() {
+        jdbcTemplate.update("delete from item where id in (1000, 1001)")
+        jdbcTemplate.update("update collection set synctoken = ? where id = 2", collectionSyncToken)
+    }
+
+    @Test
+    void assignsSyncTokensFromCollection() {
+        migrator.onApplicationEvent(null)
+
+        def tokens = jdbcTemplate.queryForList("select synctoken from item where id in (1000, 1001) order by id", Long)
+        assert tokens == [collectionSyncToken + 1, collectionSyncToken + 2]
+        assert jdbcTemplate.queryForObject("select synctoken from collection where id = 2", Long) == collectionSyncToken + 2
+    }
+
+    @Test
+    void migrationIsIdempotent() {
+        migrator.onApplicationEvent(null)
+        migrator.onApplicationEvent(null)
+
+        assert jdbcTemplate.queryForObject("select synctoken from collection where id = 2", Long) == collectionSyncToken + 2
+    }
+}
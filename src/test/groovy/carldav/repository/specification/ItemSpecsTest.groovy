@@ -144,4 +144,15 @@ public class ItemSpecsTest extends IntegrationTestSupport {
 
         assert itemRepository.findAll(ItemSpecs.stamp(null, null, startDate, endDate)) == [item]
     }
-}
\ No newline at end of file
+
+    @Test
+    public void stampOpenEnded() {
+        Date startDate = Date.from(now.plusYears(50).atStartOfDay().atZone(ZoneId.systemDefault()).toInstant())
+        Date endDate = Date.from(now.plusYears(51).atStartOfDay().atZone(ZoneId.systemDefault()).toInstant())
+
+        item.setRecurring(true)
+        item.setEndDate(new Date(Item.OPEN_ENDED))
+
+        assert itemRepository.findAll(ItemSpecs.stamp(null, true, startDate, endDate)) == [item]
+    }
+}
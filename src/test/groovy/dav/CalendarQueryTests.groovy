@@ -972,4 +972,322 @@ class CalendarQueryTests extends IntegrationTestSupport {
                 .andExpect(textXmlContentType())
                 .andExpect(xml(response2))
     }
+
+    @Test
+    void timeRangeRecurringEvent() {
+        def request1 = """\
+                        BEGIN:VCALENDAR
+                        VERSION:2.0
+                        PRODID:-//Example Corp.//CalDAV Client//EN
+                        BEGIN:VEVENT
+                        DTSTAMP:20161230T185918Z
+                        UID:2cb1a3a4-5e33-4c6a-8cd5-51d1c7a0e4c7
+                        DTSTART:20170102T100000Z
+                        DTEND:20170102T110000Z
+                        RRULE:FREQ=WEEKLY;COUNT=10
+                        SUMMARY:weekly
+                        END:VEVENT
+                        END:VCALENDAR
+                        """.stripIndent()
+
+        mockMvc.perform(put("/dav/{email}/calendar/2cb1a3a4-5e33-4c6a-8cd5-51d1c7a0e4c7.ics", USER01)
+                .contentType(TEXT_CALENDAR)
+                .content(request1)
+                .header("If-None-Match", "*"))
+                .andExpect(status().isCreated())
+
+        def request2 = """\
+                        <C:calendar-query xmlns:C="urn:ietf:params:xml:ns:caldav" xmlns:D="DAV:">
+                          <C:filter>
+                            <C:comp-filter name="VCALENDAR">
+                              <C:comp-filter name="VEVENT">
+                                <C:time-range start="20170103T000000Z" end="20170104T000000Z"/>
+                              </C:comp-filter>
+                            </C:comp-filter>
+                          </C:filter>
+                        </C:calendar-query>"""
+
+        mockMvc.perform(report("/dav/{email}/calendar/", USER01)
+                .contentType(APPLICATION_XML)
+                .content(request2)
+                .header("Depth", "1"))
+                .andExpect(status().isMultiStatus())
+                .andExpect(textXmlContentType())
+                .andExpect(xml("""<D:multistatus xmlns:D="DAV:" />"""))
+
+        def request3 = """\
+                        <C:calendar-query xmlns:C="urn:ietf:params:xml:ns:caldav" xmlns:D="DAV:">
+                          <C:filter>
+                            <C:comp-filter name="VCALENDAR">
+                              <C:comp-filter name="VEVENT">
+                                <C:time-range start="20170109T103000Z" end="20170109T120000Z"/>
+                              </C:comp-filter>
+                            </C:comp-filter>
+                          </C:filter>
+                        </C:calendar-query>"""
+
+        def response3 = """\
+                        <D:multistatus xmlns:D="DAV:">
+                          <D:response>
+                            <D:href>/carldav/dav/test01@localhost.de/calendar/2cb1a3a4-5e33-4c6a-8cd5-51d1c7a0e4c7.ics</D:href>
+                            <D:status>HTTP/1.1 200 OK</D:status>
+                          </D:response>
+                        </D:multistatus>"""
+
+        mockMvc.perform(report("/dav/{email}/calendar/", USER01)
+                .contentType(APPLICATION_XML)
+                .content(request3)
+                .header("Depth", "1"))
+                .andExpect(status().isMultiStatus())
+                .andExpect(textXmlContentType())
+                .andExpect(xml(response3))
+    }
+
+    @Test
+    void timeRangeOpenEndedRecurringEvent() {
+        def request1 = """\
+                        BEGIN:VCALENDAR
+                        VERSION:2.0
+                        PRODID:-//Example Corp.//CalDAV Client//EN
+                        BEGIN:VEVENT
+                        DTSTAMP:20161230T185918Z
+                        UID:9a3c0f7e-0c43-4a5e-a3a6-2b3f0b7d9e11
+                        DTSTART:20170102T100000Z
+                        DTEND:20170102T110000Z
+                        RRULE:FREQ=WEEKLY
+                        SUMMARY:weekly forever
+                        END:VEVENT
+                        END:VCALENDAR
+                        """.stripIndent()
+
+        mockMvc.perform(put("/dav/{email}/calendar/9a3c0f7e-0c43-4a5e-a3a6-2b3f0b7d9e11.ics", USER01)
+                .contentType(TEXT_CALENDAR)
+                .content(request1)
+                .header("If-None-Match", "*"))
+                .andExpect(status().isCreated())
+
+        def request2 = """\
+                        <C:calendar-query xmlns:C="urn:ietf:params:xml:ns:caldav" xmlns:D="DAV:">
+                          <C:filter>
+                            <C:comp-filter name="VCALENDAR">
+                              <C:comp-filter name="VEVENT">
+                                <C:time-range start="20500101T000000Z" end="20500201T000000Z"/>
+                              </C:comp-filter>
+                            </C:comp-filter>
+                          </C:filter>
+                        </C:calendar-query>"""
+
+        def response2 = """\
+                        <D:multistatus xmlns:D="DAV:">
+                          <D:response>
+                            <D:href>/carldav/dav/test01@localhost.de/calendar/9a3c0f7e-0c43-4a5e-a3a6-2b3f0b7d9e11.ics</D:href>
+                            <D:status>HTTP/1.1 200 OK</D:status>
+                          </D:response>
+                        </D:multistatus>"""
+
+        mockMvc.perform(report("/dav/{email}/calendar/", USER01)
+                .contentType(APPLICATION_XML)
+                .content(request2)
+                .header("Depth", "1"))
+                .andExpect(status().isMultiStatus())
+                .andExpect(textXmlContentType())
+                .andExpect(xml(response2))
+    }
+
+    @Test
+    void residualPropFilter() {
+        def request1 = """\
+                        <C:calendar-query xmlns:C="urn:ietf:params:xml:ns:caldav" xmlns:D="DAV:">
+                          <C:filter>
+                            <C:comp-filter name="VCALENDAR">
+                              <C:comp-filter name="VEVENT">
+                                <C:prop-filter name="SUMMARY">
+                                  <C:text-match collation="i;ascii-casemap">vevent</C:text-match>
+                                </C:prop-filter>
+                                <C:prop-filter name="LOCATION">
+                                  <C:text-match collation="i;ascii-casemap">LOCATION</C:text-match>
+                                </C:prop-filter>
+                                <C:comp-filter name="VALARM">
+                                  <C:prop-filter name="ACTION">
+                                    <C:text-match collation="i;octet">DISPLAY</C:text-match>
+                                  </C:prop-filter>
+                                </C:comp-filter>
+                              </C:comp-filter>
+                            </C:comp-filter>
+                          </C:filter>
+                        </C:calendar-query>"""
+
+        def response1 = """\
+                        <D:multistatus xmlns:D="DAV:">
+                          <D:response>
+                            <D:href>/carldav/dav/test01@localhost.de/calendar/e94d89d2-b195-4128-a9a8-be83a873deae.ics</D:href>
+                            <D:status>HTTP/1.1 200 OK</D:status>
+                          </D:response>
+                        </D:multistatus>"""
+
+        mockMvc.perform(report("/dav/{email}/calendar/", USER01)
+                .contentType(APPLICATION_XML)
+                .content(request1)
+                .header("Depth", "1"))
+                .andExpect(status().isMultiStatus())
+                .andExpect(textXmlContentType())
+                .andExpect(xml(response1))
+
+        def request2 = request1.replace("DISPLAY", "AUDIO")
+
+        mockMvc.perform(report("/dav/{email}/calendar/", USER01)
+                .contentType(APPLICATION_XML)
+                .content(request2)
+                .header("Depth", "1"))
+                .andExpect(status().isMultiStatus())
+                .andExpect(textXmlContentType())
+                .andExpect(xml("""<D:multistatus xmlns:D="DAV:" />"""))
+    }
+
+    @Test
+    void textMatchDescriptionSubstring() {
+        def request1 = """\
+                        <C:calendar-query xmlns:C="urn:ietf:params:xml:ns:caldav" xmlns:D="DAV:">
+                          <C:filter>
+                            <C:comp-filter name="VCALENDAR">
+                              <C:comp-filter name="VEVENT">
+                                <C:prop-filter name="DESCRIPTION">
+                                  <C:text-match collation="i;ascii-casemap">escri</C:text-match>
+                                </C:prop-filter>
+                              </C:comp-filter>
+                            </C:comp-filter>
+                          </C:filter>
+                        </C:calendar-query>"""
+
+        def response1 = """\
+                        <D:multistatus xmlns:D="DAV:">
+                          <D:response>
+                            <D:href>/carldav/dav/test01@localhost.de/calendar/e94d89d2-b195-4128-a9a8-be83a873deae.ics</D:href>
+                            <D:status>HTTP/1.1 200 OK</D:status>
+                          </D:response>
+                        </D:multistatus>"""
+
+        [request1, request1.replace("i;ascii-casemap", "i;octet").replace("escri", "ESCRI")].each {
+            mockMvc.perform(report("/dav/{email}/calendar/", USER01)
+                    .contentType(APPLICATION_XML)
+                    .content(it)
+                    .header("Depth", "1"))
+                    .andExpect(status().isMultiStatus())
+                    .andExpect(xml(response1))
+        }
+
+        [request1.replace("escri", "escrx"), request1.replace("i;ascii-casemap", "i;octet")].each {
+            mockMvc.perform(report("/dav/{email}/calendar/", USER01)
+                    .contentType(APPLICATION_XML)
+                    .content(it)
+                    .header("Depth", "1"))
+                    .andExpect(status().isMultiStatus())
+                    .andExpect(xml("""<D:multistatus xmlns:D="DAV:" />"""))
+        }
+    }
+
+    @Test
+    void residualIsNotDefined() {
+        def request1 = """\
+                        <C:calendar-query xmlns:C="urn:ietf:params:xml:ns:caldav" xmlns:D="DAV:">
+                          <C:filter>
+                            <C:comp-filter name="VCALENDAR">
+                              <C:comp-filter name="VEVENT">
+                                <C:is-not-defined/>
+                              </C:comp-filter>
+                              <C:comp-filter name="VTODO">
+                                <C:prop-filter name="DUE">
+                                  <C:is-not-defined/>
+                                </C:prop-filter>
+                              </C:comp-filter>
+                            </C:comp-filter>
+                          </C:filter>
+                        </C:calendar-query>"""
+
+        def response1 = """\
+                        <D:multistatus xmlns:D="DAV:">
+                          <D:response>
+                            <D:href>/carldav/dav/test01@localhost.de/calendar/6f490b02-77d7-442e-abd3-1e0bb14c3259.ics</D:href>
+                            <D:status>HTTP/1.1 200 OK</D:status>
+                          </D:response>
+                        </D:multistatus>"""
+
+        mockMvc.perform(report("/dav/{email}/calendar/", USER01)
+                .contentType(APPLICATION_XML)
+                .content(request1)
+                .header("Depth", "1"))
+                .andExpect(status().isMultiStatus())
+                .andExpect(textXmlContentType())
+                .andExpect(xml(response1))
+    }
+
+    @Test
+    void timeRangeBeyondInstanceHorizon() {
+        def request1 = """\
+                        BEGIN:VCALENDAR
+                        VERSION:2.0
+                        PRODID:-//Example Corp.//CalDAV Client//EN
+                        BEGIN:VEVENT
+                        DTSTAMP:20161230T185918Z
+                        UID:5a1b3f7e-7c43-4a2f-9d8e-0e0f7a3f2b11
+                        DTSTART:20170102T100000Z
+                        DTEND:20170102T110000Z
+                        RRULE:FREQ=WEEKLY
+                        SUMMARY:every monday
+                        END:VEVENT
+                        END:VCALENDAR
+                        """.stripIndent()
+
+        mockMvc.perform(put("/dav/{email}/calendar/5a1b3f7e-7c43-4a2f-9d8e-0e0f7a3f2b11.ics", USER01)
+                .contentType(TEXT_CALENDAR)
+                .content(request1)
+                .header("If-None-Match", "*"))
+                .andExpect(status().isCreated())
+
+        def request2 = """\
+                        <C:calendar-query xmlns:C="urn:ietf:params:xml:ns:caldav" xmlns:D="DAV:">
+                          <C:filter>
+                            <C:comp-filter name="VCALENDAR">
+                              <C:comp-filter name="VEVENT">
+                                <C:time-range start="20400103T000000Z" end="20400104T000000Z"/>
+                              </C:comp-filter>
+                            </C:comp-filter>
+                          </C:filter>
+                        </C:calendar-query>"""
+
+        mockMvc.perform(report("/dav/{email}/calendar/", USER01)
+                .contentType(APPLICATION_XML)
+                .content(request2)
+                .header("Depth", "1"))
+                .andExpect(status().isMultiStatus())
+                .andExpect(textXmlContentType())
+                .andExpect(xml("""<D:multistatus xmlns:D="DAV:" />"""))
+
+        def request3 = """\
+                        <C:calendar-query xmlns:C="urn:ietf:params:xml:ns:caldav" xmlns:D="DAV:">
+                          <C:filter>
+                            <C:comp-filter name="VCALENDAR">
+                              <C:comp-filter name="VEVENT">
+                                <C:time-range start="20400102T103000Z" end="20400102T120000Z"/>
+                              </C:comp-filter>
+                            </C:comp-filter>
+                          </C:filter>
+                        </C:calendar-query>"""
+
+        def response3 = """\
+                        <D:multistatus xmlns:D="DAV:">
+                          <D:response>
+                            <D:href>/carldav/dav/test01@localhost.de/calendar/5a1b3f7e-7c43-4a2f-9d8e-0e0f7a3f2b11.ics</D:href>
+                            <D:status>HTTP/1.1 200 OK</D:status>
+                          </D:response>
+                        </D:multistatus>"""
+
+        mockMvc.perform(report("/dav/{email}/calendar/", USER01)
+                .contentType(APPLICATION_XML)
+                .content(request3)
+                .header("Depth", "1"))
+                .andExpect(status().isMultiStatus())
+                .andExpect(textXmlContentType())
+                .andExpect(xml(response3))
+    }
 }
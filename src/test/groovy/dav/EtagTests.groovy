@@ -8,6 +8,7 @@ import org.unitedinternet.cosmo.IntegrationTestSupport
 import testutil.builder.GeneralData
 
 import static org.hamcrest.Matchers.is
+import static org.hamcrest.Matchers.not
 import static org.hamcrest.Matchers.notNullValue
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status
@@ -75,4 +76,27 @@ class EtagTests extends IntegrationTestSupport {
                 .header("If-None-Match", etag))
                 .andExpect(status().isNotModified())
     }
+
+    @Test
+    void unchangedPayloadIsNotWritten() {
+        def ctag = mockMvc.perform(get("/dav/{email}/calendar", USER01))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG)
+
+        mockMvc.perform(put("/dav/{email}/calendar/{uuid}.ics", USER01, uuid)
+                .contentType(TEXT_CALENDAR)
+                .content(CALDAV_EVENT))
+                .andExpect(status().isNoContent())
+                .andExpect(etag(is(etag)))
+
+        mockMvc.perform(get("/dav/{email}/calendar", USER01))
+                .andExpect(etag(is(ctag)))
+
+        mockMvc.perform(put("/dav/{email}/calendar/{uuid}.ics", USER01, uuid)
+                .contentType(TEXT_CALENDAR)
+                .content(CALDAV_EVENT.replace("SUMMARY:", "SUMMARY:changed ")))
+                .andExpect(status().isNoContent())
+
+        mockMvc.perform(get("/dav/{email}/calendar", USER01))
+                .andExpect(etag(not(ctag)))
+    }
 }
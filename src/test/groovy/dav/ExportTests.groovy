@@ -0,0 +1,150 @@
+package dav
+
+import net.fortuna.ical4j.data.CalendarBuilder
+import net.fortuna.ical4j.model.Component
+import org.junit.Test
+import org.springframework.security.test.context.support.WithUserDetails
+import org.unitedinternet.cosmo.IntegrationTestSupport
+
+import static org.hamcrest.Matchers.containsString
+import static org.hamcrest.Matchers.is
+import static org.hamcrest.Matchers.isEmptyString
+import static org.hamcrest.Matchers.startsWith
+import static org.springframework.http.HttpHeaders.ACCEPT
+import static org.springframework.http.HttpHeaders.ETAG
+import static org.springframework.http.HttpHeaders.IF_NONE_MATCH
+import static org.springframework.http.HttpHeaders.VARY
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.head
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status
+import static testutil.TestUser.USER01
+import static testutil.mockmvc.CustomMediaTypes.TEXT_CALENDAR
+import static testutil.mockmvc.CustomMediaTypes.TEXT_VCARD
+import static testutil.mockmvc.CustomResultMatchers.contentType
+import static testutil.mockmvc.CustomResultMatchers.textHtmlContentType
+
+/**
+ * @author Kamill Sokol
+ */
+@WithUserDetails(USER01)
+class ExportTests extends IntegrationTestSupport {
+
+    private static final String VTIMEZONE = "BEGIN:VTIMEZONE\r\nTZID:Custom\r\n" +
+            "BEGIN:STANDARD\r\nDTSTART:19701025T030000\r\nTZOFFSETFROM:+0200\r\nTZOFFSETTO:+0100\r\nEND:STANDARD\r\n" +
+            "END:VTIMEZONE\r\n"
+
+    @Test
+    void calendarExport() {
+        putEvent("first", VTIMEZONE, "DTSTART;TZID=Custom:20160104T100000\r\n")
+        putEvent("second", VTIMEZONE, "DTSTART;TZID=Custom:20160105T100000\r\n")
+        putEvent("third", "", "DTSTART:20160106T100000Z\r\n")
+
+        def result = mockMvc.perform(get("/dav/{email}/calendar/", USER01)
+                .header(ACCEPT, "text/calendar"))
+                .andExpect(status().isOk())
+                .andExpect(contentType(is("text/calendar;charset=UTF-8")))
+                .andExpect(content().string(startsWith("BEGIN:VCALENDAR\r\nVERSION:2.0\r\n")))
+                .andReturn().getResponse().getContentAsString()
+
+        def calendar = new CalendarBuilder().build(new StringReader(result))
+
+        assert calendar.getComponents(Component.VEVENT).collect { it.uid.value }.sort() == ["first", "second", "third"]
+        assert calendar.getComponents(Component.VTIMEZONE).size() == 1
+        assert result.count("BEGIN:VCALENDAR") == 1
+    }
+
+    @Test
+    void calendarExportHead() {
+        putEvent("first", "", "DTSTART:20160106T100000Z\r\n")
+
+        mockMvc.perform(head("/dav/{email}/calendar/", USER01)
+                .header(ACCEPT, "text/calendar"))
+                .andExpect(status().isOk())
+                .andExpect(contentType(is("text/calendar;charset=UTF-8")))
+                .andExpect(content().string(isEmptyString()))
+    }
+
+    @Test
+    void emptyCalendarExport() {
+        mockMvc.perform(get("/dav/{email}/calendar/", USER01)
+                .header(ACCEPT, "text/calendar"))
+                .andExpect(status().isOk())
+                .andExpect(content().string("BEGIN:VCALENDAR\r\nVERSION:2.0\r\nPRODID:-//carldav//NONSGML export//EN\r\n" +
+                        "CALSCALE:GREGORIAN\r\nEND:VCALENDAR\r\n"))
+    }
+
+    @Test
+    void wildcardKeepsHtmlListing() {
+        mockMvc.perform(get("/dav/{email}/calendar/", USER01)
+                .header(ACCEPT, "text/html, */*"))
+                .andExpect(status().isOk())
+                .andExpect(textHtmlContentType())
+    }
+
+    @Test
+    void exportAndListingHaveDistinctEtags() {
+        putEvent("first", "", "DTSTART:20160106T100000Z\r\n")
+
+        def listingEtag = mockMvc.perform(get("/dav/{email}/calendar/", USER01))
+                .andExpect(status().isOk())
+                .andExpect(header().string(VARY, "Accept"))
+                .andReturn().getResponse().getHeader(ETAG)
+
+        def exportEtag = mockMvc.perform(get("/dav/{email}/calendar/", USER01)
+                .header(ACCEPT, "text/calendar"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(VARY, "Accept"))
+                .andReturn().getResponse().getHeader(ETAG)
+
+        assert listingEtag != exportEtag
+
+        mockMvc.perform(get("/dav/{email}/calendar/", USER01)
+                .header(ACCEPT, "text/calendar")
+                .header(IF_NONE_MATCH, listingEtag))
+                .andExpect(status().isOk())
+                .andExpect(content().string(startsWith("BEGIN:VCALENDAR")))
+
+        mockMvc.perform(get("/dav/{email}/calendar/", USER01)
+                .header(ACCEPT, "text/calendar")
+                .header(IF_NONE_MATCH, exportEtag))
+                .andExpect(status().isNotModified())
+    }
+
+    @Test
+    void addressbookExport() {
+        putCard("card1", "First")
+        putCard("card2", "Second")
+
+        mockMvc.perform(get("/dav/{email}/contacts/", USER01)
+                .header(ACCEPT, "text/vcard"))
+                .andExpect(status().isOk())
+                .andExpect(contentType(is("text/vcard;charset=UTF-8")))
+                .andExpect(content().string(startsWith("BEGIN:VCARD")))
+                .andExpect(content().string(containsString("FN:First")))
+                .andExpect(content().string(containsString("END:VCARD\r\nBEGIN:VCARD")))
+                .andExpect(content().string(containsString("FN:Second")))
+    }
+
+    private void putEvent(String uid, String timezone, String start) {
+        def event = "BEGIN:VCALENDAR\r\nVERSION:2.0\r\nPRODID:test\r\n" + timezone +
+                "BEGIN:VEVENT\r\nUID:${uid}\r\nDTSTAMP:20160101T000000Z\r\n${start}SUMMARY:${uid}\r\nEND:VEVENT\r\n" +
+                "END:VCALENDAR\r\n"
+
+        mockMvc.perform(put("/dav/{email}/calendar/{uid}.ics", USER01, uid)
+                .contentType(TEXT_CALENDAR)
+                .content(event.toString()))
+                .andExpect(status().isCreated())
+    }
+
+    private void putCard(String uid, String name) {
+        def card = "BEGIN:VCARD\r\nVERSION:4.0\r\nUID:${uid}\r\nFN:${name}\r\nEND:VCARD\r\n"
+
+        mockMvc.perform(put("/dav/{email}/contacts/{uid}.vcf", USER01, uid)
+                .contentType(TEXT_VCARD)
+                .content(card.toString()))
+                .andExpect(status().isCreated())
+    }
+}
@@ -0,0 +1,105 @@
+package dav
+
+import org.junit.Before
+import org.junit.Test
+import org.springframework.security.test.context.support.WithUserDetails
+import org.unitedinternet.cosmo.IntegrationTestSupport
+
+import static org.hamcrest.Matchers.containsString
+import static org.hamcrest.Matchers.not
+import static org.junit.Assert.assertThat
+import static org.springframework.http.MediaType.TEXT_XML
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status
+import static testutil.TestUser.USER01
+import static testutil.mockmvc.CustomMediaTypes.TEXT_CALENDAR
+import static testutil.mockmvc.CustomRequestBuilders.report
+import static testutil.mockmvc.CustomResultMatchers.textCalendarContentType
+
+/**
+ * @author Kamill Sokol
+ */
+@WithUserDetails(USER01)
+class FreeBusyTests extends IntegrationTestSupport {
+
+    @Before
+    void setup() {
+        putEvent("weekly", "DTSTART:20160104T100000Z\r\nDTEND:20160104T110000Z\r\nRRULE:FREQ=WEEKLY;COUNT=3\r\n")
+        putEvent("overlapping", "DTSTART:20160104T103000Z\r\nDTEND:20160104T120000Z\r\n")
+        putEvent("tentative", "DTSTART:20160105T100000Z\r\nDTEND:20160105T110000Z\r\nSTATUS:TENTATIVE\r\n")
+        putEvent("cancelled", "DTSTART:20160106T100000Z\r\nDTEND:20160106T110000Z\r\nSTATUS:CANCELLED\r\n")
+        putEvent("transparent", "DTSTART:20160107T100000Z\r\nDTEND:20160107T110000Z\r\nTRANSP:TRANSPARENT\r\n")
+    }
+
+    @Test
+    void mergedBusyTime() {
+        def result = mockMvc.perform(report("/dav/{email}/calendar/", USER01)
+                .contentType(TEXT_XML)
+                .content(request("20160101T000000Z", "20160201T000000Z"))
+                .header("Depth", "1"))
+                .andExpect(status().isOk())
+                .andExpect(textCalendarContentType())
+                .andReturn().getResponse().getContentAsString()
+
+        def unfolded = result.replace("\r\n ", "")
+
+        assertThat(unfolded, containsString("BEGIN:VFREEBUSY"))
+        assertThat(unfolded, containsString("DTSTART:20160101T000000Z"))
+        assertThat(unfolded, containsString("DTEND:20160201T000000Z"))
+        assertThat(unfolded, containsString("FREEBUSY;FBTYPE=BUSY:20160104T100000Z/20160104T120000Z,20160111T100000Z/20160111T110000Z,20160118T100000Z/20160118T110000Z"))
+        assertThat(unfolded, containsString("FREEBUSY;FBTYPE=BUSY-TENTATIVE:20160105T100000Z/20160105T110000Z"))
+        assertThat(unfolded, not(containsString("20160106T")))
+        assertThat(unfolded, not(containsString("20160107T")))
+        assertThat(unfolded, not(containsString("SUMMARY")))
+    }
+
+    @Test
+    void clippedToTimeRange() {
+        mockMvc.perform(report("/dav/{email}/calendar/", USER01)
+                .contentType(TEXT_XML)
+                .content(request("20160111T103000Z", "20160112T000000Z"))
+                .header("Depth", "1"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("FREEBUSY;FBTYPE=BUSY:20160111T103000Z/20160111T110000Z")))
+                .andExpect(content().string(not(containsString("BUSY-TENTATIVE"))))
+    }
+
+    @Test
+    void noBusyTime() {
+        mockMvc.perform(report("/dav/{email}/calendar/", USER01)
+                .contentType(TEXT_XML)
+                .content(request("20170101T000000Z", "20170201T000000Z"))
+                .header("Depth", "1"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("BEGIN:VFREEBUSY")))
+                .andExpect(content().string(not(containsString("FREEBUSY;"))))
+    }
+
+    @Test
+    void missingTimeRange() {
+        mockMvc.perform(report("/dav/{email}/calendar/", USER01)
+                .contentType(TEXT_XML)
+                .content("""<C:free-busy-query xmlns:C="urn:ietf:params:xml:ns:caldav"/>""")
+                .header("Depth", "1"))
+                .andExpect(status().isBadRequest())
+    }
+
+    private void putEvent(String uid, String dates) {
+        def event = "BEGIN:VCALENDAR\r\nVERSION:2.0\r\nPRODID:test\r\n" +
+                "BEGIN:VEVENT\r\nUID:${uid}\r\nDTSTAMP:20160101T000000Z\r\n${dates}SUMMARY:${uid}\r\nEND:VEVENT\r\n" +
+                "END:VCALENDAR\r\n"
+
+        mockMvc.perform(put("/dav/{email}/calendar/{uid}.ics", USER01, uid)
+                .contentType(TEXT_CALENDAR)
+                .content(event.toString()))
+                .andExpect(status().isCreated())
+    }
+
+    private static String request(String start, String end) {
+        return """\
+                <C:free-busy-query xmlns:C="urn:ietf:params:xml:ns:caldav">
+                    <C:time-range start="${start}" end="${end}"/>
+                </C:free-busy-query>"""
+    }
+}
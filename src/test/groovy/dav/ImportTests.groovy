@@ -0,0 +1,176 @@
+package dav
+
+import org.junit.After
+import org.junit.Test
+import org.springframework.security.test.context.support.WithUserDetails
+import org.springframework.test.web.servlet.request.RequestPostProcessor
+import org.springframework.transaction.annotation.Propagation
+import org.springframework.transaction.annotation.Transactional
+import org.unitedinternet.cosmo.IntegrationTestSupport
+
+import static org.hamcrest.Matchers.containsString
+import static org.hamcrest.Matchers.not
+import static org.hamcrest.Matchers.startsWith
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status
+import static testutil.TestUser.USER01
+import static testutil.mockmvc.CustomMediaTypes.TEXT_CALENDAR
+
+/**
+ * Not transactional on purpose, the import commits batches of its own. A test transaction holding locks on the
+ * items written before an import would block the batches.
+ *
+ * @author Kamill Sokol
+ */
+@WithUserDetails(USER01)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ImportTests extends IntegrationTestSupport {
+
+    private static final String VTIMEZONE = "BEGIN:VTIMEZONE\r\nTZID:Custom\r\n" +
+            "BEGIN:STANDARD\r\nDTSTART:19701025T030000\r\nTZOFFSETFROM:+0200\r\nTZOFFSETTO:+0100\r\n" +
+            "RRULE:FREQ=YEARLY;BYMONTH=10;BYDAY=-1SU\r\nEND:STANDARD\r\n" +
+            "BEGIN:DAYLIGHT\r\nDTSTART:19700329T020000\r\nTZOFFSETFROM:+0100\r\nTZOFFSETTO:+0200\r\n" +
+            "RRULE:FREQ=YEARLY;BYMONTH=3;BYDAY=-1SU\r\nEND:DAYLIGHT\r\n" +
+            "END:VTIMEZONE\r\n"
+
+    @After
+    void after() {
+        removeImportedMembers()
+    }
+
+    @Test
+    void splitsByUid() {
+        def ics = "BEGIN:VCALENDAR\r\nVERSION:2.0\r\nPRODID:test\r\nMETHOD:PUBLISH\r\n" +
+                "BEGIN:VEVENT\r\nUID:recurring\r\nDTSTAMP:20160101T000000Z\r\n" +
+                "DTSTART;TZID=Custom:20160104T100000\r\nDTEND;TZID=Custom:20160104T110000\r\n" +
+                "RRULE:FREQ=WEEKLY;COUNT=3\r\nSUMMARY:weekly\r\nEND:VEVENT\r\n" +
+                "BEGIN:VTODO\r\nUID:todo\r\nDTSTAMP:20160101T000000Z\r\nSUMMARY:a to-do\r\nEND:VTODO\r\n" +
+                "BEGIN:VEVENT\r\nDTSTAMP:20160101T000000Z\r\nDTSTART:20160104T100000Z\r\nSUMMARY:no uid\r\nEND:VEVENT\r\n" +
+                "BEGIN:VEVENT\r\nUID:recurring\r\nDTSTAMP:20160101T000000Z\r\n" +
+                "RECURRENCE-ID;TZID=Custom:20160111T100000\r\n" +
+                "DTSTART;TZID=Custom:20160111T120000\r\nDTEND;TZID=Custom:20160111T130000\r\n" +
+                "SUMMARY:moved\r\n  occurrence\r\nEND:VEVENT\r\n" +
+                VTIMEZONE +
+                "END:VCALENDAR\r\n"
+
+        mockMvc.perform(post("/dav/{email}/calendar/", USER01)
+                .contentType(TEXT_CALENDAR)
+                .content(ics))
+                .andExpect(status().isOk())
+                .andExpect(content().string("imported 2, skipped 1\n"))
+
+        def recurring = mockMvc.perform(get("/dav/{email}/calendar/recurring.ics", USER01))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("BEGIN:VTIMEZONE")))
+                .andExpect(content().string(containsString("RECURRENCE-ID;TZID=Custom:20160111T100000")))
+                .andExpect(content().string(not(containsString("METHOD"))))
+                .andReturn().getResponse().getContentAsString()
+
+        assert recurring.replace("\r\n ", "").contains("SUMMARY:moved occurrence")
+
+        mockMvc.perform(get("/dav/{email}/calendar/todo.ics", USER01))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("BEGIN:VTODO")))
+                .andExpect(content().string(not(containsString("BEGIN:VTIMEZONE"))))
+    }
+
+    @Test
+    void existingUidIsSkipped() {
+        mockMvc.perform(put("/dav/{email}/calendar/other.ics", USER01)
+                .contentType(TEXT_CALENDAR)
+                .content(calendar(event("existing"))))
+                .andExpect(status().isCreated())
+
+        mockMvc.perform(post("/dav/{email}/calendar/", USER01)
+                .contentType(TEXT_CALENDAR)
+                .content(calendar(event("existing") + event("new"))))
+                .andExpect(status().isOk())
+                .andExpect(content().string("skipped existing: already exists\nimported 1, skipped 1\n"))
+    }
+
+    @Test
+    void invalidComponentIsSkipped() {
+        def invalid = "BEGIN:VEVENT\r\nUID:invalid\r\nDTSTAMP:20160101T000000Z\r\nDTSTART:20160104T100000Z\r\n" +
+                "DTEND:20160104T110000Z\r\nDURATION:PT1H\r\nEND:VEVENT\r\n"
+
+        mockMvc.perform(post("/dav/{email}/calendar/", USER01)
+                .contentType(TEXT_CALENDAR)
+                .content(calendar(invalid + event("valid"))))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("skipped invalid: ")))
+                .andExpect(content().string(containsString("imported 1, skipped 1\n")))
+
+        mockMvc.perform(get("/dav/{email}/calendar/invalid.ics", USER01))
+                .andExpect(status().isNotFound())
+    }
+
+    @Test
+    void malformedStreamIsRejected() {
+        mockMvc.perform(post("/dav/{email}/calendar/", USER01)
+                .contentType(TEXT_CALENDAR)
+                .content(event("orphan")))
+                .andExpect(status().isBadRequest())
+    }
+
+    @Test
+    void malformedContentTypeIsNotAnImport() {
+        // set on the built request, the request builder would reject the content type itself
+        def malformed = { request -> request.contentType = "text/"; request } as RequestPostProcessor
+
+        mockMvc.perform(post("/dav/{email}/calendar/", USER01)
+                .content(calendar(event("event")))
+                .with(malformed))
+                .andExpect(status().isMethodNotAllowed())
+
+        mockMvc.perform(get("/dav/{email}/calendar/event.ics", USER01))
+                .andExpect(status().isNotFound())
+    }
+
+    @Test
+    void importsInBatches() {
+        def events = new StringBuilder()
+        501.times { events.append(event("event" + it)) }
+
+        mockMvc.perform(post("/dav/{email}/calendar/", USER01)
+                .contentType(TEXT_CALENDAR)
+                .content(calendar(events.toString())))
+                .andExpect(status().isOk())
+                .andExpect(content().string("imported 500\nimported 501, skipped 0\n"))
+
+        mockMvc.perform(get("/dav/{email}/calendar/event500.ics", USER01))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("UID:event500")))
+    }
+
+    @Test
+    void failurePartwayKeepsCommittedBatches() {
+        def events = new StringBuilder()
+        500.times { events.append(event("event" + it)) }
+        events.append(event("x" * 300))
+
+        mockMvc.perform(post("/dav/{email}/calendar/", USER01)
+                .contentType(TEXT_CALENDAR)
+                .content(calendar(events.toString())))
+                .andExpect(status().isOk())
+                .andExpect(content().string(startsWith("imported 500\nfailed: ")))
+                .andExpect(content().string(not(containsString("skipped"))))
+
+        mockMvc.perform(get("/dav/{email}/calendar/event499.ics", USER01))
+                .andExpect(status().isOk())
+
+        mockMvc.perform(get("/dav/{email}/calendar/${"x" * 300}.ics", USER01))
+                .andExpect(status().isNotFound())
+    }
+
+    private static String calendar(String components) {
+        return "BEGIN:VCALENDAR\r\nVERSION:2.0\r\nPRODID:test\r\n" + components + "END:VCALENDAR\r\n"
+    }
+
+    private static String event(String uid) {
+        return "BEGIN:VEVENT\r\nUID:${uid}\r\nDTSTAMP:20160101T000000Z\r\nDTSTART:20160104T100000Z\r\n" +
+                "DTEND:20160104T110000Z\r\nSUMMARY:${uid}\r\nEND:VEVENT\r\n"
+    }
+}
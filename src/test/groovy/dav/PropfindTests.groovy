@@ -0,0 +1,84 @@
+package dav
+
+import carldav.entity.Item
+import org.hibernate.Session
+import org.junit.Test
+import org.springframework.security.test.context.support.WithUserDetails
+import org.unitedinternet.cosmo.IntegrationTestSupport
+
+import javax.persistence.EntityManager
+import javax.persistence.PersistenceContext
+
+import static org.springframework.http.MediaType.TEXT_XML
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status
+import static testutil.TestUser.USER01
+import static testutil.mockmvc.CustomMediaTypes.TEXT_CALENDAR
+import static testutil.mockmvc.CustomRequestBuilders.propfind
+
+/**
+ * @author Kamill Sokol
+ */
+@WithUserDetails(USER01)
+class PropfindTests extends IntegrationTestSupport {
+
+    @PersistenceContext
+    private EntityManager entityManager
+
+    @Test
+    void depthOneSpansMemberPages() {
+        def events = new StringBuilder("BEGIN:VCALENDAR\r\nVERSION:2.0\r\nPRODID:test\r\n")
+        501.times {
+            events.append("BEGIN:VEVENT\r\nUID:event${it}\r\nDTSTAMP:20160101T000000Z\r\nDTSTART:20160104T100000Z\r\nEND:VEVENT\r\n")
+        }
+        events.append("END:VCALENDAR\r\n")
+
+        mockMvc.perform(post("/dav/{email}/calendar/", USER01)
+                .contentType(TEXT_CALENDAR)
+                .content(events.toString()))
+                .andExpect(status().isOk())
+
+        def result = mockMvc.perform(propfind("/dav/{email}/calendar/", USER01)
+                .contentType(TEXT_XML)
+                .content("""<D:propfind xmlns:D="DAV:"><D:prop><D:getetag/></D:prop></D:propfind>""")
+                .header("Depth", "1"))
+                .andExpect(status().isMultiStatus())
+                .andReturn().getResponse().getContentAsString()
+
+        def hrefs = new XmlSlurper().parseText(result).response.href*.text()
+        def members = hrefs.tail().collect { it.substring(it.lastIndexOf('/') + 1) }
+
+        assert hrefs.head() == "/carldav/dav/test01@localhost.de/calendar/"
+        assert members.size() == 501
+        assert members == members.toSorted()
+        assert members.toSet().size() == 501
+    }
+
+    @Test
+    void fullyLoadedMembersAreDetached() {
+        def events = new StringBuilder("BEGIN:VCALENDAR\r\nVERSION:2.0\r\nPRODID:test\r\n")
+        3.times {
+            events.append("BEGIN:VEVENT\r\nUID:event${it}\r\nDTSTAMP:20160101T000000Z\r\nDTSTART:20160104T100000Z\r\nEND:VEVENT\r\n")
+        }
+        events.append("END:VCALENDAR\r\n")
+
+        mockMvc.perform(post("/dav/{email}/calendar/", USER01)
+                .contentType(TEXT_CALENDAR)
+                .content(events.toString()))
+                .andExpect(status().isOk())
+
+        entityManager.flush()
+        entityManager.createQuery("update Item i set i.contentLength = null").executeUpdate()
+        entityManager.clear()
+
+        def result = mockMvc.perform(propfind("/dav/{email}/calendar/", USER01)
+                .contentType(TEXT_XML)
+                .content("""<D:propfind xmlns:D="DAV:"><D:prop><D:getcontentlength/></D:prop></D:propfind>""")
+                .header("Depth", "1"))
+                .andExpect(status().isMultiStatus())
+                .andReturn().getResponse().getContentAsString()
+
+        assert new XmlSlurper().parseText(result).response.size() == 4
+        assert entityManager.unwrap(Session).statistics.entityKeys.findAll { it.entityName == Item.name }.isEmpty()
+    }
+}
@@ -0,0 +1,191 @@
+package dav
+
+import carldav.repository.ItemTombstoneRepository
+import org.junit.Before
+import org.junit.Test
+import org.springframework.beans.factory.annotation.Autowired
+import org.springframework.security.test.context.support.WithUserDetails
+import org.unitedinternet.cosmo.IntegrationTestSupport
+import org.unitedinternet.cosmo.service.impl.StandardContentService
+
+import java.util.concurrent.TimeUnit
+
+import static calendar.DavDroidData.ADD_VEVENT_REQUEST1
+import static org.hamcrest.Matchers.notNullValue
+import static org.springframework.http.HttpHeaders.ETAG
+import static org.springframework.http.MediaType.TEXT_XML
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status
+import static testutil.TestUser.USER01
+import static testutil.builder.GeneralData.CALDAV_EVENT
+import static testutil.mockmvc.CustomMediaTypes.TEXT_CALENDAR
+import static testutil.mockmvc.CustomRequestBuilders.report
+import static testutil.mockmvc.CustomResultMatchers.*
+
+/**
+ * @author Kamill Sokol
+ */
+@WithUserDetails(USER01)
+class SyncCollectionTests extends IntegrationTestSupport {
+
+    @Autowired
+    private ItemTombstoneRepository itemTombstoneRepository
+
+    @Autowired
+    private StandardContentService contentService
+
+    def event1Etag
+    def event2Etag
+
+    @Before
+    void setup() {
+        event1Etag = mockMvc.perform(put("/dav/{email}/calendar/event1.ics", USER01)
+                .contentType(TEXT_CALENDAR)
+                .content(CALDAV_EVENT))
+                .andExpect(status().isCreated())
+                .andExpect(etag(notNullValue()))
+                .andReturn().getResponse().getHeader(ETAG)
+
+        event2Etag = mockMvc.perform(put("/dav/{email}/calendar/event2.ics", USER01)
+                .contentType(TEXT_CALENDAR)
+                .content(ADD_VEVENT_REQUEST1))
+                .andExpect(status().isCreated())
+                .andExpect(etag(notNullValue()))
+                .andReturn().getResponse().getHeader(ETAG)
+    }
+
+    @Test
+    void initialSync() {
+        def response = """\
+                        <D:multistatus xmlns:D="DAV:">
+                            <D:response>
+                                <D:href>/carldav/dav/test01@localhost.de/calendar/event1.ics</D:href>
+                                <D:propstat>
+                                    <D:prop>
+                                        <D:getetag>${event1Etag}</D:getetag>
+                                    </D:prop>
+                                    <D:status>HTTP/1.1 200 OK</D:status>
+                                </D:propstat>
+                            </D:response>
+                            <D:response>
+                                <D:href>/carldav/dav/test01@localhost.de/calendar/event2.ics</D:href>
+                                <D:propstat>
+                                    <D:prop>
+                                        <D:getetag>${event2Etag}</D:getetag>
+                                    </D:prop>
+                                    <D:status>HTTP/1.1 200 OK</D:status>
+                                </D:propstat>
+                            </D:response>
+                            <D:sync-token>http://carldav.org/ns/sync/2</D:sync-token>
+                        </D:multistatus>"""
+
+        mockMvc.perform(report("/dav/{email}/calendar/", USER01)
+                .contentType(TEXT_XML)
+                .content(request("")))
+                .andExpect(status().isMultiStatus())
+                .andExpect(xml(response))
+    }
+
+    @Test
+    void changesSinceToken() {
+        mockMvc.perform(delete("/dav/{email}/calendar/event1.ics", USER01))
+                .andExpect(status().isNoContent())
+
+        def response = """\
+                        <D:multistatus xmlns:D="DAV:">
+                            <D:response>
+                                <D:href>/carldav/dav/test01@localhost.de/calendar/event1.ics</D:href>
+                                <D:status>HTTP/1.1 404 Not Found</D:status>
+                            </D:response>
+                            <D:sync-token>http://carldav.org/ns/sync/3</D:sync-token>
+                        </D:multistatus>"""
+
+        mockMvc.perform(report("/dav/{email}/calendar/", USER01)
+                .contentType(TEXT_XML)
+                .content(request("http://carldav.org/ns/sync/2")))
+                .andExpect(status().isMultiStatus())
+                .andExpect(xml(response))
+    }
+
+    @Test
+    void truncatedResult() {
+        def response = """\
+                        <D:multistatus xmlns:D="DAV:">
+                            <D:response>
+                                <D:href>/carldav/dav/test01@localhost.de/calendar/</D:href>
+                                <D:status>HTTP/1.1 507 Insufficient Storage</D:status>
+                            </D:response>
+                            <D:response>
+                                <D:href>/carldav/dav/test01@localhost.de/calendar/event1.ics</D:href>
+                                <D:propstat>
+                                    <D:prop>
+                                        <D:getetag>${event1Etag}</D:getetag>
+                                    </D:prop>
+                                    <D:status>HTTP/1.1 200 OK</D:status>
+                                </D:propstat>
+                            </D:response>
+                            <D:sync-token>http://carldav.org/ns/sync/1</D:sync-token>
+                        </D:multistatus>"""
+
+        mockMvc.perform(report("/dav/{email}/calendar/", USER01)
+                .contentType(TEXT_XML)
+                .content(request("", "<D:limit><D:nresults>1</D:nresults></D:limit>")))
+                .andExpect(status().isMultiStatus())
+                .andExpect(xml(response))
+    }
+
+    @Test
+    void invalidSyncToken() {
+        def response = """\
+                        <D:error xmlns:cosmo="http://osafoundation.org/cosmo/DAV" xmlns:D="DAV:">
+                            <D:valid-sync-token>Invalid sync-token http://carldav.org/ns/sync/3</D:valid-sync-token>
+                        </D:error>"""
+
+        mockMvc.perform(report("/dav/{email}/calendar/", USER01)
+                .contentType(TEXT_XML)
+                .content(request("http://carldav.org/ns/sync/3")))
+                .andExpect(status().isForbidden())
+                .andExpect(xml(response))
+    }
+
+    @Test
+    void expiredSyncToken() {
+        mockMvc.perform(delete("/dav/{email}/calendar/event1.ics", USER01))
+                .andExpect(status().isNoContent())
+
+        itemTombstoneRepository.findAll().each {
+            it.removedDate = new Date(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(365))
+            itemTombstoneRepository.save(it)
+        }
+        contentService.removeExpiredTombstones()
+
+        def response = """\
+                        <D:error xmlns:cosmo="http://osafoundation.org/cosmo/DAV" xmlns:D="DAV:">
+                            <D:valid-sync-token>Expired sync-token http://carldav.org/ns/sync/2</D:valid-sync-token>
+                        </D:error>"""
+
+        mockMvc.perform(report("/dav/{email}/calendar/", USER01)
+                .contentType(TEXT_XML)
+                .content(request("http://carldav.org/ns/sync/2")))
+                .andExpect(status().isForbidden())
+                .andExpect(xml(response))
+
+        mockMvc.perform(report("/dav/{email}/calendar/", USER01)
+                .contentType(TEXT_XML)
+                .content(request("http://carldav.org/ns/sync/3")))
+                .andExpect(status().isMultiStatus())
+    }
+
+    private static String request(String syncToken, String limit = "") {
+        return """\
+                <D:sync-collection xmlns:D="DAV:">
+                    <D:sync-token>${syncToken}</D:sync-token>
+                    <D:sync-level>1</D:sync-level>
+                    ${limit}
+                    <D:prop>
+                        <D:getetag/>
+                    </D:prop>
+                </D:sync-collection>"""
+    }
+}
@@ -403,7 +403,7 @@ public class CalendarTests extends IntegrationTestSupport {
                                 <D:href>/carldav/dav/test01@localhost.de/calendar/</D:href>
                                 <D:propstat>
                                     <D:prop>
-                                        <D:getetag>"157565ba8b0d3652b027c868d554f914"</D:getetag>
+                                        <D:getetag>"2-0"</D:getetag>
                                         <C:supported-calendar-data xmlns:C="urn:ietf:params:xml:ns:caldav">
                                             <C:calendar-data C:content-type="text/calendar" C:version="2.0"/>
                                         </C:supported-calendar-data>
@@ -420,6 +420,16 @@ public class CalendarTests extends IntegrationTestSupport {
                                                     <C:calendar-multiget xmlns:C="urn:ietf:params:xml:ns:caldav"/>
                                                   </D:report>
                                                 </D:supported-report>
+                                                <D:supported-report>
+                                                  <D:report>
+                                                    <C:free-busy-query xmlns:C="urn:ietf:params:xml:ns:caldav"/>
+                                                  </D:report>
+                                                </D:supported-report>
+                                                <D:supported-report>
+                                                    <D:report>
+                                                        <D:sync-collection/>
+                                                    </D:report>
+                                                </D:supported-report>
                                         </D:supported-report-set>
                                         <D:resourcetype>
                                             <C:calendar xmlns:C="urn:ietf:params:xml:ns:caldav"/>
@@ -438,7 +448,7 @@ public class CalendarTests extends IntegrationTestSupport {
                                             <C:comp name="VJOURNAL"/>
                                             <C:comp name="VTODO"/>
                                         </C:supported-calendar-component-set>
-                                        <CS:getctag xmlns:CS="http://calendarserver.org/ns/">157565ba8b0d3652b027c868d554f914</CS:getctag>
+                                        <CS:getctag xmlns:CS="http://calendarserver.org/ns/">2-0</CS:getctag>
                                     </D:prop>
                                     <D:status>HTTP/1.1 200 OK</D:status>
                                 </D:propstat>
@@ -1427,6 +1437,93 @@ public class CalendarTests extends IntegrationTestSupport {
                 .andExpect(status().isNoContent())
     }
 
+    @Test
+    void multigetWithMissingMembers() {
+        def etag = mockMvc.perform(put("/dav/{email}/calendar/{uuid}.ics", USER01, UUID_TODO)
+                .content(CALDAV_TODO)
+                .contentType(TEXT_CALENDAR))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getHeader(ETAG)
+
+        def request = """\
+                        <C:calendar-multiget xmlns:D="DAV:" xmlns:C="urn:ietf:params:xml:ns:caldav">
+                            <D:prop>
+                                <D:getetag />
+                            </D:prop>
+                            <D:href>/carldav/dav/test01@localhost.de/calendar/${UUID_TODO}.ics</D:href>
+                            <D:href>/carldav/dav/test01@localhost.de/calendar/missing1.ics</D:href>
+                            <D:href>/carldav/dav/test01@localhost.de/calendar/missing2.ics</D:href>
+                        </C:calendar-multiget>"""
+
+        def response = """\
+                        <D:multistatus xmlns:D="DAV:">
+                            <D:response>
+                                <D:href>/carldav/dav/test01@localhost.de/calendar/${UUID_TODO}.ics</D:href>
+                                <D:propstat>
+                                    <D:prop>
+                                        <D:getetag>${etag}</D:getetag>
+                                    </D:prop>
+                                    <D:status>HTTP/1.1 200 OK</D:status>
+                                </D:propstat>
+                            </D:response>
+                            <D:response>
+                                <D:href>/carldav/dav/test01@localhost.de/calendar/missing1.ics</D:href>
+                                <D:status>HTTP/1.1 404 Not Found</D:status>
+                            </D:response>
+                            <D:response>
+                                <D:href>/carldav/dav/test01@localhost.de/calendar/missing2.ics</D:href>
+                                <D:status>HTTP/1.1 404 Not Found</D:status>
+                            </D:response>
+                        </D:multistatus>"""
+
+        mockMvc.perform(report("/dav/{email}/calendar/", USER01)
+                .content(request)
+                .contentType(TEXT_XML))
+                .andExpect(textXmlContentType())
+                .andExpect(xml(response))
+    }
+
+    @Test
+    void multigetAcrossMemberBatches() {
+        def events = new StringBuilder("BEGIN:VCALENDAR\r\nVERSION:2.0\r\nPRODID:test\r\n")
+        550.times {
+            events.append("BEGIN:VEVENT\r\nUID:event${it}\r\nDTSTAMP:20160101T000000Z\r\nDTSTART:20160104T100000Z\r\nEND:VEVENT\r\n")
+        }
+        events.append("END:VCALENDAR\r\n")
+
+        mockMvc.perform(post("/dav/{email}/calendar/", USER01)
+                .contentType(TEXT_CALENDAR)
+                .content(events.toString()))
+                .andExpect(status().isOk())
+
+        def names = (0..<600).collect { it % 12 == 11 ? "missing${it}.ics" : "event${it}.ics" }
+        def request = new StringBuilder('<C:calendar-multiget xmlns:D="DAV:" xmlns:C="urn:ietf:params:xml:ns:caldav"><D:prop><D:getetag/></D:prop>')
+        names.each { request.append("<D:href>/carldav/dav/test01@localhost.de/calendar/${it}</D:href>") }
+        request.append("</C:calendar-multiget>")
+
+        def result = mockMvc.perform(report("/dav/{email}/calendar/", USER01)
+                .content(request.toString())
+                .contentType(TEXT_XML))
+                .andExpect(status().isMultiStatus())
+                .andReturn().getResponse().getContentAsString()
+
+        def responses = new XmlSlurper().parseText(result).response.collectEntries {
+            [(it.href.text() - "/carldav/dav/test01@localhost.de/calendar/"): it]
+        }
+        def found = names.findAll { it.startsWith("event") && (it - "event" - ".ics").toInteger() < 550 }
+        def missing = names - found
+
+        assert responses.size() == 600
+        assert found.size() == 505
+        found.each {
+            assert responses[it].propstat.status.text() == "HTTP/1.1 200 OK"
+            assert !responses[it].propstat.prop.getetag.text().isEmpty()
+        }
+        missing.each {
+            assert responses[it].status.text() == "HTTP/1.1 404 Not Found"
+        }
+    }
+
     @Ignore("unsupported")
     @WithUserDetails(USER02)
     @Test
@@ -1499,7 +1596,8 @@ public class CalendarTests extends IntegrationTestSupport {
                             <dt>{urn:ietf:params:xml:ns:caldav}supported-calendar-component-set</dt><dd>VEVENT, VJOURNAL, VTODO</dd>
                             <dt>{urn:ietf:params:xml:ns:caldav}supported-calendar-data</dt><dd>-- no value --</dd>
                             <dt>{urn:ietf:params:xml:ns:caldav}supported-collation-set</dt><dd>i;ascii-casemap, i;octet</dd>
-                            <dt>{DAV:}supported-report-set</dt><dd>{urn:ietf:params:xml:ns:caldav}calendar-multiget, {urn:ietf:params:xml:ns:caldav}calendar-query</dd>
+                            <dt>{DAV:}supported-report-set</dt><dd>{DAV:}sync-collection, {urn:ietf:params:xml:ns:caldav}calendar-multiget, {urn:ietf:params:xml:ns:caldav}calendar-query, {urn:ietf:params:xml:ns:caldav}free-busy-query</dd>
+                            <dt>{DAV:}sync-token</dt><dd>http://carldav.org/ns/sync/1</dd>
                             </dl>
                             <p>
                             <a href="/carldav/dav/test01@localhost.de/">Home collection</a><br>
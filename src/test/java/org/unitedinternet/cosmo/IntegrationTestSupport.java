@@ -6,15 +6,21 @@ import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.mock.web.MockHttpServletRequest;
 import org.springframework.test.annotation.Rollback;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.test.context.transaction.AfterTransaction;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.request.RequestPostProcessor;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.context.WebApplicationContext;
+import org.unitedinternet.cosmo.calendar.CalendarCache;
+import org.unitedinternet.cosmo.calendar.CollectionTimeIndex;
 import util.TestData;
 
+import javax.sql.DataSource;
+
 import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.setup.MockMvcBuilders.webAppContextSetup;
@@ -36,11 +42,43 @@ public abstract class IntegrationTestSupport {
     @Value("${server.context-path}")
     private String contextPath;
 
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private CollectionTimeIndex collectionTimeIndex;
+
+    @Autowired
+    private CalendarCache calendarCache;
+
+    private long calendarSyncToken;
+
     @Before
     public void beforeAnyOther() throws Exception {
         this.mockMvc = webAppContextSetup(this.wac)
                 .defaultRequest(get("/").with(new ContextPathRequestPostProcessor()))
                 .apply(springSecurity()).build();
+        calendarSyncToken = new JdbcTemplate(dataSource).queryForObject("select synctoken from collection where id = 2", Long.class);
+    }
+
+    /**
+     * Calendar imports commit every batch on their own, rolling back the test transaction doesn't remove imported
+     * members of the calendar collection of {@code USER01}.
+     */
+    @AfterTransaction
+    public void removeImportedMembers() {
+        final JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        if (jdbcTemplate.queryForObject("select count(*) from item where collectionid = 2", Long.class) == 0) {
+            return;
+        }
+
+        jdbcTemplate.update("delete from item_instance where itemid in (select id from item where collectionid = 2)");
+        jdbcTemplate.update("delete from item_trigram where itemid in (select id from item where collectionid = 2)");
+        jdbcTemplate.update("delete from item where collectionid = 2");
+        jdbcTemplate.update("delete from item_content where id not in (select contentid from item where contentid is not null)");
+        jdbcTemplate.update("update collection set synctoken = ? where id = 2", calendarSyncToken);
+        collectionTimeIndex.clear();
+        calendarCache.clear();
     }
 
     private class ContextPathRequestPostProcessor implements RequestPostProcessor {
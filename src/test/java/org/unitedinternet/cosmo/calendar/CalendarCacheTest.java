@@ -0,0 +1,112 @@
+package org.unitedinternet.cosmo.calendar;
+
+import carldav.entity.Item;
+import net.fortuna.ical4j.model.Calendar;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class CalendarCacheTest {
+
+    private static final String CALENDAR = "BEGIN:VCALENDAR\r\nVERSION:2.0\r\nPRODID:test\r\n" +
+            "BEGIN:VEVENT\r\nUID:1\r\nDTSTAMP:20160101T000000Z\r\nDTSTART:20160101T100000Z\r\nEND:VEVENT\r\n" +
+            "END:VCALENDAR\r\n";
+
+    @Test
+    public void hit() {
+        CalendarCache cache = new CalendarCache(10 * CALENDAR.length());
+        Item item = item(1L, "a");
+
+        Calendar calendar = cache.getCalendar(item);
+
+        assertSame(calendar, cache.getCalendar(item));
+        assertEquals(1, cache.getMissCount());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(CALENDAR.length(), cache.getWeight());
+    }
+
+    @Test
+    public void hitDoesNotLoadPayload() {
+        CalendarCache cache = new CalendarCache(10 * CALENDAR.length());
+        Calendar calendar = cache.getCalendar(item(1L, "a"));
+
+        Item unloaded = item(1L, "a");
+        unloaded.setCalendar(null);
+
+        assertSame(calendar, cache.getCalendar(unloaded));
+        assertEquals(1, cache.getHitCount());
+    }
+
+    @Test
+    public void getIfPresentDoesNotLoadPayload() {
+        CalendarCache cache = new CalendarCache(10 * CALENDAR.length());
+        Item unloaded = item(1L, "a");
+        unloaded.setCalendar(null);
+
+        assertNull(cache.getIfPresent(unloaded));
+        assertEquals(0, cache.getMissCount());
+
+        Calendar calendar = cache.getCalendar(item(1L, "a"));
+
+        assertSame(calendar, cache.getIfPresent(unloaded));
+        assertEquals(1, cache.getHitCount());
+    }
+
+    @Test
+    public void changedEtagMisses() {
+        CalendarCache cache = new CalendarCache(10 * CALENDAR.length());
+
+        Calendar calendar = cache.getCalendar(item(1L, "a"));
+
+        assertNotSame(calendar, cache.getCalendar(item(1L, "b")));
+        assertEquals(2, cache.getMissCount());
+    }
+
+    @Test
+    public void evictLeastRecentlyUsed() {
+        CalendarCache cache = new CalendarCache(2 * CALENDAR.length());
+        Item item1 = item(1L, "a");
+        Item item2 = item(2L, "a");
+        Item item3 = item(3L, "a");
+
+        cache.getCalendar(item1);
+        cache.getCalendar(item2);
+        cache.getCalendar(item1);
+        cache.getCalendar(item3);
+
+        assertEquals(1, cache.getEvictionCount());
+        assertEquals(2, cache.getSize());
+
+        cache.getCalendar(item1);
+        assertEquals(2, cache.getHitCount());
+        cache.getCalendar(item2);
+        assertEquals(4, cache.getMissCount());
+    }
+
+    @Test
+    public void unsavedItemNotCached() {
+        CalendarCache cache = new CalendarCache(10 * CALENDAR.length());
+
+        cache.getCalendar(item(null, null));
+
+        assertEquals(0, cache.getSize());
+    }
+
+    @Test
+    public void noPayload() {
+        CalendarCache cache = new CalendarCache(10 * CALENDAR.length());
+
+        assertNull(cache.getCalendar(new Item(Item.Type.VEVENT)));
+    }
+
+    private static Item item(Long id, String etag) {
+        Item item = new Item(Item.Type.VEVENT);
+        item.setId(id);
+        item.setEtag(etag);
+        item.setCalendar(CALENDAR);
+        return item;
+    }
+}
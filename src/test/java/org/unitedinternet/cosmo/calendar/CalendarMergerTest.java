@@ -0,0 +1,59 @@
+package org.unitedinternet.cosmo.calendar;
+
+import org.junit.Test;
+
+import java.io.StringWriter;
+
+import static org.junit.Assert.assertEquals;
+
+public class CalendarMergerTest {
+
+    private static final String HEADER = "BEGIN:VCALENDAR\r\nVERSION:2.0\r\nPRODID:test\r\nCALSCALE:GREGORIAN\r\n";
+
+    private static final String TIMEZONE = "BEGIN:VTIMEZONE\r\nTZID:Custom\r\n" +
+            "BEGIN:STANDARD\r\nDTSTART:19701025T030000\r\nTZOFFSETFROM:+0200\r\nTZOFFSETTO:+0100\r\nEND:STANDARD\r\n" +
+            "END:VTIMEZONE\r\n";
+
+    @Test
+    public void mergesComponents() throws Exception {
+        StringWriter writer = new StringWriter();
+        CalendarMerger merger = new CalendarMerger(writer, "test");
+
+        merger.add("BEGIN:VCALENDAR\r\nVERSION:2.0\r\nPRODID:other\r\nMETHOD:PUBLISH\r\n" + TIMEZONE +
+                "BEGIN:VEVENT\r\nUID:1\r\nBEGIN:VALARM\r\nACTION:DISPLAY\r\nEND:VALARM\r\nEND:VEVENT\r\nEND:VCALENDAR\r\n");
+        merger.add("BEGIN:VCALENDAR\r\nVERSION:2.0\r\nPRODID:other\r\n" + TIMEZONE +
+                "BEGIN:VTODO\r\nUID:2\r\nEND:VTODO\r\nEND:VCALENDAR\r\n");
+        merger.add(null);
+        merger.finish();
+
+        assertEquals(HEADER + TIMEZONE +
+                "BEGIN:VEVENT\r\nUID:1\r\nBEGIN:VALARM\r\nACTION:DISPLAY\r\nEND:VALARM\r\nEND:VEVENT\r\n" +
+                "BEGIN:VTODO\r\nUID:2\r\nEND:VTODO\r\n" +
+                "END:VCALENDAR\r\n", writer.toString());
+        assertEquals(0, merger.getTimezoneConflicts());
+    }
+
+    @Test
+    public void keepsFoldedLines() throws Exception {
+        StringWriter writer = new StringWriter();
+        CalendarMerger merger = new CalendarMerger(writer, "test");
+
+        merger.add("BEGIN:VCALENDAR\r\nBEGIN:VEVENT\r\nUID:1\r\nSUMMARY:a long\r\n  summary\r\nEND:VEVENT\r\nEND:VCALENDAR\r\n");
+        merger.finish();
+
+        assertEquals(HEADER + "BEGIN:VEVENT\r\nUID:1\r\nSUMMARY:a long\r\n  summary\r\nEND:VEVENT\r\nEND:VCALENDAR\r\n", writer.toString());
+    }
+
+    @Test
+    public void firstTimezoneDefinitionWins() throws Exception {
+        StringWriter writer = new StringWriter();
+        CalendarMerger merger = new CalendarMerger(writer, "test");
+
+        merger.add("BEGIN:VCALENDAR\r\n" + TIMEZONE + "END:VCALENDAR\r\n");
+        merger.add("BEGIN:VCALENDAR\r\n" + TIMEZONE.replace("+0100", "+0000") + "END:VCALENDAR\r\n");
+        merger.finish();
+
+        assertEquals(HEADER + TIMEZONE + "END:VCALENDAR\r\n", writer.toString());
+        assertEquals(1, merger.getTimezoneConflicts());
+    }
+}
@@ -0,0 +1,145 @@
+package org.unitedinternet.cosmo.calendar;
+
+import net.fortuna.ical4j.data.ParserException;
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class CalendarSplitterTest {
+
+    private static final String TIMEZONE = "BEGIN:VTIMEZONE\r\nTZID:Custom\r\n" +
+            "BEGIN:STANDARD\r\nDTSTART:19701025T030000\r\nTZOFFSETFROM:+0200\r\nTZOFFSETTO:+0100\r\nEND:STANDARD\r\n" +
+            "END:VTIMEZONE\r\n";
+
+    @Test
+    public void groupsComponentsByUid() throws Exception {
+        CalendarSplitter splitter = split("BEGIN:VCALENDAR\r\nVERSION:2.0\r\nPRODID:test\r\nMETHOD:PUBLISH\r\n" +
+                "BEGIN:VEVENT\r\nUID:1\r\nDTSTART;TZID=Custom:20160104T100000\r\nEND:VEVENT\r\n" +
+                "BEGIN:VTODO\r\nUID:2\r\nEND:VTODO\r\n" +
+                "BEGIN:VEVENT\r\nUID:1\r\nRECURRENCE-ID;TZID=\"Custom\":20160111T100000\r\nEND:VEVENT\r\n" +
+                TIMEZONE +
+                "END:VCALENDAR\r\n");
+
+        assertTrue(splitter.next());
+        assertEquals("1", splitter.getUid());
+        assertEquals("VEVENT", splitter.getComponentName());
+        assertEquals("BEGIN:VCALENDAR\r\nVERSION:2.0\r\nPRODID:test\r\n" +
+                TIMEZONE +
+                "BEGIN:VEVENT\r\nUID:1\r\nDTSTART;TZID=Custom:20160104T100000\r\nEND:VEVENT\r\n" +
+                "BEGIN:VEVENT\r\nUID:1\r\nRECURRENCE-ID;TZID=\"Custom\":20160111T100000\r\nEND:VEVENT\r\n" +
+                "END:VCALENDAR\r\n", splitter.getCalendar());
+
+        assertTrue(splitter.next());
+        assertEquals("2", splitter.getUid());
+        assertEquals("VTODO", splitter.getComponentName());
+        assertFalse(splitter.getCalendar().contains("VTIMEZONE"));
+
+        assertFalse(splitter.next());
+        assertEquals(0, splitter.getSkippedCount());
+    }
+
+    @Test
+    public void unfoldsLines() throws Exception {
+        CalendarSplitter splitter = split("BEGIN:VCALENDAR\r\n" +
+                "BEGIN:VEVENT\r\nUID:a-very-\r\n long-uid\r\nSUMMARY:x\r\n\tyz\r\nEND:VEVENT\r\n" +
+                "END:VCALENDAR\r\n");
+
+        assertTrue(splitter.next());
+        assertEquals("a-very-long-uid", splitter.getUid());
+        assertTrue(splitter.getCalendar().contains("SUMMARY:xyz\r\n"));
+    }
+
+    @Test
+    public void nestedComponentsDontDefineUid() throws Exception {
+        CalendarSplitter splitter = split("BEGIN:VCALENDAR\r\n" +
+                "BEGIN:VEVENT\r\nBEGIN:VALARM\r\nUID:alarm\r\nEND:VALARM\r\nUID:event\r\nEND:VEVENT\r\n" +
+                "END:VCALENDAR\r\n");
+
+        assertEquals(Arrays.asList("event"), uids(splitter));
+    }
+
+    @Test
+    public void skipsComponentsWithoutUid() throws Exception {
+        CalendarSplitter splitter = split("BEGIN:VCALENDAR\r\n" +
+                "BEGIN:VEVENT\r\nSUMMARY:x\r\nEND:VEVENT\r\n" +
+                "BEGIN:VFREEBUSY\r\nUID:1\r\nEND:VFREEBUSY\r\n" +
+                "END:VCALENDAR\r\n" +
+                "BEGIN:VCALENDAR\r\n" +
+                "BEGIN:VEVENT\r\nUID:2\r\nEND:VEVENT\r\n" +
+                "END:VCALENDAR\r\n");
+
+        assertEquals(Arrays.asList("2"), uids(splitter));
+        assertEquals(2, splitter.getSkippedCount());
+    }
+
+    @Test
+    public void handsOutCalendarObjectsWhileReading() throws Exception {
+        CalendarSplitter splitter = new CalendarSplitter(new StringReader("BEGIN:VCALENDAR\r\n" +
+                "BEGIN:VEVENT\r\nUID:1\r\nEND:VEVENT\r\n" +
+                "BEGIN:VEVENT\r\nUID:1\r\nRECURRENCE-ID:20160111T100000Z\r\nEND:VEVENT\r\n" +
+                "BEGIN:VEVENT\r\nUID:2\r\nEND:VEVENT\r\n" +
+                "BEGIN:VEVENT\r\nUID:3\r\nEND:VEVENT\r\n" +
+                "BEGIN:VEVENT\r\nUID:1\r\nRECURRENCE-ID:20160118T100000Z\r\nEND:VEVENT\r\n" +
+                "BEGIN:VEVENT\r\nUID:4\r\nEND:VEVENT\r\n" +
+                "END:VCALENDAR\r\n" +
+                "BEGIN:VCALENDAR\r\n"), 1);
+
+        assertTrue(splitter.next());
+        assertEquals("1", splitter.getUid());
+        assertTrue(splitter.getCalendar().contains("20160111T100000Z"));
+        assertFalse(splitter.getCalendar().contains("20160118T100000Z"));
+
+        assertTrue(splitter.next());
+        assertEquals("2", splitter.getUid());
+        assertTrue(splitter.next());
+        assertEquals("3", splitter.getUid());
+
+        // too far behind its master, handed out on its own
+        assertTrue(splitter.next());
+        assertEquals("1", splitter.getUid());
+        assertTrue(splitter.getCalendar().contains("20160118T100000Z"));
+
+        // the unterminated calendar object is only detected once the stream has been read
+        try {
+            splitter.next();
+            fail("expected ParserException");
+        } catch (ParserException expected) {
+            // expected
+        }
+    }
+
+    @Test(expected = ParserException.class)
+    public void unterminatedCalendar() throws Exception {
+        uids(split("BEGIN:VCALENDAR\r\nBEGIN:VEVENT\r\nUID:1\r\nEND:VEVENT\r\n"));
+    }
+
+    @Test(expected = ParserException.class)
+    public void mismatchedEnd() throws Exception {
+        uids(split("BEGIN:VCALENDAR\r\nBEGIN:VEVENT\r\nUID:1\r\nEND:VTODO\r\nEND:VCALENDAR\r\n"));
+    }
+
+    @Test(expected = ParserException.class)
+    public void componentOutsideOfCalendar() throws Exception {
+        uids(split("BEGIN:VEVENT\r\nUID:1\r\nEND:VEVENT\r\n"));
+    }
+
+    private static CalendarSplitter split(String ics) throws Exception {
+        return CalendarSplitter.split(new StringReader(ics));
+    }
+
+    private static List<String> uids(CalendarSplitter splitter) throws Exception {
+        List<String> uids = new ArrayList<>();
+        while (splitter.next()) {
+            uids.add(splitter.getUid());
+        }
+        return uids;
+    }
+}
@@ -0,0 +1,181 @@
+package org.unitedinternet.cosmo.calendar;
+
+import carldav.entity.CollectionItem;
+import carldav.entity.Item;
+import carldav.entity.ItemInstance;
+import carldav.repository.InstanceMetadata;
+import carldav.repository.ItemRepository;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Date;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class CollectionTimeIndexTest {
+
+    private static final long HOUR = 3_600_000L;
+
+    private ItemRepository itemRepository;
+    private CollectionTimeIndex uut;
+
+    @Before
+    public void before() {
+        itemRepository = mock(ItemRepository.class);
+        uut = new CollectionTimeIndex(itemRepository, 100);
+
+        when(itemRepository.findInstanceMetadataByCollectionId(1L)).thenReturn(Arrays.asList(
+                row(10L, null, 0, 1, false),
+                row(10L, null, 24, 25, false),
+                row(11L, null, 2, 2, false),
+                row(12L, null, 5, 6, true),
+                row(13L, 48L, 30, 31, false)));
+    }
+
+    @Test
+    public void overlappingInstances() {
+        assertArrayEquals(new long[] {10L}, find(0, 1));
+        assertArrayEquals(new long[] {10L, 11L}, find(0, 3));
+        assertArrayEquals(new long[0], find(1, 2));
+        assertArrayEquals(new long[] {10L, 13L}, find(20, 40));
+
+        verify(itemRepository, times(1)).findInstanceMetadataByCollectionId(1L);
+        assertEquals(1, uut.getMissCount());
+        assertEquals(3, uut.getHitCount());
+    }
+
+    @Test
+    public void pointInTimeAtRangeStart() {
+        assertArrayEquals(new long[] {11L}, find(2, 3));
+    }
+
+    @Test
+    public void floatingInstances() {
+        assertArrayEquals(new long[0], uut.findItemIds(1L, at(5), at(6), at(0), at(1)));
+        assertArrayEquals(new long[] {10L, 12L}, uut.findItemIds(1L, at(0), at(1), at(5), at(6)));
+    }
+
+    @Test
+    public void beyondHorizon() {
+        assertArrayEquals(new long[] {13L}, find(50, 60));
+        assertArrayEquals(new long[0], find(40, 47));
+    }
+
+    @Test
+    public void longInstanceAmongShortInstances() {
+        when(itemRepository.findInstanceMetadataByCollectionId(2L)).thenReturn(Arrays.asList(
+                row(20L, null, 0, 1, false),
+                row(21L, null, 1, 20_000, false),
+                row(22L, null, 2, 3, false),
+                row(23L, null, 10, 11, false),
+                row(24L, null, 10_000, 10_001, false),
+                row(25L, null, 10_000, 10_000, false)));
+
+        assertArrayEquals(new long[] {21L, 23L}, uut.findItemIds(2L, at(10), at(12), at(10), at(12)));
+        assertArrayEquals(new long[] {21L}, uut.findItemIds(2L, at(4), at(5), at(4), at(5)));
+        assertArrayEquals(new long[] {21L, 24L, 25L}, uut.findItemIds(2L, at(10_000), at(10_001), at(10_000), at(10_001)));
+        assertArrayEquals(new long[0], uut.findItemIds(2L, at(20_000), at(20_001), at(20_000), at(20_001)));
+        assertArrayEquals(new long[] {20L}, uut.findItemIds(2L, at(0), at(1), at(0), at(1)));
+    }
+
+    @Test
+    public void update() {
+        find(0, 1);
+
+        Item item = item(10L);
+        item.getInstances().add(new ItemInstance(item, at(100), at(101), null, false));
+        uut.update(item);
+
+        assertArrayEquals(new long[0], find(0, 1));
+        assertArrayEquals(new long[] {10L, 13L}, find(100, 101));
+        verify(itemRepository, times(1)).findInstanceMetadataByCollectionId(1L);
+    }
+
+    @Test
+    public void remove() {
+        find(0, 1);
+
+        uut.remove(item(10L));
+
+        assertArrayEquals(new long[0], find(0, 1));
+        assertEquals(6, uut.getWeight());
+    }
+
+    @Test
+    public void evictLeastRecentlyUsed() {
+        when(itemRepository.findInstanceMetadataByCollectionId(2L)).thenReturn(Arrays.asList(row(20L, null, 0, 1, false)));
+        uut = new CollectionTimeIndex(itemRepository, 11);
+
+        find(0, 1);
+        uut.findItemIds(2L, at(0), at(1), at(0), at(1));
+        assertEquals(2, uut.getSize());
+
+        uut = new CollectionTimeIndex(itemRepository, 10);
+        find(0, 1);
+        uut.findItemIds(2L, at(0), at(1), at(0), at(1));
+        assertEquals(1, uut.getSize());
+        assertEquals(1, uut.getEvictionCount());
+    }
+
+    private long[] find(long startHour, long endHour) {
+        return uut.findItemIds(1L, at(startHour), at(endHour), at(startHour), at(endHour));
+    }
+
+    private static Date at(long hour) {
+        return new Date(hour * HOUR);
+    }
+
+    private static Item item(long id) {
+        CollectionItem collection = new CollectionItem();
+        collection.setId(1L);
+        Item item = new Item();
+        item.setId(id);
+        item.setCollection(collection);
+        return item;
+    }
+
+    private static InstanceMetadata row(Long itemId, Long horizonHour, long startHour, long endHour, boolean floating) {
+        return new InstanceMetadata() {
+            @Override
+            public Long getItemId() {
+                return itemId;
+            }
+
+            @Override
+            public Date getInstanceHorizon() {
+                return horizonHour == null ? null : at(horizonHour);
+            }
+
+            @Override
+            public Date getStartDate() {
+                return at(startHour);
+            }
+
+            @Override
+            public Date getEndDate() {
+                return horizonHour == null ? at(endHour) : at(Long.MAX_VALUE / HOUR);
+            }
+
+            @Override
+            public Date getInstanceStart() {
+                return at(startHour);
+            }
+
+            @Override
+            public Date getInstanceEnd() {
+                return at(endHour);
+            }
+
+            @Override
+            public Boolean getFloating() {
+                return floating;
+            }
+        };
+    }
+}
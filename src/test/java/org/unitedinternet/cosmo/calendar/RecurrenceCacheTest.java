@@ -0,0 +1,98 @@
+package org.unitedinternet.cosmo.calendar;
+
+import net.fortuna.ical4j.data.CalendarBuilder;
+import net.fortuna.ical4j.model.Calendar;
+import net.fortuna.ical4j.model.Component;
+import net.fortuna.ical4j.model.DateTime;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.StringReader;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class RecurrenceCacheTest {
+
+    private static final String CALENDAR = "BEGIN:VCALENDAR\r\nVERSION:2.0\r\nPRODID:test\r\n" +
+            "BEGIN:VEVENT\r\nUID:1\r\nDTSTAMP:20160101T000000Z\r\nDTSTART:20160104T100000Z\r\n" +
+            "DTEND:20160104T110000Z\r\nRRULE:FREQ=WEEKLY;COUNT=10\r\nEND:VEVENT\r\n" +
+            "END:VCALENDAR\r\n";
+
+    private Component master;
+
+    @Before
+    public void before() throws Exception {
+        Calendar calendar = new CalendarBuilder().build(new StringReader(CALENDAR));
+        master = (Component) calendar.getComponents().get(0);
+    }
+
+    @Test
+    public void subRangeServedFromCachedExpansion() throws Exception {
+        RecurrenceCache cache = new RecurrenceCache(100);
+
+        assertTrue(cache.overlaps("1-a", 0, master, null, utc("20160101T000000Z"), utc("20160401T000000Z")));
+        assertTrue(cache.overlaps("1-a", 0, master, null, utc("20160111T103000Z"), utc("20160111T120000Z")));
+        assertFalse(cache.overlaps("1-a", 0, master, null, utc("20160112T000000Z"), utc("20160118T000000Z")));
+        assertFalse(cache.overlaps("1-a", 0, master, null, utc("20160111T110000Z"), utc("20160111T120000Z")));
+
+        assertEquals(1, cache.getMissCount());
+        assertEquals(3, cache.getHitCount());
+        assertEquals(10, cache.getWeight());
+    }
+
+    @Test
+    public void widerRangeExpandsUnion() throws Exception {
+        RecurrenceCache cache = new RecurrenceCache(100);
+
+        assertFalse(cache.overlaps("1-a", 0, master, null, utc("20151201T000000Z"), utc("20160101T000000Z")));
+        assertTrue(cache.overlaps("1-a", 0, master, null, utc("20160201T000000Z"), utc("20160301T000000Z")));
+        assertTrue(cache.overlaps("1-a", 0, master, null, utc("20160104T000000Z"), utc("20160105T000000Z")));
+
+        assertEquals(2, cache.getMissCount());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getSize());
+    }
+
+    @Test
+    public void distantRangeExpandsRequestedRangeOnly() throws Exception {
+        RecurrenceCache cache = new RecurrenceCache(100);
+
+        assertTrue(cache.overlaps("1-a", 0, master, null, utc("20160101T000000Z"), utc("20160201T000000Z")));
+        assertFalse(cache.overlaps("1-a", 0, master, null, utc("20300101T000000Z"), utc("20300201T000000Z")));
+        assertTrue(cache.overlaps("1-a", 0, master, null, utc("20160201T000000Z"), utc("20160301T000000Z")));
+
+        assertEquals(3, cache.getMissCount());
+        assertEquals(0, cache.getHitCount());
+        assertEquals(1, cache.getSize());
+    }
+
+    @Test
+    public void versionsAreCachedSeparately() throws Exception {
+        RecurrenceCache cache = new RecurrenceCache(100);
+
+        cache.overlaps("1-a", 0, master, null, utc("20160101T000000Z"), utc("20160401T000000Z"));
+        cache.overlaps("1-b", 0, master, null, utc("20160101T000000Z"), utc("20160401T000000Z"));
+        cache.overlaps(null, 0, master, null, utc("20160101T000000Z"), utc("20160401T000000Z"));
+
+        assertEquals(2, cache.getMissCount());
+        assertEquals(2, cache.getSize());
+    }
+
+    @Test
+    public void evictLeastRecentlyUsed() throws Exception {
+        RecurrenceCache cache = new RecurrenceCache(15);
+
+        cache.overlaps("1-a", 0, master, null, utc("20160101T000000Z"), utc("20160401T000000Z"));
+        cache.overlaps("2-a", 0, master, null, utc("20160101T000000Z"), utc("20160401T000000Z"));
+
+        assertEquals(1, cache.getEvictionCount());
+        assertEquals(1, cache.getSize());
+        assertEquals(10, cache.getWeight());
+    }
+
+    private static DateTime utc(String value) throws Exception {
+        return new DateTime(value);
+    }
+}
@@ -0,0 +1,138 @@
+package org.unitedinternet.cosmo.calendar;
+
+import net.fortuna.ical4j.data.CalendarBuilder;
+import net.fortuna.ical4j.model.Calendar;
+import net.fortuna.ical4j.model.Component;
+import net.fortuna.ical4j.model.DateTime;
+import net.fortuna.ical4j.model.TimeZone;
+import net.fortuna.ical4j.model.component.Observance;
+import net.fortuna.ical4j.model.component.VTimeZone;
+import net.fortuna.ical4j.model.property.DtStart;
+import org.junit.Test;
+import org.unitedinternet.cosmo.dav.caldav.InvalidCalendarDataException;
+
+import java.io.StringReader;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class TimeZoneCacheTest {
+
+    private static final String VTIMEZONE = "BEGIN:VCALENDAR\r\nVERSION:2.0\r\nPRODID:test\r\n" +
+            "BEGIN:VTIMEZONE\r\nTZID:Custom\r\n" +
+            "BEGIN:STANDARD\r\nDTSTART:19701025T030000\r\nTZOFFSETFROM:+0200\r\nTZOFFSETTO:+0100\r\n" +
+            "RRULE:FREQ=YEARLY;BYMONTH=10;BYDAY=-1SU\r\nEND:STANDARD\r\n" +
+            "BEGIN:DAYLIGHT\r\nDTSTART:19700329T020000\r\nTZOFFSETFROM:+0100\r\nTZOFFSETTO:+0200\r\n" +
+            "RRULE:FREQ=YEARLY;BYMONTH=3;BYDAY=-1SU\r\nEND:DAYLIGHT\r\n" +
+            "END:VTIMEZONE\r\nEND:VCALENDAR\r\n";
+
+    private static final String EVENT = "BEGIN:VEVENT\r\nUID:1\r\nDTSTAMP:20160101T000000Z\r\n" +
+            "DTSTART;TZID=Custom:20160104T100000\r\nEND:VEVENT\r\n";
+
+    @Test
+    public void normalizedTextIsParsedOnce() throws Exception {
+        TimeZoneCache cache = new TimeZoneCache(10);
+
+        VTimeZone first = cache.getTimeZone(VTIMEZONE);
+        VTimeZone second = cache.getTimeZone("  " + VTIMEZONE.replace("\r\n", " \n"));
+
+        assertSame(first, second);
+        assertEquals("Custom", first.getTimeZoneId().getValue());
+        assertEquals(1, cache.getMissCount());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getDefinitionCount());
+    }
+
+    @Test
+    public void nullText() throws Exception {
+        assertNull(new TimeZoneCache(10).getTimeZone(null));
+    }
+
+    @Test(expected = InvalidCalendarDataException.class)
+    public void invalidTextIsRejected() throws Exception {
+        new TimeZoneCache(10).getTimeZone("BEGIN:VCALENDAR\r\nVERSION:2.0\r\nPRODID:test\r\nEND:VCALENDAR\r\n");
+    }
+
+    @Test
+    public void maxSizeBoundsCache() throws Exception {
+        TimeZoneCache cache = new TimeZoneCache(0);
+
+        assertNotSame(cache.getTimeZone(VTIMEZONE), cache.getTimeZone(VTIMEZONE));
+        assertEquals(0, cache.getDefinitionCount());
+    }
+
+    @Test
+    public void equalDefinitionsShareTimeZone() throws Exception {
+        TimeZoneCache cache = new TimeZoneCache(10);
+
+        DateTime first = startOf(parse(cache, VTIMEZONE.replace("END:VCALENDAR", EVENT + "END:VCALENDAR")));
+        DateTime second = startOf(parse(cache, VTIMEZONE.replace("END:VCALENDAR", EVENT + "END:VCALENDAR")));
+
+        assertSame(first.getTimeZone(), second.getTimeZone());
+        assertEquals(new DateTime("20160104T090000Z").getTime(), first.getTime());
+        assertEquals(1, cache.getTimeZoneCount());
+    }
+
+    @Test
+    public void sharedTimeZoneComputesOnsetsPerThread() throws Exception {
+        TimeZoneCache cache = new TimeZoneCache(10);
+        TimeZone timezone = startOf(parse(cache, VTIMEZONE.replace("END:VCALENDAR", EVENT + "END:VCALENDAR"))).getTimeZone();
+        DateTime winter = new DateTime("21500104T100000Z");
+
+        Observance observance = timezone.getVTimeZone().getApplicableObservance(winter);
+        AtomicReference<Observance> other = new AtomicReference<>();
+        Thread thread = new Thread(() -> other.set(timezone.getVTimeZone().getApplicableObservance(winter)));
+        thread.start();
+        thread.join();
+
+        assertSame(observance, timezone.getVTimeZone().getApplicableObservance(winter));
+        assertNotSame(observance, other.get());
+        assertEquals(observance, other.get());
+        assertEquals(3_600_000, timezone.getOffset(winter.getTime()));
+        assertEquals(7_200_000, timezone.getOffset(new DateTime("21500704T100000Z").getTime()));
+    }
+
+    @Test
+    public void cachedDefinitionComputesOnsetsPerThread() throws Exception {
+        VTimeZone definition = new TimeZoneCache(10).getTimeZone(VTIMEZONE);
+        DateTime summer = new DateTime("20160704T100000Z");
+
+        AtomicReference<Observance> other = new AtomicReference<>();
+        Thread thread = new Thread(() -> other.set(definition.getApplicableObservance(summer)));
+        thread.start();
+        thread.join();
+
+        assertNotSame(definition.getApplicableObservance(summer), other.get());
+        assertEquals(Observance.DAYLIGHT, other.get().getName());
+    }
+
+    @Test
+    public void differentDefinitionsAreNotShared() throws Exception {
+        TimeZoneCache cache = new TimeZoneCache(10);
+
+        DateTime first = startOf(parse(cache, VTIMEZONE.replace("END:VCALENDAR", EVENT + "END:VCALENDAR")));
+        DateTime second = startOf(parse(cache, VTIMEZONE.replace("+0100", "+0000").replace("END:VCALENDAR", EVENT + "END:VCALENDAR")));
+
+        assertNotSame(first.getTimeZone(), second.getTimeZone());
+        assertEquals(new DateTime("20160104T100000Z").getTime(), second.getTime());
+        assertEquals(2, cache.getTimeZoneCount());
+    }
+
+    @Test
+    public void unknownTzidFallsBackToDefaultRegistry() throws Exception {
+        TimeZoneCache cache = new TimeZoneCache(10);
+
+        assertEquals("Europe/Berlin", cache.createRegistry().getTimeZone("Europe/Berlin").getID());
+    }
+
+    private static Calendar parse(TimeZoneCache cache, String ical) throws Exception {
+        return new CalendarBuilder(cache.createRegistry()).build(new StringReader(ical));
+    }
+
+    private static DateTime startOf(Calendar calendar) {
+        return (DateTime) ((DtStart) calendar.getComponent(Component.VEVENT).getProperty("DTSTART")).getDate();
+    }
+}
@@ -32,9 +32,9 @@ import org.junit.Test;
 import java.io.InputStream;
 
 /**
- * Test CalendarFilterEvaluater
+ * Test CompiledCalendarFilter
  */
-public class CalendarFilterEvaluaterTest {
+public class CompiledCalendarFilterTest {
     
     /**
      * SetUp.
@@ -66,7 +66,6 @@ public class CalendarFilterEvaluaterTest {
     @Test
     public void testEvaluateFilterPropFilter() throws Exception {
         
-        CalendarFilterEvaluater evaluater = new CalendarFilterEvaluater();
         Calendar calendar = getCalendar("cal1.ics");
         
         CalendarFilter filter = new CalendarFilter();
@@ -79,27 +78,27 @@ public class CalendarFilterEvaluaterTest {
         propFilter.setTextMatchFilter(textFilter);
         eventFilter.getPropFilters().add(propFilter);
         
-        Assert.assertTrue(evaluater.evaluate(calendar, filter));
+        Assert.assertTrue(CompiledCalendarFilter.compile(filter).matches(calendar));
         
         textFilter.setValue("ViSiBle");
         textFilter.setCollation(textFilter.COLLATION_OCTET);
-        Assert.assertFalse(evaluater.evaluate(calendar, filter));
+        Assert.assertFalse(CompiledCalendarFilter.compile(filter).matches(calendar));
         
         textFilter.setCollation(null);
-        Assert.assertTrue(evaluater.evaluate(calendar, filter));
+        Assert.assertTrue(CompiledCalendarFilter.compile(filter).matches(calendar));
         
         textFilter.setValue("XXX");
         textFilter.setNegateCondition(true);
-        Assert.assertTrue(evaluater.evaluate(calendar, filter));
+        Assert.assertTrue(CompiledCalendarFilter.compile(filter).matches(calendar));
         
         propFilter.setTextMatchFilter(null);
-        Assert.assertTrue(evaluater.evaluate(calendar, filter));
+        Assert.assertTrue(CompiledCalendarFilter.compile(filter).matches(calendar));
         
         propFilter.setName("RRULE");
-        Assert.assertFalse(evaluater.evaluate(calendar, filter));
+        Assert.assertFalse(CompiledCalendarFilter.compile(filter).matches(calendar));
         
         propFilter.setIsNotDefinedFilter(new IsNotDefinedFilter());
-        Assert.assertTrue(evaluater.evaluate(calendar, filter));
+        Assert.assertTrue(CompiledCalendarFilter.compile(filter).matches(calendar));
     }
     
     /**
@@ -110,7 +109,6 @@ public class CalendarFilterEvaluaterTest {
     @Test
     public void testEvaluateFilterParamFilter() throws Exception {
         
-        CalendarFilterEvaluater evaluater = new CalendarFilterEvaluater();
         Calendar calendar = getCalendar("cal1.ics");
         
         CalendarFilter filter = new CalendarFilter();
@@ -125,22 +123,22 @@ public class CalendarFilterEvaluaterTest {
         propFilter.getParamFilters().add(paramFilter);
         eventFilter.getPropFilters().add(propFilter);
         
-        Assert.assertTrue(evaluater.evaluate(calendar, filter));
+        Assert.assertTrue(CompiledCalendarFilter.compile(filter).matches(calendar));
         
         textFilter.setValue("XXX");
-        Assert.assertFalse(evaluater.evaluate(calendar, filter));
+        Assert.assertFalse(CompiledCalendarFilter.compile(filter).matches(calendar));
 
         textFilter.setNegateCondition(true);
-        Assert.assertTrue(evaluater.evaluate(calendar, filter));
+        Assert.assertTrue(CompiledCalendarFilter.compile(filter).matches(calendar));
         
         paramFilter.setTextMatchFilter(null);
-        Assert.assertTrue(evaluater.evaluate(calendar, filter));
+        Assert.assertTrue(CompiledCalendarFilter.compile(filter).matches(calendar));
         
         paramFilter.setName("BOGUS");
-        Assert.assertFalse(evaluater.evaluate(calendar, filter));
+        Assert.assertFalse(CompiledCalendarFilter.compile(filter).matches(calendar));
         
         paramFilter.setIsNotDefinedFilter(new IsNotDefinedFilter());
-        Assert.assertTrue(evaluater.evaluate(calendar, filter));
+        Assert.assertTrue(CompiledCalendarFilter.compile(filter).matches(calendar));
     }
     
     /**
@@ -151,7 +149,6 @@ public class CalendarFilterEvaluaterTest {
     @Test
     public void testEvaluateFilterEventTimeRangeFilter() throws Exception {
         
-        CalendarFilterEvaluater evaluater = new CalendarFilterEvaluater();
         Calendar calendar = getCalendar("cal1.ics");
         
         CalendarFilter filter = new CalendarFilter();
@@ -168,12 +165,12 @@ public class CalendarFilterEvaluaterTest {
        
         eventFilter.setTimeRangeFilter(timeRangeFilter);
         
-        Assert.assertTrue(evaluater.evaluate(calendar, filter));
+        Assert.assertTrue(CompiledCalendarFilter.compile(filter).matches(calendar));
         
         start = new DateTime("20050818T115000Z");
         period = new Period(start, end);
         timeRangeFilter.setPeriod(period);
-        Assert.assertFalse(evaluater.evaluate(calendar, filter));
+        Assert.assertFalse(CompiledCalendarFilter.compile(filter).matches(calendar));
     }
     
     /**
@@ -184,7 +181,6 @@ public class CalendarFilterEvaluaterTest {
     @Test
     public void testEvaluateFilterRecurringEventTimeRangeFilter() throws Exception {
         
-        CalendarFilterEvaluater evaluater = new CalendarFilterEvaluater();
         Calendar calendar = getCalendar("eventwithtimezone1.ics");
         
         CalendarFilter filter = new CalendarFilter();
@@ -201,12 +197,12 @@ public class CalendarFilterEvaluaterTest {
        
         eventFilter.setTimeRangeFilter(timeRangeFilter);
         
-        Assert.assertTrue(evaluater.evaluate(calendar, filter));
+        Assert.assertTrue(CompiledCalendarFilter.compile(filter).matches(calendar));
         
         start = new DateTime("20070515T205000Z");
         period = new Period(start, end);
         timeRangeFilter.setPeriod(period);
-        Assert.assertFalse(evaluater.evaluate(calendar, filter));
+        Assert.assertFalse(CompiledCalendarFilter.compile(filter).matches(calendar));
     }
        
     /**
@@ -217,7 +213,6 @@ public class CalendarFilterEvaluaterTest {
     @Test
     public void testEvaluateFilterPropertyTimeRangeFilter() throws Exception {
         
-        CalendarFilterEvaluater evaluater = new CalendarFilterEvaluater();
         Calendar calendar = getCalendar("cal1.ics");
         
         CalendarFilter filter = new CalendarFilter();
@@ -236,12 +231,12 @@ public class CalendarFilterEvaluaterTest {
         propFilter.setTimeRangeFilter(timeRangeFilter);
         eventFilter.getPropFilters().add(propFilter);
         
-        Assert.assertTrue(evaluater.evaluate(calendar, filter));
+        Assert.assertTrue(CompiledCalendarFilter.compile(filter).matches(calendar));
         
         start = new DateTime("20060717T115000Z");
         period = new Period(start, end);
         timeRangeFilter.setPeriod(period);
-        Assert.assertFalse(evaluater.evaluate(calendar, filter));
+        Assert.assertFalse(CompiledCalendarFilter.compile(filter).matches(calendar));
     }
     
     /**
@@ -252,7 +247,6 @@ public class CalendarFilterEvaluaterTest {
     @Test
     public void testEvaluateComplicated() throws Exception {
         
-        CalendarFilterEvaluater evaluater = new CalendarFilterEvaluater();
         Calendar calendar = getCalendar("cal1.ics");
         
         CalendarFilter filter = new CalendarFilter();
@@ -286,11 +280,11 @@ public class CalendarFilterEvaluaterTest {
         
         eventFilter.getPropFilters().add(propFilter2);
         
-        Assert.assertTrue(evaluater.evaluate(calendar, filter));
+        Assert.assertTrue(CompiledCalendarFilter.compile(filter).matches(calendar));
         
         // change one thing
         paramFilter2.setName("XXX");
-        Assert.assertFalse(evaluater.evaluate(calendar, filter));
+        Assert.assertFalse(CompiledCalendarFilter.compile(filter).matches(calendar));
     }
     
     /**
@@ -301,7 +295,6 @@ public class CalendarFilterEvaluaterTest {
     @Test
     public void testEvaluateVAlarmFilter() throws Exception {
         
-        CalendarFilterEvaluater evaluater = new CalendarFilterEvaluater();
         Calendar calendar = getCalendar("event_with_alarm.ics");
         
         
@@ -319,13 +312,13 @@ public class CalendarFilterEvaluaterTest {
         eventFilter.getComponentFilters().add(alarmFilter);
         alarmFilter.getPropFilters().add(propFilter);
        
-        Assert.assertTrue(evaluater.evaluate(calendar, filter));
+        Assert.assertTrue(CompiledCalendarFilter.compile(filter).matches(calendar));
         
         textMatch.setValue("EMAIL");
-        Assert.assertFalse(evaluater.evaluate(calendar, filter));
+        Assert.assertFalse(CompiledCalendarFilter.compile(filter).matches(calendar));
         
         alarmFilter.getPropFilters().clear();
-        Assert.assertTrue(evaluater.evaluate(calendar, filter));
+        Assert.assertTrue(CompiledCalendarFilter.compile(filter).matches(calendar));
         
         // time-range filter on VALARM
         
@@ -336,32 +329,32 @@ public class CalendarFilterEvaluaterTest {
         Period period = new Period(start, end);
         TimeRangeFilter timeRangeFilter = new TimeRangeFilter(period);
         alarmFilter.setTimeRangeFilter(timeRangeFilter);
-        Assert.assertTrue(evaluater.evaluate(calendar, filter));
+        Assert.assertTrue(CompiledCalendarFilter.compile(filter).matches(calendar));
         
         // find alarm relative to end
         start = new DateTime("20060101T050000Z");
         end = new DateTime("20060101T190000Z");
         period = new Period(start, end);
         timeRangeFilter.setPeriod(period);
-        Assert.assertTrue(evaluater.evaluate(calendar, filter));
+        Assert.assertTrue(CompiledCalendarFilter.compile(filter).matches(calendar));
         
         // find absolute repeating alarm
         start = new DateTime("20051230T050000Z");
         end = new DateTime("20051230T080000Z");
         period = new Period(start, end);
         timeRangeFilter.setPeriod(period);
-        Assert.assertTrue(evaluater.evaluate(calendar, filter));
+        Assert.assertTrue(CompiledCalendarFilter.compile(filter).matches(calendar));
         
         // find no alarms
         start = new DateTime("20060101T020000Z");
         end = new DateTime("20060101T030000Z");
         period = new Period(start, end);
         timeRangeFilter.setPeriod(period);
-        Assert.assertFalse(evaluater.evaluate(calendar, filter));
+        Assert.assertFalse(CompiledCalendarFilter.compile(filter).matches(calendar));
         
         alarmFilter.setTimeRangeFilter(null);
         alarmFilter.setIsNotDefinedFilter(new IsNotDefinedFilter());
-        Assert.assertFalse(evaluater.evaluate(calendar, filter));
+        Assert.assertFalse(CompiledCalendarFilter.compile(filter).matches(calendar));
     }
     
     /**
@@ -372,7 +365,6 @@ public class CalendarFilterEvaluaterTest {
     @Test
     public void testEvaluateFilterPropFilterAgainstException() throws Exception {
        
-        CalendarFilterEvaluater evaluater = new CalendarFilterEvaluater();
         Calendar calendar = getCalendar("event_with_exception.ics");
         
         CalendarFilter filter = new CalendarFilter();
@@ -383,7 +375,7 @@ public class CalendarFilterEvaluaterTest {
         PropertyFilter propFilter = new PropertyFilter("DESCRIPTION");
         eventFilter.getPropFilters().add(propFilter);
         
-        Assert.assertTrue(evaluater.evaluate(calendar, filter));
+        Assert.assertTrue(CompiledCalendarFilter.compile(filter).matches(calendar));
     }
     
     /**
@@ -394,7 +386,6 @@ public class CalendarFilterEvaluaterTest {
     @Test
     public void testEvaluateVJournalFilterPropFilter() throws Exception {
         
-        CalendarFilterEvaluater evaluater = new CalendarFilterEvaluater();
         Calendar calendar = getCalendar("vjournal.ics");
         
         
@@ -404,17 +395,17 @@ public class CalendarFilterEvaluaterTest {
         filter.setFilter(compFilter);
         compFilter.getComponentFilters().add(eventFilter);
         
-        Assert.assertTrue(evaluater.evaluate(calendar, filter));
+        Assert.assertTrue(CompiledCalendarFilter.compile(filter).matches(calendar));
         
         PropertyFilter propFilter = new PropertyFilter("SUMMARY");
         TextMatchFilter textFilter = new TextMatchFilter("Staff");
         propFilter.setTextMatchFilter(textFilter);
         eventFilter.getPropFilters().add(propFilter);
         
-        Assert.assertTrue(evaluater.evaluate(calendar, filter));
+        Assert.assertTrue(CompiledCalendarFilter.compile(filter).matches(calendar));
         
         textFilter.setValue("bogus");
-        Assert.assertFalse(evaluater.evaluate(calendar, filter));
+        Assert.assertFalse(CompiledCalendarFilter.compile(filter).matches(calendar));
     }
     
     /**
@@ -425,7 +416,6 @@ public class CalendarFilterEvaluaterTest {
     @Test
     public void testEvaluateVToDoFilterPropFilter() throws Exception {
         
-        CalendarFilterEvaluater evaluater = new CalendarFilterEvaluater();
         Calendar calendar = getCalendar("vtodo.ics");
         
         
@@ -435,17 +425,17 @@ public class CalendarFilterEvaluaterTest {
         filter.setFilter(compFilter);
         compFilter.getComponentFilters().add(eventFilter);
         
-        Assert.assertTrue(evaluater.evaluate(calendar, filter));
+        Assert.assertTrue(CompiledCalendarFilter.compile(filter).matches(calendar));
         
         PropertyFilter propFilter = new PropertyFilter("SUMMARY");
         TextMatchFilter textFilter = new TextMatchFilter("Income");
         propFilter.setTextMatchFilter(textFilter);
         eventFilter.getPropFilters().add(propFilter);
         
-        Assert.assertTrue(evaluater.evaluate(calendar, filter));
+        Assert.assertTrue(CompiledCalendarFilter.compile(filter).matches(calendar));
         
         textFilter.setValue("bogus");
-        Assert.assertFalse(evaluater.evaluate(calendar, filter));
+        Assert.assertFalse(CompiledCalendarFilter.compile(filter).matches(calendar));
     }
     
     /**
@@ -459,7 +449,6 @@ public class CalendarFilterEvaluaterTest {
         Calendar calendar1 = getCalendar("vtodo/vtodo.ics");
         Calendar calendar2 = getCalendar("vtodo/vtodo_due_only.ics");
         
-        CalendarFilterEvaluater evaluater = new CalendarFilterEvaluater();
        
         CalendarFilter filter = new CalendarFilter();
         ComponentFilter compFilter = new ComponentFilter("VCALENDAR");
@@ -474,37 +463,35 @@ public class CalendarFilterEvaluaterTest {
         TimeRangeFilter timeRangeFilter = new TimeRangeFilter(period);
         vtodoFilter.setTimeRangeFilter(timeRangeFilter);
         
-        Assert.assertTrue(evaluater.evaluate(calendar1, filter));
+        Assert.assertTrue(CompiledCalendarFilter.compile(filter).matches(calendar1));
         
         // Verify VTODO that has DTSTART doesn't match
         start = new DateTime("19970420T133000Z");
         end = new DateTime("19970421T133000Z");
         period = new Period(start, end);
         timeRangeFilter.setPeriod(period);
-        Assert.assertFalse(evaluater.evaluate(calendar1, filter));
+        Assert.assertFalse(CompiledCalendarFilter.compile(filter).matches(calendar1));
         
         // Verify VTODO that has DUE doesn't match
-        Assert.assertFalse(evaluater.evaluate(calendar2, filter));
+        Assert.assertFalse(CompiledCalendarFilter.compile(filter).matches(calendar2));
         
         // Verify VTODO that has DUE matches
         start = new DateTime("20080401T133000Z");
         end = new DateTime("20080421T133000Z");
         period = new Period(start, end);
         timeRangeFilter.setPeriod(period);
-        Assert.assertTrue(evaluater.evaluate(calendar2, filter));
+        Assert.assertTrue(CompiledCalendarFilter.compile(filter).matches(calendar2));
     }
 
     @Test
     public void testNotVCalendar() {
-        final CalendarFilterEvaluater uut = new CalendarFilterEvaluater();
-
         final ComponentFilter componentFilter = mock(ComponentFilter.class);
         final CalendarFilter calendarFilter = mock(CalendarFilter.class);
 
         when(calendarFilter.getFilter()).thenReturn(componentFilter);
         when(componentFilter.getName()).thenReturn("NOT_VCALENDAR");
 
-        uut.evaluate(null, calendarFilter);
+        Assert.assertFalse(CompiledCalendarFilter.compile(calendarFilter).matches(null));
 
         verify(componentFilter, never()).getComponentFilters();
     }
@@ -0,0 +1,61 @@
+package org.unitedinternet.cosmo.calendar.query.impl;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ParallelFilterEvaluatorTest {
+
+    private final ParallelFilterEvaluator uut = new ParallelFilterEvaluator(4, 2);
+
+    @After
+    public void tearDown() {
+        uut.shutdown();
+    }
+
+    @Test
+    public void matchesInSourceOrder() {
+        List<Integer> result = uut.filter(IntStream.range(0, 1000).boxed(), i -> i % 3 == 0, 100).collect(Collectors.toList());
+
+        assertEquals(IntStream.range(0, 1000).filter(i -> i % 3 == 0).boxed().collect(Collectors.toList()), result);
+    }
+
+    @Test
+    public void requestParallelismCapped() {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+
+        uut.filter(IntStream.range(0, 500).boxed(), i -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            running.decrementAndGet();
+            return true;
+        }, 100).count();
+
+        assertTrue(maxRunning.get() <= 2);
+    }
+
+    @Test
+    public void closesSource() {
+        AtomicBoolean closed = new AtomicBoolean();
+
+        try (Stream<Integer> stream = uut.filter(Stream.of(1, 2, 3).onClose(() -> closed.set(true)), i -> true, 2)) {
+            assertEquals(3, stream.count());
+        }
+
+        assertTrue(closed.get());
+    }
+}
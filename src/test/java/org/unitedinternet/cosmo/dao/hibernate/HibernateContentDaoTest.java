@@ -15,6 +15,7 @@
  */
 package org.unitedinternet.cosmo.dao.hibernate;
 
+import org.hibernate.Hibernate;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
@@ -22,12 +23,20 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.test.context.support.WithUserDetails;
 import org.unitedinternet.cosmo.IntegrationTestSupport;
 import carldav.repository.CollectionRepository;
+import carldav.repository.ItemContentRepository;
 import carldav.repository.ItemRepository;
 import carldav.repository.UserRepository;
 import carldav.entity.CollectionItem;
 import carldav.entity.Item;
+import carldav.entity.ItemContent;
 import carldav.entity.User;
 
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
 @WithUserDetails("test01@localhost.de")
 public class HibernateContentDaoTest extends IntegrationTestSupport {
 
@@ -37,6 +46,10 @@ public class HibernateContentDaoTest extends IntegrationTestSupport {
     private ItemRepository itemRepository;
     @Autowired
     private CollectionRepository collectionRepository;
+    @Autowired
+    private ItemContentRepository itemContentRepository;
+    @PersistenceContext
+    private EntityManager entityManager;
 
     @Rule
     public ExpectedException expectedException = ExpectedException.none();
@@ -94,6 +107,26 @@ public class HibernateContentDaoTest extends IntegrationTestSupport {
         collectionRepository.save(b);
     }
 
+    @Test
+    public void contentLoadedLazily() throws Exception {
+        User user = userRepository.findByEmailIgnoreCase("test01@localhost.de");
+        CollectionItem root = collectionRepository.findHomeCollectionByCurrentUser();
+
+        Item item = generateTestContent(user);
+        item.setUid("1");
+        item.setContent(itemContentRepository.save(new ItemContent("BEGIN:VCALENDAR")));
+        item.setCollection(root);
+        itemRepository.save(item);
+
+        entityManager.flush();
+        entityManager.clear();
+
+        Item loaded = itemRepository.findByCollectionId(root.getId()).get(0);
+
+        assertFalse(Hibernate.isInitialized(loaded.getContent()));
+        assertEquals("BEGIN:VCALENDAR", loaded.getCalendar());
+    }
+
     private Item generateTestContent(User owner) {
         Item content = new Item();
         content.setName(owner.getEmail());
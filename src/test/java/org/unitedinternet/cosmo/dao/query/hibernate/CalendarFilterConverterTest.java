@@ -0,0 +1,115 @@
+package org.unitedinternet.cosmo.dao.query.hibernate;
+
+import carldav.entity.Item;
+import carldav.entity.ItemInstance;
+import net.fortuna.ical4j.data.CalendarBuilder;
+import net.fortuna.ical4j.model.Calendar;
+import net.fortuna.ical4j.model.DateTime;
+import net.fortuna.ical4j.model.Period;
+import net.fortuna.ical4j.model.TimeZoneRegistryFactory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.unitedinternet.cosmo.calendar.CalendarCache;
+import org.unitedinternet.cosmo.calendar.InstanceIndexer;
+import org.unitedinternet.cosmo.calendar.query.CalendarFilter;
+import org.unitedinternet.cosmo.calendar.query.ComponentFilter;
+import org.unitedinternet.cosmo.calendar.query.TimeRangeFilter;
+
+import java.io.StringReader;
+import java.util.Date;
+import java.util.TimeZone;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Runs with a server default timezone other than UTC, floating instances are materialized in it.
+ */
+public class CalendarFilterConverterTest {
+
+    private static final String FLOATING_EVENT = "BEGIN:VCALENDAR\r\nVERSION:2.0\r\nPRODID:test\r\n" +
+            "BEGIN:VEVENT\r\nUID:1\r\nDTSTAMP:20160101T000000Z\r\nDTSTART:20170102T100000\r\nDTEND:20170102T110000\r\n" +
+            "END:VEVENT\r\nEND:VCALENDAR\r\n";
+
+    private final CalendarFilterConverter uut = new CalendarFilterConverter();
+    private TimeZone defaultTimezone;
+
+    @Before
+    public void before() {
+        defaultTimezone = TimeZone.getDefault();
+        TimeZone.setDefault(TimeZone.getTimeZone("America/New_York"));
+    }
+
+    @After
+    public void after() {
+        TimeZone.setDefault(defaultTimezone);
+    }
+
+    @Test
+    public void floatingRangeInRequestedTimezone() throws Exception {
+        ItemInstance instance = indexFloatingEvent();
+
+        // 10:00 floating in Europe/Berlin is 09:00 UTC
+        assertTrue(overlaps(instance, range("20170102T083000Z", "20170102T093000Z", "Europe/Berlin")));
+        assertFalse(overlaps(instance, range("20170102T100000Z", "20170102T103000Z", "Europe/Berlin")));
+    }
+
+    @Test
+    public void floatingRangeWithoutTimezone() throws Exception {
+        ItemInstance instance = indexFloatingEvent();
+
+        // 10:00 floating in server local time America/New_York is 15:00 UTC
+        assertTrue(overlaps(instance, range("20170102T143000Z", "20170102T153000Z", null)));
+        assertFalse(overlaps(instance, range("20170102T093000Z", "20170102T103000Z", null)));
+    }
+
+    @Test
+    public void floatingBoundsAcrossDaylightSavingTransition() throws Exception {
+        // America/New_York switches to daylight saving time at 2017-03-12T07:00:00Z
+        CalendarQueryPlan.InstanceRange range = range("20170311T090000Z", "20170312T063000Z", "Europe/Berlin");
+
+        // 10:00 on the 11th is standard time in New York, 07:30 on the 12th is already daylight saving time
+        assertEquals(new DateTime("20170311T150000Z").getTime(), range.getFloatingStart().getTime());
+        assertEquals(new DateTime("20170312T113000Z").getTime(), range.getFloatingEnd().getTime());
+    }
+
+    private ItemInstance indexFloatingEvent() throws Exception {
+        Calendar calendar = new CalendarBuilder().build(new StringReader(FLOATING_EVENT));
+        Item item = new Item(Item.Type.VEVENT);
+        item.setStartDate(new DateTime("20170102T000000Z"));
+        item.setEndDate(new DateTime("20170103T000000Z"));
+
+        new InstanceIndexer(730, new CalendarCache(0)).index(item, calendar);
+
+        assertEquals(1, item.getInstances().size());
+        ItemInstance instance = item.getInstances().iterator().next();
+        assertTrue(instance.getFloating());
+        return instance;
+    }
+
+    private CalendarQueryPlan.InstanceRange range(String start, String end, String timezone) throws Exception {
+        TimeRangeFilter timeRange = new TimeRangeFilter(new Period(new DateTime(start), new DateTime(end)));
+        if (timezone != null) {
+            timeRange.setTimezone(TimeZoneRegistryFactory.getInstance().createRegistry().getTimeZone(timezone).getVTimeZone());
+        }
+        ComponentFilter event = new ComponentFilter("VEVENT");
+        event.setTimeRangeFilter(timeRange);
+        ComponentFilter root = new ComponentFilter("VCALENDAR");
+        root.getComponentFilters().add(event);
+        CalendarFilter filter = new CalendarFilter();
+        filter.setFilter(root);
+        filter.setParent(1L);
+
+        CalendarQueryPlan plan = uut.plan(filter);
+        assertEquals(1, plan.getInstanceRanges().size());
+        return plan.getInstanceRanges().get(0);
+    }
+
+    private static boolean overlaps(ItemInstance instance, CalendarQueryPlan.InstanceRange range) {
+        Date start = range.getFloatingStart();
+        Date end = range.getFloatingEnd();
+        return instance.getStartDate().before(end) && instance.getEndDate().after(start);
+    }
+}
@@ -0,0 +1,88 @@
+package org.unitedinternet.cosmo.dav.impl;
+
+import carldav.entity.Item;
+import carldav.jackrabbit.webdav.property.DavPropertyName;
+import carldav.repository.CollectionRepository;
+import carldav.repository.ItemMetadata;
+import carldav.repository.ItemRepository;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.unitedinternet.cosmo.IntegrationTestSupport;
+import org.unitedinternet.cosmo.dav.DavResourceFactory;
+import org.unitedinternet.cosmo.dav.DavResourceLocator;
+import org.unitedinternet.cosmo.dav.DavResourceLocatorFactory;
+import org.unitedinternet.cosmo.dav.WebDavResource;
+import org.unitedinternet.cosmo.service.ContentService;
+
+import java.net.URL;
+import java.util.Arrays;
+import java.util.HashSet;
+
+import static org.junit.Assert.assertEquals;
+
+public class DavItemMetadataResourceTest extends IntegrationTestSupport {
+
+    private static final String CARD = "BEGIN:VCARD\r\nVERSION:3.0\r\nUID:1\r\nFN:test\r\nEND:VCARD\r\n";
+
+    @Autowired
+    private ContentService contentService;
+
+    @Autowired
+    private CollectionRepository collectionRepository;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private DavResourceFactory resourceFactory;
+
+    @Autowired
+    private DavResourceLocatorFactory locatorFactory;
+
+    @Test
+    public void writesContentOfLoadedItem() throws Exception {
+        Item item = new Item(Item.Type.VCARD);
+        item.setName("1.vcf");
+        item.setUid("1");
+        item.setDisplayName("1");
+        item.setMimetype("text/vcard");
+        item.setCalendar(CARD);
+        item = contentService.createContent(collectionRepository.findOne(3L), item);
+
+        ItemMetadata metadata = itemRepository.findMetadataByCollectionId(3L).get(0);
+        DavResourceLocator locator = locatorFactory.createResourceLocatorByUri(new URL("http://localhost/carldav"),
+                "/carldav/dav/test01@localhost.de/contacts/1.vcf");
+        DavItemMetadataResource resource = new DavItemMetadataResource(metadata, locator, resourceFactory);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        resource.writeHead(response);
+        resource.writeBody(response);
+
+        assertEquals("text/vcard", response.getContentType());
+        assertEquals(item.getEtag(), response.getHeader("ETag").replace("\"", ""));
+        assertEquals(CARD, response.getContentAsString());
+    }
+
+    @Test
+    public void rendersPropertiesOfLoadedItem() throws Exception {
+        Item item = new Item(Item.Type.VCARD);
+        item.setName("1.vcf");
+        item.setUid("1");
+        item.setDisplayName("1");
+        item.setMimetype("text/vcard");
+        item.setCalendar(CARD);
+        item = contentService.createContent(collectionRepository.findOne(3L), item);
+
+        ItemMetadata metadata = itemRepository.findMetadataByCollectionId(3L).get(0);
+        DavResourceLocator locator = locatorFactory.createResourceLocatorByUri(new URL("http://localhost/carldav"),
+                "/carldav/dav/test01@localhost.de/contacts/1.vcf");
+        DavItemMetadataResource resource = new DavItemMetadataResource(metadata, locator, resourceFactory);
+        WebDavResource loaded = resourceFactory.createResource(locator, item);
+
+        assertEquals(new HashSet<>(Arrays.asList(loaded.getPropertyNames())), new HashSet<>(Arrays.asList(resource.getPropertyNames())));
+        for (DavPropertyName name : loaded.getPropertyNames()) {
+            assertEquals(name.toString(), loaded.getProperty(name).getValue(), resource.getProperty(name).getValue());
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package org.unitedinternet.cosmo.service.impl;
+
+import carldav.entity.CollectionItem;
+import carldav.entity.Item;
+import carldav.entity.ItemContent;
+import carldav.repository.CollectionRepository;
+import carldav.repository.ItemContentRepository;
+import carldav.repository.ItemMetadata;
+import carldav.repository.ItemRepository;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.unitedinternet.cosmo.IntegrationTestSupport;
+import org.unitedinternet.cosmo.service.ContentService;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+
+public class StandardContentServiceTest extends IntegrationTestSupport {
+
+    private static final String CARD = "BEGIN:VCARD\r\nVERSION:3.0\r\nUID:1\r\nFN:test\r\nEND:VCARD\r\n";
+
+    @Autowired
+    private ContentService service;
+
+    @Autowired
+    private StandardContentService contentService;
+
+    @Autowired
+    private CollectionRepository collectionRepository;
+
+    @Autowired
+    private ItemContentRepository itemContentRepository;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Test
+    public void identicalPayloadStoredOnce() {
+        CollectionItem collection = collectionRepository.findOne(3L);
+
+        Item item1 = service.createContent(collection, card("1"));
+        Item item2 = service.createContent(collection, card("2"));
+
+        assertSame(item1.getContent(), item2.getContent());
+        assertEquals(1, itemContentRepository.count());
+        assertEquals(CARD, item2.getContent().getCalendar());
+
+        service.removeItemFromCollection(item1, collection);
+        age(item1.getContent());
+        contentService.removeOrphanedContent();
+        assertEquals(1, itemContentRepository.count());
+
+        service.removeItemFromCollection(item2, collection);
+        assertEquals(1, itemContentRepository.count());
+
+        contentService.removeOrphanedContent();
+        assertEquals(0, itemContentRepository.count());
+    }
+
+    @Test
+    public void updateReleasesPreviousPayload() {
+        CollectionItem collection = collectionRepository.findOne(3L);
+
+        Item item = service.createContent(collection, card("1"));
+        age(item.getContent());
+        item.setCalendar(CARD.replace("FN:test", "FN:updated"));
+        service.updateContent(item);
+        assertEquals(2, itemContentRepository.count());
+
+        contentService.removeOrphanedContent();
+        assertEquals(1, itemContentRepository.count());
+        assertEquals(item.getCalendar(), itemContentRepository.findAll().iterator().next().getCalendar());
+    }
+
+    @Test
+    public void concurrentlyStoredPayloadReused() {
+        ItemContent stored = itemContentRepository.save(new ItemContent(CARD));
+
+        ItemContent content = itemContentRepository.saveIfAbsent(new ItemContent(CARD));
+
+        assertEquals(stored.getId(), content.getId());
+        assertEquals(1, itemContentRepository.count());
+
+        Item item = service.createContent(collectionRepository.findOne(3L), card("1"));
+        assertEquals(stored.getId(), item.getContent().getId());
+    }
+
+    @Test
+    public void recentlyStoredOrphanKept() {
+        ItemContent content = itemContentRepository.save(new ItemContent(CARD));
+
+        contentService.removeOrphanedContent();
+        assertEquals(1, itemContentRepository.count());
+
+        age(content);
+        contentService.removeOrphanedContent();
+        assertEquals(0, itemContentRepository.count());
+    }
+
+    @Test
+    public void metadataWithoutPayload() {
+        CollectionItem collection = collectionRepository.findOne(3L);
+        Item item = service.createContent(collection, card("1"));
+
+        List<ItemMetadata> metadata = itemRepository.findMetadataByCollectionId(3L);
+
+        assertEquals(1, metadata.size());
+        assertEquals(item.getId(), metadata.get(0).getId());
+        assertEquals("1.vcf", metadata.get(0).getName());
+        assertEquals("text/vcard", metadata.get(0).getMimetype());
+        assertEquals(Long.valueOf(CARD.getBytes(StandardCharsets.UTF_8).length), metadata.get(0).getContentLength());
+    }
+
+    @Test
+    public void etagCalculatedOnWrite() {
+        CollectionItem collection = collectionRepository.findOne(3L);
+        Item item = service.createContent(collection, card("1"));
+
+        assertEquals(Item.createEtag(item.getId(), item.getModifiedDate()), item.getEtag());
+
+        String previous = item.getEtag();
+        service.updateContent(item);
+
+        assertNotEquals(previous, item.getEtag());
+        assertEquals(Item.createEtag(item.getId(), item.getModifiedDate()), item.getEtag());
+    }
+
+    @Test
+    public void changeCounterIncrementedOnWrite() {
+        CollectionItem collection = collectionRepository.findOne(3L);
+        long initial = collection.getSyncToken();
+
+        Item item = service.createContent(collection, card("1"));
+        assertEquals(initial + 1, (long) collection.getSyncToken());
+        assertEquals(collection.getSyncToken(), item.getSyncToken());
+
+        service.updateContent(item);
+        assertEquals(initial + 2, (long) collection.getSyncToken());
+
+        service.removeItemFromCollection(item, collection);
+        assertEquals(initial + 3, (long) collection.getSyncToken());
+        assertEquals(collection.getSyncToken(), collectionRepository.findSyncTokenById(3L));
+    }
+
+    private void age(ItemContent content) {
+        content.setModifyDate(new Date(System.currentTimeMillis() - TimeUnit.HOURS.toMillis(2)));
+        itemContentRepository.save(content);
+    }
+
+    private static Item card(String name) {
+        Item item = new Item(Item.Type.VCARD);
+        item.setName(name + ".vcf");
+        item.setUid(name);
+        item.setDisplayName(name);
+        item.setMimetype("text/vcard");
+        item.setCalendar(CARD);
+        return item;
+    }
+}